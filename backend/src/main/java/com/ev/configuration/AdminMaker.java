@@ -3,6 +3,8 @@ package com.ev.configuration;
 
 import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -21,6 +23,8 @@ import com.ev.repository.UserRepository;
 @Configuration
 public class AdminMaker {
 
+    private static final Logger log = LoggerFactory.getLogger(AdminMaker.class);
+
     @Autowired
     private UserRepository uRepo;
 
@@ -63,9 +67,9 @@ public class AdminMaker {
                     newAdmin.getRoles().add(adminRole);
 
                     uRepo.save(newAdmin);
-                    System.out.println("Default admin user created.");
+                    log.info("Default admin user created.");
                 } else {
-                    System.out.println("Admin user already exists.");
+                    log.info("Admin user already exists.");
                 }
 
                 return null;
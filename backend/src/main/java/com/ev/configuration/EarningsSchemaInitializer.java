@@ -0,0 +1,44 @@
+package com.ev.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Hibernate's ddl-auto=update creates idx_bookings_earnings_kwh but never drops
+ * idx_bookings_earnings, the covering index it replaces (same columns without
+ * estimated_kwh). This drops the old one once so bookings writes stop paying
+ * for both.
+ */
+@Configuration
+@DependsOn("entityManagerFactory")
+public class EarningsSchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(EarningsSchemaInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void dropSupersededIndex() {
+        try {
+            Integer indexes = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = 'bookings'
+                  AND INDEX_NAME = 'idx_bookings_earnings'
+                """, Integer.class);
+            if (indexes != null && indexes > 0) {
+                jdbcTemplate.execute("DROP INDEX idx_bookings_earnings ON bookings");
+                log.info("Dropped idx_bookings_earnings, superseded by idx_bookings_earnings_kwh");
+            }
+        } catch (Exception e) {
+            log.warn("Could not drop the superseded index idx_bookings_earnings: {}", e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ev.configuration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -7,6 +9,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,11 +22,15 @@ import java.util.List;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtRequestFilter.class);
+
 	
     private final jwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
 
-    public JwtRequestFilter(jwtUtil jwtUtil) {
+    public JwtRequestFilter(jwtUtil jwtUtil, VerifiedTokenCache tokenCache) {
         this.jwtUtil = jwtUtil;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -42,7 +49,8 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 path.startsWith("/auth/signup/operator") ||
                 path.equals("/auth/forgot-password") ||
                 path.equals("/auth/forgot-password/verify-otp") ||
-                path.equals("/auth/reset-password")) {
+                path.equals("/auth/reset-password") ||
+                path.startsWith("/webhooks/")) {
                 chain.doFilter(request, response);
                 return;
             }
@@ -51,39 +59,23 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
             if (header != null && header.startsWith("Bearer ")) {
                 String token = header.substring(7);
-                System.out.println("[JwtRequestFilter] Token found: " + token);
-
-                if (jwtUtil.validateToken(token)) {
-                    String username = jwtUtil.getEmailFromToken(token);
-                    String rolesString = jwtUtil.getRolesFromToken(token);
-
-                    if (username != null && rolesString != null &&
-                        SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                    	List<GrantedAuthority> authorities = new ArrayList<>();
-                    	for (String role : rolesString.split(",")) {
-                    	    role = role.trim();
-                    	    if (!role.startsWith("ROLE_")) {
-                    	        role = "ROLE_" + role;  // Spring expects ROLE_ prefix
-                    	    }
-                    	    authorities.add(new SimpleGrantedAuthority(role));
-                    	}
 
+                VerifiedTokenCache.Entry verified = resolve(token);
+                if (verified != null) {
+                    if (SecurityContextHolder.getContext().getAuthentication() == null) {
                         UsernamePasswordAuthenticationToken auth =
-                                new UsernamePasswordAuthenticationToken(username, null, authorities);
+                                new UsernamePasswordAuthenticationToken(verified.username(), null, verified.authorities());
                         SecurityContextHolder.getContext().setAuthentication(auth);
-
-                        System.out.println("[JwtRequestFilter] Authenticated user: " + username);
                     }
                 } else {
-                    System.out.println("[JwtRequestFilter] Invalid JWT token");
+                    log.debug("Rejected invalid or expired JWT for {} {}", method, path);
                  
                     response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "JWT token expired or invalid");
                     return;
                 }
 
             } else {
-                System.out.println("[JwtRequestFilter] No Bearer token found");
+                log.debug("No bearer token for {} {}", method, path);
              
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Missing JWT token");
                 return;
@@ -92,19 +84,51 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             chain.doFilter(request, response);
 
         } catch (Exception ex) {
-            System.err.println("[JwtRequestFilter] Exception: " + ex.getMessage());
-            ex.printStackTrace();
+            log.error("JWT filter failed", ex);
            
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Error processing JWT filter");
         }
     }
 
+    /**
+     * Verified identity for a bearer token, from the cache when it was seen
+     * before; null when the token is invalid, revoked or carries no subject/roles.
+     */
+    private VerifiedTokenCache.Entry resolve(String token) {
+        VerifiedTokenCache.Entry cached = tokenCache.get(token);
+        if (cached != null) return cached;
+
+        // One signature check; claims are read from the parsed token
+        Claims claims = jwtUtil.parseClaims(token);
+        if (claims == null || tokenCache.isRevoked(claims.getId())) return null;
+
+        String username = claims.getSubject();
+        String rolesString = claims.get("role", String.class);
+        if (username == null || rolesString == null) return null;
+
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : rolesString.split(",")) {
+            role = role.trim();
+            if (!role.startsWith("ROLE_")) {
+                role = "ROLE_" + role;  // Spring expects ROLE_ prefix
+            }
+            authorities.add(new SimpleGrantedAuthority(role));
+        }
+
+        // Tokens without exp are never cached (put() skips already-expired entries)
+        long expiresAtMs = claims.getExpiration() != null ? claims.getExpiration().getTime() : 0;
+        VerifiedTokenCache.Entry entry = new VerifiedTokenCache.Entry(
+                claims.getId(), username, List.copyOf(authorities), expiresAtMs);
+        tokenCache.put(token, entry);
+        return entry;
+    }
+
     private void invalidateSession(HttpServletRequest request) {
         SecurityContextHolder.clearContext();
         HttpSession session = request.getSession(false);
         if (session != null) {
             session.invalidate();
-            System.out.println("[JwtRequestFilter] Session invalidated");
+            log.debug("Session invalidated");
         }
     }
 }
\ No newline at end of file
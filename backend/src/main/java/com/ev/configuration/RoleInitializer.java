@@ -1,5 +1,7 @@
 package com.ev.configuration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 
@@ -11,6 +13,8 @@ import jakarta.annotation.PostConstruct;
 
 @Configuration
 public class RoleInitializer {
+
+	private static final Logger log = LoggerFactory.getLogger(RoleInitializer.class);
 	
 	
 	    @Autowired
@@ -29,7 +33,7 @@ public class RoleInitializer {
 	            Role role = new Role();
 	            role.setName(roleType);
 	            roleRepo.save(role);
-	            System.out.println("Created role: " + roleType);
+	            log.info("Created role: {}", roleType);
 	        }
 	    }
 	}
@@ -34,6 +34,9 @@ public class SecurityConfig {
             	    // Public auth endpoints
             	    .requestMatchers("/auth/**").permitAll()
 
+            	    // Payment provider webhooks, verified by signature
+            	    .requestMatchers("/webhooks/**").permitAll()
+
             	    // Bookings: allow all three roles
             	    .requestMatchers("/bookings", "/bookings/**")
             	        .hasAnyRole("EV_OWNER", "ADMIN", "CHARGER_OPERATOR")
@@ -67,6 +70,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS","PATCH"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("X-Next-Cursor", "X-Request-Id", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
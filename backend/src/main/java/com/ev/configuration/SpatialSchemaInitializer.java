@@ -0,0 +1,62 @@
+package com.ev.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Hibernate's ddl-auto=update adds charging_stations.geo_point as a nullable column
+ * but cannot create a SPATIAL index (which MySQL only allows on NOT NULL columns).
+ * This backfills existing rows from latitude/longitude, tightens the column and
+ * creates the index once.
+ */
+@Configuration
+@DependsOn("entityManagerFactory")
+public class SpatialSchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(SpatialSchemaInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void initSpatialColumn() {
+        try {
+            jdbcTemplate.update("""
+                UPDATE charging_stations
+                SET geo_point = ST_GeomFromText(
+                    CONCAT('POINT(', COALESCE(latitude, 0), ' ', COALESCE(longitude, 0), ')'),
+                    4326, 'axis-order=lat-long')
+                WHERE geo_point IS NULL
+                """);
+
+            String nullable = jdbcTemplate.queryForObject("""
+                SELECT IS_NULLABLE FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = 'charging_stations'
+                  AND COLUMN_NAME = 'geo_point'
+                """, String.class);
+            if ("YES".equals(nullable)) {
+                jdbcTemplate.execute("ALTER TABLE charging_stations MODIFY geo_point POINT NOT NULL SRID 4326");
+            }
+
+            Integer indexes = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE()
+                  AND TABLE_NAME = 'charging_stations'
+                  AND INDEX_NAME = 'idx_stations_geo_point'
+                """, Integer.class);
+            if (indexes == null || indexes == 0) {
+                jdbcTemplate.execute("CREATE SPATIAL INDEX idx_stations_geo_point ON charging_stations (geo_point)");
+                log.info("Created SPATIAL index idx_stations_geo_point");
+            }
+        } catch (Exception e) {
+            log.warn("Could not prepare spatial index on charging_stations.geo_point: {}", e.getMessage());
+        }
+    }
+}
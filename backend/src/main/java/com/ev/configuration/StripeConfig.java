@@ -11,8 +11,14 @@ public class StripeConfig {
     @Value("${stripe.secret-key}")
     private String stripeSecretKey;
 
+    // Socket-level bound under PaymentCheckoutService's overall checkout timeout
+    @Value("${app.payments.checkout.timeout-ms:10000}")
+    private int checkoutTimeoutMs;
+
     @PostConstruct
     public void init() {
         Stripe.apiKey = stripeSecretKey; // set global Stripe key 
+        Stripe.setConnectTimeout(Math.min(checkoutTimeoutMs, 5000));
+        Stripe.setReadTimeout(checkoutTimeoutMs);
     }
 }
\ No newline at end of file
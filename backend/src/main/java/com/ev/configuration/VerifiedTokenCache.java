@@ -0,0 +1,128 @@
+package com.ev.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bearer tokens that already passed signature verification, keyed by the
+ * SHA-256 of the token so raw tokens are never held in memory.
+ *
+ * Entries expire with the token's own exp and the map is bounded by
+ * maxEntries: a put into a full cache drops the entries closest to expiry,
+ * taken from an expiry-ordered index in O(log n) each. Revoked jtis are remembered until their token would have
+ * expired anyway, and their entries are dropped immediately. Revocation is
+ * per instance: with several backends each one needs to be told.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public record Entry(String jti, String username, List<GrantedAuthority> authorities, long expiresAtMs) {}
+
+    @Value("${app.jwt.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Keys by expiry, soonest first; items whose entry is gone or was replaced are skipped when polled
+    private record Expiry(long expiresAtMs, String key) {}
+
+    private final NavigableSet<Expiry> byExpiry = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Expiry::expiresAtMs).thenComparing(Expiry::key));
+
+    // jti -> exp of the revoked token
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Entry get(String token) {
+        if (!enabled) return null;
+        String key = hash(token);
+        Entry e = entries.get(key);
+        if (e == null) return null;
+        if (e.expiresAtMs() <= System.currentTimeMillis() || isRevoked(e.jti())) {
+            entries.remove(key, e);
+            return null;
+        }
+        return e;
+    }
+
+    public void put(String token, Entry entry) {
+        if (!enabled || entry.expiresAtMs() <= System.currentTimeMillis()) return;
+        // Expired entries come first; dropped live ones are re-verified on next use
+        while (entries.size() >= maxEntries) {
+            Expiry first = byExpiry.pollFirst();
+            if (first == null) break;
+            remove(first);
+        }
+        String key = hash(token);
+        entries.put(key, entry);
+        byExpiry.add(new Expiry(entry.expiresAtMs(), key));
+        // A revoke racing with this put must not leave the entry behind
+        if (isRevoked(entry.jti())) {
+            entries.remove(key, entry);
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && revoked.containsKey(jti);
+    }
+
+    public void revoke(String jti, long expiresAtMs) {
+        if (jti == null) return;
+        revoked.put(jti, expiresAtMs);
+        entries.values().removeIf(e -> jti.equals(e.jti()));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Expiry> it = byExpiry.iterator();
+        while (it.hasNext()) {
+            Expiry first = it.next();
+            if (first.expiresAtMs() > now) break;
+            it.remove();
+            remove(first);
+        }
+        revoked.values().removeIf(exp -> exp <= now);
+    }
+
+    private void remove(Expiry expiry) {
+        entries.computeIfPresent(expiry.key(), (k, e) -> e.expiresAtMs() == expiry.expiresAtMs() ? null : e);
+    }
+
+    private static String hash(String token) {
+        MessageDigest md = SHA256.get();
+        return Base64.getEncoder().encodeToString(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+}
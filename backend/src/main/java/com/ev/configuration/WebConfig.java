@@ -15,6 +15,7 @@ public class WebConfig implements WebMvcConfigurer {
           .allowedOrigins("http://localhost:3000")
           .allowedMethods("GET","POST","PUT","DELETE","OPTIONS")
           .allowedHeaders("*")
+          .exposedHeaders("X-Next-Cursor", "X-Request-Id", "Idempotent-Replayed")
           .allowCredentials(true);
     }
     
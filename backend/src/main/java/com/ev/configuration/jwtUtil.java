@@ -4,23 +4,53 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 import java.security.Key;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import com.ev.model.RoleType;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 @Component
 public class jwtUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(jwtUtil.class);
+
     @Value("${jwt.secret}")
     private String base64Key;
 
     private final long EXPIRATION_TIME = 1000 * 60 * 60 * 10; // 10 hours
 
-    private Key getSigningKey() {
+    // Decoded once; the key and parser are immutable and thread-safe
+    private Key signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
         byte[] keyBytes = Decoders.BASE64.decode(base64Key);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parser()
+            .setSigningKey(signingKey)
+            .build();
+    }
+
+    private Key getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Verifies the token signature and expiry once and returns its claims,
+     * or null when the token is invalid.
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT validation failed: {}", e.getMessage());
+            return null;
+        }
     }
 
     // Generate token with comma-separated roles (accepts String now)
@@ -40,9 +70,7 @@ public class jwtUtil {
 
     // Extract roles from token and return as comma-separated String
     public String getRolesFromToken(String token) {
-        return Jwts.parser()
-            .setSigningKey(getSigningKey())
-            .build()
+        return parser
             .parseClaimsJws(token)
             .getBody()
             .get("role", String.class);
@@ -59,7 +87,7 @@ public class jwtUtil {
                 try {
                     roleTypes.add(RoleType.valueOf(role.trim()));
                 } catch (IllegalArgumentException e) {
-                    System.err.println("Unknown role: " + role);
+                    log.warn("Unknown role in token: {}", role);
                 }
             }
         }
@@ -67,40 +95,25 @@ public class jwtUtil {
     }
 
     public String getJti(String token) {
-        return Jwts.parser()
-            .setSigningKey(getSigningKey())
-            .build()
+        return parser
             .parseClaimsJws(token)
             .getBody()
             .getId();
     }
 
     public Long getUserIdFromToken(String token) {
-        return Jwts.parser()
-            .setSigningKey(getSigningKey())
-            .build()
+        return parser
             .parseClaimsJws(token)
             .getBody()
             .get("userId", Long.class);
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            System.err.println("JWT validation failed: " + e.getMessage());
-            return false;
-        }
+        return parseClaims(token) != null;
     }
 
     public String getEmailFromToken(String token) {
-        return Jwts.parser()
-            .setSigningKey(getSigningKey())
-            .build()
+        return parser
             .parseClaimsJws(token)
             .getBody()
             .getSubject();
@@ -1,8 +1,10 @@
 package com.ev.controller;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,12 +22,20 @@ import com.ev.repository.ChargingStationRepository;
 import com.ev.repository.PaymentRepository;
 import com.ev.repository.RefreshTokenRepo;
 import com.ev.repository.UserRepository;
+import com.ev.service.ActiveBookingCounts;
+import com.ev.service.BookingChangedEvent;
+import com.ev.service.EarningsLedger;
+import com.ev.service.EmailOutboxDispatcher;
+import com.ev.service.StationChangedEvent;
+import com.ev.service.BookingListingService;
+import com.ev.service.BookingListingService.BookingPage;
+import com.ev.service.StationListingService;
+import com.ev.service.StationListingService.StationPage;
 
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 
 import com.ev.dto.UserResponseDTO;
-import com.ev.dto.BookingResponseDTO;
 import com.ev.dto.CreateStationRequestDTO;
 import com.ev.dto.StationResponseDTO;
 import com.ev.dto.UserCreateDTO;
@@ -34,16 +44,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.Pageable;
 
 
 @RestController
@@ -69,77 +77,74 @@ public class AdminController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private StationListingService stationListingService;
+
+    @Autowired
+    private BookingListingService bookingListingService;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private ActiveBookingCounts activeBookingCounts;
+
+    @Autowired
+    private EarningsLedger earningsLedger;
+
     private static final Logger log = LoggerFactory.getLogger(com.ev.controller.AdminController.class);
     
     //list of booking
     
     @GetMapping("/bookings")
     public ResponseEntity<?> getAllBookings(
-            @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "bookedAt,desc") String sort) {
+            @RequestParam(defaultValue = "bookedAt,desc") String sort,
+            @RequestParam(required = false) String cursor) {
 
+        BookingPage page;
         try {
-            // Parse sort parameter: "createdAt,desc" → Sort.Direction.DESC, "createdAt"
-            String[] sortParts = sort.split(",");
-            String sortBy = sortParts[0];
-            Sort.Direction direction = sortParts.length > 1 && "asc".equalsIgnoreCase(sortParts[1])
-                    ? Sort.Direction.ASC : Sort.Direction.DESC;
-
-            Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
-
-            Page<Booking> bookingPage = bookingRepository.findAll(pageable);
-
-            // Convert to DTOs (you must have BookingResponseDTO)
-            List<BookingResponseDTO> dtos = bookingPage.getContent().stream()
-                    .map(BookingResponseDTO::new)
-                    .toList();
-
-            Map<String, Object> response = Map.of(
-                    "content", dtos,
-                    "totalItems", bookingPage.getTotalElements(),
-                    "totalPages", bookingPage.getTotalPages(),
-                    "currentPage", bookingPage.getNumber(),
-                    "pageSize", bookingPage.getSize()
-            );
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception e) {
-            return ResponseEntity.status(500)
-                    .body(Map.of("error", "Failed to fetch bookings: " + e.getMessage()));
+            page = bookingListingService.list(sort, size, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("content", page.content());
+        response.put("nextCursor", page.nextCursor());
+        response.put("totalItems", page.approxTotal());
+        response.put("pageSize", size);
+        return ResponseEntity.ok(response);
     }
     
     @PostMapping("/bookings/active-counts")
     public ResponseEntity<Map<Long, Long>> getActiveBookingsCount(@RequestBody List<Long> stationIds) {
-        LocalDateTime now = LocalDateTime.now();
-        
-        Map<Long, Long> counts = stationIds.stream()
-            .collect(Collectors.toMap(
-                id -> id,
-                id -> {
-                    ChargingStations station = new ChargingStations();
-                    station.setId(id);
-                    return bookingRepository.countActiveBookingsAtStation(station, now);
-                }
-            ));
-        
-        return ResponseEntity.ok(counts);
+        return ResponseEntity.ok(activeBookingCounts.countActive(stationIds));
     }
 
 
   //List of all stations
     @GetMapping("/stations")
-    public ResponseEntity<List<StationResponseDTO>> getAllStations() {
-       
-        List<ChargingStations> stations = chargingStationRepository.findAll();
+    public ResponseEntity<List<StationResponseDTO>> getAllStations(
+            @RequestParam(defaultValue = "name,asc") String sort,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
 
-        List<StationResponseDTO> dtos = stations.stream()
-                .map(StationResponseDTO::new)
-                .toList();
+        StationPage page;
+        try {
+            page = stationListingService.list(sort, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        return ResponseEntity.ok(dtos);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.content());
     }
     
     @GetMapping("/stations/{stationId}")
@@ -179,6 +184,7 @@ public class AdminController {
         station.setAvailableSlots(station.getTotalSlots());
 
         ChargingStations saved = chargingStationRepository.save(station);
+        eventPublisher.publishEvent(StationChangedEvent.saved(saved));
         return new ResponseEntity<>(new StationResponseDTO(saved), HttpStatus.CREATED);
     }
     
@@ -194,6 +200,7 @@ public class AdminController {
             }
             
             chargingStationRepository.deleteById(stationId);
+            eventPublisher.publishEvent(StationChangedEvent.deleted(stationId));
             log.info("Station {} deleted by admin", stationId);
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
@@ -257,6 +264,7 @@ public class AdminController {
         }
 
         ChargingStations updated = chargingStationRepository.save(station);
+        eventPublisher.publishEvent(StationChangedEvent.saved(updated));
         return ResponseEntity.ok(new StationResponseDTO(updated));
     }
      //List of all users
@@ -490,9 +498,12 @@ public class AdminController {
 
             // 5. Delete bookings on this user's stations (operator side)
             bookingRepository.deleteByStationOperatorUserId(userId); // you need this
+            eventPublisher.publishEvent(BookingChangedEvent.bulk());
 
             // 6. Delete stations of this user (as operator)
+            List<Long> stationIds = chargingStationRepository.findIdsByOperatorUserId(userId);
             chargingStationRepository.deleteByOperatorUserId(userId);
+            stationIds.forEach(id -> eventPublisher.publishEvent(StationChangedEvent.deleted(id)));
 
             // 7. Delete the user itself
             userRepository.deleteById(userId);
@@ -585,16 +596,56 @@ public class AdminController {
       
         
         
-        BigDecimal totalPlatform = bookingRepository.sumPlatformFees();
-        BigDecimal totalStation = bookingRepository.sumStationFees();
-        long totalBookings = bookingRepository.count();
+        // Read from the daily rollup instead of scanning bookings; fees are the ones stored per booking
+        EarningsLedger.Totals totals = earningsLedger.totals();
+        BigDecimal totalPlatform = totals.platformFees();
+        BigDecimal totalStation = totals.stationFees();
+        long totalBookings = totals.sessions();
         
         return ResponseEntity.ok(Map.of(
             "totalPlatformEarnings", totalPlatform,
             "totalStationEarnings", totalStation,
             "totalBookings", totalBookings,
-            "commissionRate", "5%"
+            "commissionRate", Booking.PLATFORM_FEE_RATE.movePointRight(2).stripTrailingZeros().toPlainString() + "%"
         ));
     }
 
+    // Paid earnings per day, station and payment method; defaults to the last 30 days
+    @GetMapping("/earnings/breakdown")
+    public ResponseEntity<?> getEarningsBreakdown(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end) || start.plusYears(1).isBefore(end)) {
+            return ResponseEntity.badRequest().body("from must be before to and at most one year apart");
+        }
+        List<Map<String, Object>> rows = earningsLedger.breakdown(start, end).stream()
+                .map(row -> {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("day", row[0]);
+                    m.put("stationId", row[1]);
+                    m.put("paymentMethod", row[2]);
+                    m.put("bookings", row[3]);
+                    m.put("amount", row[4]);
+                    m.put("platformFees", row[5]);
+                    m.put("stationFees", row[6]);
+                    return m;
+                })
+                .toList();
+        return ResponseEntity.ok(rows);
+    }
+
+    // Recomputes the earnings ledger from bookings, e.g. after a manual data fix
+    @PostMapping("/earnings/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildEarnings() {
+        return ResponseEntity.ok(Map.of("rows", earningsLedger.rebuild()));
+    }
+
+    // Email outbox health: queue depth, dead letters, send counters and latency
+    @GetMapping("/email-outbox/stats")
+    public ResponseEntity<EmailOutboxDispatcher.OutboxStats> getEmailOutboxStats() {
+        return ResponseEntity.ok(emailOutboxDispatcher.stats());
+    }
+
 }
\ No newline at end of file
@@ -10,6 +10,8 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -18,9 +20,12 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import io.jsonwebtoken.Claims;
+
 import com.ev.dto.EvOwnerSignupRequest;
 import com.ev.dto.LoginRequest;
 import com.ev.dto.OperatorSignupRequest;
@@ -36,12 +41,17 @@ import com.ev.model.User;
 import com.ev.repository.RefreshTokenRepo;
 import com.ev.repository.RoleRepository;
 import com.ev.repository.UserRepository;
+import com.ev.configuration.VerifiedTokenCache;
 import com.ev.configuration.jwtUtil;
 import com.ev.service.EmailService;
+import com.ev.service.NotificationTemplates;
+import com.ev.service.NotificationTemplates.Notification;
 
 @RestController
 @RequestMapping("/auth") 
 public class AuthController {
+
+	private static final Logger log = LoggerFactory.getLogger(AuthController.class);
 	
 	@Value("${app.otp.enabled:true}")
 	private boolean otpEnabled;
@@ -62,6 +72,12 @@ public class AuthController {
 	
 	@Autowired
 	 private EmailService emailService;
+
+	@Autowired
+	 private NotificationTemplates notificationTemplates;
+
+	@Autowired
+	 private VerifiedTokenCache tokenCache;
 	
 	@Autowired
 	 private RoleRepository roleRepo;
@@ -168,7 +184,7 @@ public class AuthController {
             case "charger_operator" -> "/operator/dashboard";
             case "ev_owner" -> "/ev-owner/dashboard";
             default -> {
-                System.out.println("WARNING: Unknown role '" + normalizedRole + "', redirecting to /");
+                log.warn("Unknown role '{}', redirecting to /", normalizedRole);
                 yield "/";
             }
         };
@@ -241,13 +257,13 @@ public class AuthController {
             uRepo.save(existingUser);
 
             try {
-                emailService.sendSimpleMail(
+                emailService.queueMail(
                     existingUser.getEmail(),
-                    "Login OTP Code",
-                    "Your OTP is: " + otp + " (valid for 5 minutes)"
+                    notificationTemplates.render(Notification.OTP_LOGIN,
+                            Map.of("otp", otp, "validMinutes", 5))
                 );
             } catch (Exception mailEx) {
-                System.err.println("Failed to send OTP email: " + mailEx.getMessage());
+                log.error("Failed to queue OTP email", mailEx);
             }
 
             return ResponseEntity.ok(Map.of(
@@ -326,8 +342,6 @@ public class AuthController {
         body.put("status", existingUser.getStatus());
         body.put("email", existingUser.getEmail());
         body.put("fullname", existingUser.getFullname());
-        
-        System.out.println("otpEnabled = " + otpEnabled);
 
         return ResponseEntity.ok(body);
     }
@@ -358,10 +372,10 @@ public class AuthController {
         user.setOtpExpiry(LocalDateTime.now().plusMinutes(10));
         uRepo.save(user);
 
-        emailService.sendSimpleMail(
+        emailService.queueMail(
             user.getEmail(),
-            "Password Reset Code",
-            "Your password reset code is: " + otp + " (valid for 10 minutes)"
+            notificationTemplates.render(Notification.OTP_PASSWORD_RESET,
+                    Map.of("otp", otp, "validMinutes", 10))
         );
 
         return ResponseEntity.ok(Map.of(
@@ -426,8 +440,15 @@ public class AuthController {
     }
     
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
-   
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        // Revoke the access token so cached verifications stop being accepted
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            Claims claims = jwtUtil.parseClaims(authorization.substring(7));
+            if (claims != null && claims.getExpiration() != null) {
+                tokenCache.revoke(claims.getId(), claims.getExpiration().getTime());
+            }
+        }
+
         return ResponseEntity.ok(Map.of(
             "message", "Logged out successfully"
         ));
@@ -2,20 +2,33 @@
 package com.ev.controller;
 
 import com.ev.dto.BookingResponseDTO;
+import com.ev.dto.SlotGridDTO;
 import com.ev.model.*;
 import com.ev.repository.BookingRepository;
 import com.ev.repository.ChargingStationRepository;
 import com.ev.repository.PaymentRepository;
 import com.ev.repository.UserRepository;
+import com.ev.service.BookingChangedEvent;
+import com.ev.service.BookingReservationService;
+import com.ev.service.BookingReservationService.Reservation;
 import com.ev.service.EmailService;
-import com.stripe.exception.StripeException;
-import com.stripe.model.checkout.Session;
-import com.stripe.param.checkout.SessionCreateParams; 
+import com.ev.service.IdempotencyStore;
+import com.ev.service.NotificationTemplates;
+import com.ev.service.PaymentCheckoutService;
+import com.ev.service.PaymentConfirmationService;
+import com.ev.service.PaymentGateway.CheckoutSession;
+import com.ev.service.NotificationTemplates.Notification;
+import com.ev.service.NotificationTemplates.RenderedNotification;
+import com.ev.service.StationSlotGridService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -27,19 +40,39 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/bookings")
 public class BookingController {
 
+    private static final Logger log = LoggerFactory.getLogger(BookingController.class);
+
     @Autowired private BookingRepository bookingRepo;
     @Autowired private ChargingStationRepository stationRepo;
     @Autowired private UserRepository userRepository;
     
     @Autowired
     private EmailService emailService;
+
+    @Autowired
+    private NotificationTemplates notificationTemplates;
+
+    @Autowired
+    private BookingReservationService reservationService;
+
+    @Autowired
+    private StationSlotGridService slotGridService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Value("${app.admin.email}")
     private String adminEmail;
@@ -47,134 +80,36 @@ public class BookingController {
     @Autowired
     private PaymentRepository paymentRepo;
     
-    @Value("${app.frontend.base-url}")
-    private String frontendBaseUrl;
+    @Autowired
+    private PaymentCheckoutService checkoutService;
 
-    @Value("${stripe.currency:npr}")
-    private String stripeCurrency;
-    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
 
-    private void sendSafeEmail(String toEmail, String subject, String text) {
-        try {
-            if (toEmail == null || toEmail.trim().isEmpty()) {
-                toEmail = adminEmail;
-                System.out.println("Null email → Fallback to admin: " + toEmail);
-            }
-            emailService.sendSimpleMail(toEmail, subject, text);
-            System.out.println("Email OK → " + toEmail);
-        } catch (Exception e) {
-            System.err.println("Email FAILED → " + toEmail + ": " + e.getMessage());
-          
-        }
-    }
+    @Autowired
+    private PaymentConfirmationService confirmationService;
 
+    // How long createBooking waits for the checkout URL before answering 202 with a handle to poll
+    @Value("${app.payments.checkout.inline-wait-ms:2000}")
+    private long checkoutInlineWaitMs;
     
-    
-    private void handlePaymentSuccess(Long bookingId, String gatewayPaymentIdFromCallback) {
-        Booking booking = bookingRepo.findById(bookingId)
-            .orElseThrow(() -> new EntityNotFoundException("Booking not found"));
-        
-        System.out.println("Payment success for booking " + bookingId + 
-                ": Total=" + booking.getTotalAmount() + 
-                ", Platform(5%)=" + booking.getPlatformFee() + 
-                ", Station=" + booking.getStationFee());
-
-        // Find latest payment for this booking
-        List<Payment> payments = paymentRepo.findByBookingId(bookingId);
-        if (payments.isEmpty()) {
-            throw new RuntimeException("No payment found for booking " + bookingId);
-        }
-
-        Payment payment = payments.get(payments.size() - 1); // latest payment
 
-        payment.setStatus(PaymentStatus.SUCCESS);
-        if (gatewayPaymentIdFromCallback != null) {
-            payment.setGatewayPaymentId(gatewayPaymentIdFromCallback);
+    private void sendSafeEmail(String toEmail, Notification notification, Map<String, ?> vars) {
+        if (toEmail == null || toEmail.trim().isEmpty()) {
+            toEmail = adminEmail;
+            log.debug("No recipient email, falling back to admin {}", toEmail);
         }
-        payment.setUpdatedAt(LocalDateTime.now());
-        paymentRepo.save(payment);
-
-        booking.setStatus(BookingStatus.CONFIRMED);
-        bookingRepo.save(booking);
-        
-       
-        String durationHours = String.format("%.1f hours", Duration.between(booking.getStartTime(), booking.getEndTime()).toMinutes() / 60.0);
-        String timeSlot = booking.getStartTime().format(java.time.format.DateTimeFormatter.ofPattern("hh:mm a - hh:mm a, MMM dd"));
-        
-    
-        String paymentMethodName = payment.getPaymentMethod() != null ? 
-            payment.getPaymentMethod().name() : "Unknown";
-        
-        String evOwnerEmail = booking.getEvOwner().getEmail();
-        String operatorEmail = booking.getStation().getOperator().getEmail();
-        
-        // EV OWNER 
-        sendSafeEmail(
-            evOwnerEmail != null ? evOwnerEmail : adminEmail,
-            "✅ Payment Success - Booking Confirmed #" + bookingId,
-            "Hi " + booking.getEvOwner().getFullname() + ",\n\n" +
-            "Payment successful!\n\n" +
-            "Station: '" + booking.getStation().getName() + "'\n" +
-            "Connector: " + booking.getConnectorType() + "\n" +
-            "Duration: " + durationHours + "\n" +
-            "Time: " + timeSlot + "\n" +
-            "Payment Method: **" + paymentMethodName + "**\n" +
-            "Total Paid: NPR " + booking.getTotalAmount() + "\n\n" +
-            "Thank you for using BijuliYatra!"
-        );
-        
-        // OPERATOR 
-        sendSafeEmail(
-            operatorEmail != null ? operatorEmail : adminEmail,
-            "💰 Payment Received - Booking Confirmed #" + bookingId,
-            "Payment confirmed for your station!\n\n" +
-            "Name: " + booking.getEvOwner().getFullname() + "\n" +
-            "Station: " + booking.getStation().getName() + "\n" +
-            "Method: **" + paymentMethodName + "**\n" +
-            "Duration: " + durationHours + "\n" +
-            "Connector: " + booking.getConnectorType() + "\n" +
-            "Time: " + timeSlot + "\n" +
-            "Amount: NPR " + booking.getTotalAmount()
-        );
-    }
- 
-    
-    private Session createStripeCheckoutSession(Long bookingId, long amountInRs) throws StripeException {
-        long minRs = 100;
-        if (amountInRs < minRs) {
-            amountInRs = minRs;
+        RenderedNotification rendered;
+        try {
+            rendered = notificationTemplates.render(notification, vars);
+        } catch (Exception e) {
+            log.error("Failed to render {} email to {}", notification, toEmail, e);
+            return;
         }
-
-        long amountInSmallestUnit = amountInRs; //NPR TO outside money because Stripe doesn't accept less than 1 dollar
-
-        SessionCreateParams params =
-            SessionCreateParams.builder()
-                .setMode(SessionCreateParams.Mode.PAYMENT)
-                .setSuccessUrl(frontendBaseUrl + "/payment-success?bookingId=" + bookingId)
-                .setCancelUrl(frontendBaseUrl + "/payment-failed?bookingId=" + bookingId)
-                .addLineItem(
-                    SessionCreateParams.LineItem.builder()
-                        .setQuantity(1L)
-                        .setPriceData(
-                            SessionCreateParams.LineItem.PriceData.builder()
-                                .setCurrency(stripeCurrency)
-                                .setUnitAmount(amountInSmallestUnit)
-                                .setProductData(
-                                    SessionCreateParams.LineItem.PriceData.ProductData.builder()
-                                        .setName("EV Charging Booking #" + bookingId)
-                                        .build()
-                                )
-                                .build()
-                        )
-                        .build()
-                )
-                .putMetadata("bookingId", String.valueOf(bookingId))
-                .build();
-
-        return Session.create(params);
+        // Outbox row written in the booking's transaction; delivery happens in the background
+        emailService.queueMail(toEmail, rendered);
     }
 
-
     // ===================== LIST BOOKINGS (All Roles) =====================
     @GetMapping
     public ResponseEntity<List<BookingResponseDTO>> getBookings(Authentication auth) {
@@ -258,9 +193,36 @@ public class BookingController {
         }
     }
 
+    // Free ports per connector type in 15-minute buckets for one day; the booking calendar reads this
+    @GetMapping("/stations/{id}/availability")
+    public ResponseEntity<SlotGridDTO> getStationAvailability(
+        @PathVariable Long id,
+        @RequestParam String date
+    ) {
+        LocalDate day;
+        try {
+            day = LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        SlotGridDTO grid = slotGridService.grid(id, day);
+        if (grid == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(grid);
+    }
+
     //  CREATE BOOKING (Only EV Owner)\
     @PostMapping
-    public ResponseEntity<?> createBooking(Authentication auth, @RequestBody Map<String, Object> req) {
+    public ResponseEntity<?> createBooking(Authentication auth, @RequestBody Map<String, Object> req,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        // A retried request replays the first response: no second booking, payment or checkout
+        return idempotencyStore.execute("POST /bookings " + auth.getName(), idempotencyKey,
+                new TreeMap<>(req).toString(), () -> doCreateBooking(auth, req));
+    }
+
+    private ResponseEntity<?> doCreateBooking(Authentication auth, Map<String, Object> req) {
         try {
             // 1. Get authenticated EV Owner
             String email = (String) auth.getPrincipal();
@@ -306,39 +268,7 @@ public class BookingController {
                 return ResponseEntity.badRequest().body("Station is not available");
             }
 
-            // 5. Conflict check
-            LocalDateTime conflictStart = start;
-            LocalDateTime conflictEnd = end.plusMinutes(15);
-
-            boolean hasConflict = bookingRepo.hasOverlappingBooking(
-                    stationId,
-                    conflictStart,
-                    conflictEnd,
-                    List.of(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS)
-            );
-
-            if (hasConflict) {
-                return ResponseEntity.badRequest()
-                        .body("This time slot is too close to another booking (15-min gap required after previous booking ends)");
-            }
-
-            // 6. Slot availability
-            int totalSlots = station.getTotalSlots() != null && station.getTotalSlots() > 0
-                    ? station.getTotalSlots()
-                    : (station.getLevel2Chargers() + station.getDcFastChargers());
-
-            long bookedDuringThisTime = bookingRepo.countBookingsDuringPeriod(
-                    stationId,
-                    start,
-                    end.plusMinutes(15)
-            );
-
-            if (bookedDuringThisTime >= totalSlots) {
-                return ResponseEntity.badRequest()
-                        .body("No charging ports available during this time slot");
-            }
-
-            // 7. Pricing
+            // 5. Pricing
             double hours = minutes / 60.0;
             double rate = "DC Fast".equalsIgnoreCase(connectorType)
                     ? (station.getDcFastRate() != null ? station.getDcFastRate() : 60.0)
@@ -354,14 +284,13 @@ public class BookingController {
             double totalAmountDouble = Math.round(rate * estimatedKwh);
             BigDecimal totalAmount = BigDecimal.valueOf(totalAmountDouble);
             
-            BigDecimal platformFee= totalAmount.multiply(BigDecimal.valueOf(0.07));
+            BigDecimal platformFee= totalAmount.multiply(Booking.PLATFORM_FEE_RATE);
             BigDecimal stationFee= totalAmount.subtract(platformFee);		
-            System.out.println("Booking fees: Total=" + totalAmount + 
-            	    ", Platform(7%)=" + platformFee + ", Station=" + stationFee);
+            log.debug("Booking fees: total={} platformFee={} stationFee={}", totalAmount, platformFee, stationFee);
             
             
 
-         // 8. Create booking as PENDING (not confirmed until payment success)
+         // 6. Create booking as PENDING (not confirmed until payment success)
             Booking booking = new Booking();
             booking.setEvOwner(evOwner);
             booking.setStation(station);
@@ -374,32 +303,23 @@ public class BookingController {
             booking.setStatus(BookingStatus.IN_PROGRESS);
             booking.setPlatformFee(platformFee);      // NEW
             booking.setStationFee(stationFee);  
+            booking.setCommisionRate(Booking.PLATFORM_FEE_RATE);
 
             // convert String -> enum once
             PaymentMethod methodEnum = PaymentMethod.valueOf(paymentMethod.toUpperCase());
             booking.setPaymentMethod(methodEnum);
 
-            Booking saved = bookingRepo.save(booking);
-            
-            
-         // 9. INIT PAYMENT WITH GATEWAY
-            String paymentUrl;
-            String gatewayPaymentId = null;
-
-            if (methodEnum == PaymentMethod.CARD) {
-                long amountLong = totalAmount.multiply(BigDecimal.valueOf(100)).longValue();  
-                Session session = createStripeCheckoutSession(saved.getId(), amountLong);
-                paymentUrl = session.getUrl();
-                gatewayPaymentId = session.getId();
-            } else if (methodEnum == PaymentMethod.KHALTI) {
-                paymentUrl = "https://khalti.com/mock-payment?bookingId=" + saved.getId();
-            } else if (methodEnum == PaymentMethod.ESEWA) {
-                paymentUrl = "https://esewa.com/mock-payment?bookingId=" + saved.getId();
-            } else {
-                return ResponseEntity.badRequest().body("Unsupported payment method");
+            // 7-8. Conflict check and save, serialized per station
+            Reservation reservation = reservationService.reserve(booking);
+
+            if (!reservation.reserved()) {
+                return ResponseEntity.badRequest()
+                        .body("This time slot is too close to another booking (15-min gap required after previous booking ends)");
             }
+            Booking saved = reservation.booking();
             
-         // Create Payment row (PENDING)
+            
+         // 9. Create Payment row (PENDING); the gateway fills in the checkout asynchronously
             Payment payment = new Payment();
             payment.setBooking(saved);
             payment.setUser(evOwner);
@@ -407,31 +327,66 @@ public class BookingController {
             payment.setCurrency("NPR");
             payment.setPaymentMethod(methodEnum);
             payment.setStatus(PaymentStatus.PENDING);
-            payment.setGatewayPaymentId(gatewayPaymentId);
 
             paymentRepo.save(payment);
-            
-            
-            // 10. Return bookingId + paymentUrl for redirect
-            return ResponseEntity.ok(Map.of(
-                    "bookingId", saved.getId(),
-                    "paymentUrl", paymentUrl,
-                    "amount", totalAmount,
-                    "paymentMethod", paymentMethod
-            ));
-            
-        
 
-        } catch (StripeException se) {
-            se.printStackTrace();
-            return ResponseEntity.status(502).body("Stripe error: " + se.getMessage());
+            CompletableFuture<CheckoutSession> checkout = checkoutService.start(saved, payment);
+
+            // 10. Return bookingId + paymentUrl for redirect, or a handle to poll while the gateway is slow
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("bookingId", saved.getId());
+            body.put("paymentId", payment.getId());
+            body.put("amount", totalAmount);
+            body.put("paymentMethod", paymentMethod);
+            body.put("paymentStatusUrl", "/bookings/" + saved.getId() + "/payment");
+            try {
+                CheckoutSession session = checkout.get(checkoutInlineWaitMs, TimeUnit.MILLISECONDS);
+                body.put("paymentStatus", PaymentStatus.PENDING);
+                body.put("paymentUrl", session.checkoutUrl());
+                return ResponseEntity.ok(body);
+            } catch (TimeoutException pending) {
+                body.put("paymentStatus", PaymentStatus.PENDING);
+                body.put("paymentUrl", null);
+                return ResponseEntity.accepted().body(body);
+            } catch (ExecutionException failed) {
+                // The payment is FAILED and the booking cancelled; the reason is on the payment row
+                body.put("paymentStatus", PaymentStatus.FAILED);
+                body.put("message", failed.getCause().getMessage());
+                return ResponseEntity.status(502).body(body);
+            }
+
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Booking/payment init failed", e);
             return ResponseEntity.status(500).body("Booking/payment init failed: " + e.getMessage());
         }
     }
+
+    // Checkout state of the booking's latest payment, for clients polling after a 202 from createBooking
+    @GetMapping("/{bookingId}/payment")
+    public ResponseEntity<?> getPaymentStatus(@PathVariable Long bookingId, Authentication auth) {
+        Booking booking = bookingRepo.findById(bookingId).orElse(null);
+        if (booking == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!booking.getEvOwner().getEmail().equals(auth.getName())) {
+            return ResponseEntity.status(403).body("Not your booking");
+        }
+        Payment payment = paymentRepo.findFirstByBookingIdOrderByCreatedAtDescIdDesc(bookingId).orElse(null);
+        if (payment == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("bookingId", bookingId);
+        body.put("paymentId", payment.getId());
+        body.put("paymentStatus", payment.getStatus());
+        body.put("paymentUrl", payment.getCheckoutUrl());
+        body.put("failureReason", payment.getFailureReason());
+        return ResponseEntity.ok(body);
+    }
     // CANCEL BOOKING 
     @DeleteMapping("/{id}")
+    @Transactional
     public ResponseEntity<String> cancelBooking(@PathVariable Long id, Authentication auth) {
         String email = auth.getName();
         User user = userRepository.findByEmail(email)
@@ -440,50 +395,40 @@ public class BookingController {
         Booking booking = bookingRepo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Booking not found"));
 
-        System.out.println("Cancel attempt:");
-        System.out.println("  authEmail      = " + email);
-        System.out.println("  authUserId     = " + user.getUser_id());
-        System.out.println("  bookingId      = " + booking.getId());
-        System.out.println("  bookingUserId  = " + booking.getEvOwner().getUser_id());
-        System.out.println("  bookingStatus  = " + booking.getStatus());
+        log.debug("Cancel attempt: booking={} status={} authUserId={} ownerUserId={}",
+                booking.getId(), booking.getStatus(), user.getUser_id(), booking.getEvOwner().getUser_id());
 
         if (!booking.getEvOwner().getUser_id().equals(user.getUser_id())) {
-            System.out.println("  RESULT         = Not your booking (403)");
+            log.debug("Cancel of booking {} rejected: not the owner", booking.getId());
             return ResponseEntity.status(403).body("Not your booking");
         }
 
         if (booking.getStatus() == BookingStatus.CANCELLED) {
-            System.out.println("  RESULT         = Already cancelled (400)");
+            log.debug("Cancel of booking {} rejected: already cancelled", booking.getId());
             return ResponseEntity.badRequest().body("Already cancelled");
         }
 
         if (booking.getStartTime().isBefore(LocalDateTime.now().plusMinutes(30))) {
-            System.out.println("  RESULT         = Too close to start (400)");
+            log.debug("Cancel of booking {} rejected: starts within 30 minutes", booking.getId());
             return ResponseEntity.badRequest().body("Cannot cancel < 30 mins before");
         }
 
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(BookingStatus.CANCELLED);
         bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.of(booking, previousStatus));
         
         String evOwnerEmail = booking.getEvOwner().getEmail();
         String operatorEmail = booking.getStation().getOperator().getEmail();
 
+        Map<String, Object> vars = NotificationTemplates.bookingVars(booking);
+        vars.put("startTime", NotificationTemplates.format(booking.getStartTime(), "hh:mm a, MMM dd"));
+
         // To EV Owner 
-        emailService.sendSimpleMail(
-            evOwnerEmail,
-            "Booking Cancelled - #" + id,
-            "Hi " + booking.getEvOwner().getFullname() + ",\n\n" +  // Use booking.getEvOwner()
-            "Booking #" + id + " at '" + booking.getStation().getName() + 
-            "' cancelled successfully.\n\nOriginal: " + 
-            booking.getStartTime().format(java.time.format.DateTimeFormatter.ofPattern("hh:mm a, MMM dd")) + "\n\nThanks!"
-        );
+        sendSafeEmail(evOwnerEmail, Notification.BOOKING_CANCELLED_OWNER, vars);
 
         // To Operator 
-        emailService.sendSimpleMail(
-            operatorEmail,
-            "Booking Cancelled - #" + id,
-            "Booking #" + id + " at your station cancelled by EV owner " + booking.getEvOwner().getFullname() + "."
-        );
+        sendSafeEmail(operatorEmail, Notification.BOOKING_CANCELLED_OPERATOR, vars);
 
 //        // To Admin 
 //        emailService.sendSimpleMail(
@@ -493,15 +438,22 @@ public class BookingController {
 //            "\nEV Owner: " + booking.getEvOwner().getFullname()
 //        );
 
-        System.out.println("  RESULT         = Cancelled OK (200)");
+        log.info("Booking {} cancelled by owner", id);
         return ResponseEntity.ok("Booking cancelled successfully");
     }
     
     
 
     @PostMapping("/{bookingId}/payment-failed")
-    public ResponseEntity<?> paymentFailed(@PathVariable Long bookingId, Authentication auth) {
-        System.out.println(">>> Payment FAILED → Auto-cancelling booking " + bookingId);
+    @Transactional
+    public ResponseEntity<?> paymentFailed(@PathVariable Long bookingId, Authentication auth,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.execute("POST /bookings/payment-failed " + auth.getName(), idempotencyKey,
+                String.valueOf(bookingId), () -> doPaymentFailed(bookingId, auth));
+    }
+
+    private ResponseEntity<?> doPaymentFailed(Long bookingId, Authentication auth) {
+        log.info("Payment failed, auto-cancelling booking {}", bookingId);
         
         String email = auth.getName();
         User user = userRepository.findByEmail(email)
@@ -515,30 +467,10 @@ public class BookingController {
             return ResponseEntity.badRequest().body("Already cancelled");
         }
 
-        // Same cancel logic + emails (EV + Op)
-        booking.setStatus(BookingStatus.CANCELLED);
-        bookingRepo.save(booking);
-        
-        String evOwnerEmail = booking.getEvOwner().getEmail();
-        String operatorEmail = booking.getStation().getOperator().getEmail();
-
-        // EV Owner: Payment failed → cancelled
-        emailService.sendSimpleMail(
-            evOwnerEmail,
-            "❌ Payment Failed - Booking Cancelled #" + bookingId,
-            "Hi " + booking.getEvOwner().getFullname() + ",\n\n" +
-            "Payment failed → booking #" + bookingId + " automatically cancelled.\n\n" +
-            "Station: '" + booking.getStation().getName() + "'\n" +
-            "You can book again anytime.\n\nAmount was: NPR " + booking.getTotalAmount()
-        );
-
-        // Operator: Payment failed → cancelled  
-        emailService.sendSimpleMail(
-            operatorEmail,
-            "❌ Payment Failed - Booking Cancelled #" + bookingId,
-            "Booking #" + bookingId + " cancelled due to payment failure.\n\n" +
-            "EV Owner: " + booking.getEvOwner().getFullname()
-        );
+        // Same cancel logic + emails (EV + Op); the pending payment is marked FAILED
+        confirmationService.fail(booking,
+                paymentRepo.findFirstByBookingIdOrderByCreatedAtDescIdDesc(bookingId).orElse(null),
+                "Payment failed");
 
         return ResponseEntity.ok("Payment failed - booking cancelled & notified");
     }
@@ -548,12 +480,15 @@ public class BookingController {
     //Confirmed Booking after payment
     
     @PatchMapping("/{id}/confirm")
+    @Transactional
     public ResponseEntity<?> confirmBooking(@PathVariable Long id) {
         Booking booking = bookingRepo.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Booking not found"));
 
+        BookingStatus previousStatus = booking.getStatus();
         booking.setStatus(BookingStatus.CONFIRMED);
         bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.of(booking, previousStatus));
 
         return ResponseEntity.ok("Booking confirmed");
     }
@@ -562,28 +497,36 @@ public class BookingController {
     //Payment success
     
     @PostMapping("/{bookingId}/payment-success")
+    @Transactional
     public ResponseEntity<?> markPaymentSuccess(
             @PathVariable Long bookingId,
-            @RequestParam(required = false) String gatewayPaymentId
+            @RequestParam(required = false) String gatewayPaymentId,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            Authentication auth
     ) {
-        System.out.println(">>> /bookings/" + bookingId + "/payment-success called, gatewayPaymentId=" + gatewayPaymentId);
+        String caller = auth != null ? auth.getName() : "";
+        return idempotencyStore.execute("POST /bookings/payment-success " + caller, idempotencyKey,
+                bookingId + " " + gatewayPaymentId, () -> doMarkPaymentSuccess(bookingId, gatewayPaymentId));
+    }
+
+    private ResponseEntity<?> doMarkPaymentSuccess(Long bookingId, String gatewayPaymentId) {
         try {
-            handlePaymentSuccess(bookingId, gatewayPaymentId);
-            System.out.println(">>> payment-success OK for booking " + bookingId);
+            confirmationService.confirm(bookingId, gatewayPaymentId);
             return ResponseEntity.ok("Payment and booking marked as success");
         } catch (EntityNotFoundException ex) {
-            ex.printStackTrace();
+            log.warn("payment-success for unknown booking {}", bookingId);
             return ResponseEntity.status(404).body("Booking not found");
         } catch (RuntimeException ex) {
-            ex.printStackTrace();
+            log.warn("payment-success for booking {} rejected: {}", bookingId, ex.getMessage());
             return ResponseEntity.status(400).body(ex.getMessage());
         } catch (Exception ex) {
-            ex.printStackTrace();
+            log.error("payment-success for booking {} failed", bookingId, ex);
             return ResponseEntity.status(500).body("Failed to process payment success");
         }
     }
     
     @PatchMapping("/{id}/status")
+    @Transactional
     public ResponseEntity<?> updateBookingStatus(
         @PathVariable Long id, 
         @RequestParam String status, 
@@ -600,11 +543,13 @@ public class BookingController {
         return ResponseEntity.status(403).body("Not authorized");
       }
 
+      BookingStatus previousStatus = booking.getStatus();
       booking.setStatus(BookingStatus.valueOf(status.toUpperCase()));
       if ("COMPLETED".equals(status)) {
         booking.setCompletedAt(booking.getEndTime());
       }
       bookingRepo.save(booking);
+      eventPublisher.publishEvent(BookingChangedEvent.of(booking, previousStatus));
       return ResponseEntity.ok("Status updated");
     }
    
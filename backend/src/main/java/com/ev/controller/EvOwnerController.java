@@ -7,11 +7,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ev.dto.StationResponseDTO;
-import com.ev.model.ChargingStations;
 import com.ev.repository.ChargingStationRepository;
+import com.ev.service.StationListingService;
+import com.ev.service.StationListingService.StationPage;
 
 @RestController
 @RequestMapping("/evowner")
@@ -20,14 +22,27 @@ public class EvOwnerController {
     @Autowired
     private ChargingStationRepository chargingStationRepository;
 
+    @Autowired
+    private StationListingService stationListingService;
+
     // EV Owners can see all public stations (or only active ones)
     @GetMapping("/station")
-    public ResponseEntity<List<StationResponseDTO>> getAllStations() {
-        List<ChargingStations> stations = chargingStationRepository.findAll();
-        List<StationResponseDTO> dtos = stations.stream()
-                .map(StationResponseDTO::new)
-                .toList();
-        return ResponseEntity.ok(dtos);
+    // ?sort=name,asc|city,..|createdAt,..&limit=50&cursor=<X-Next-Cursor of the previous page>
+    public ResponseEntity<List<StationResponseDTO>> getAllStations(
+            @RequestParam(defaultValue = "name,asc") String sort,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        StationPage page;
+        try {
+            page = stationListingService.list(sort, limit, cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.content());
     }
     
     @GetMapping("/{id}")
@@ -1,13 +1,19 @@
 package com.ev.controller;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -18,6 +24,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -28,6 +35,10 @@ import com.ev.model.User;
 import com.ev.repository.BookingRepository;
 import com.ev.repository.ChargingStationRepository;
 import com.ev.repository.UserRepository;
+import com.ev.service.EarningsLedger;
+import com.ev.service.EarningsTimeSeries;
+import com.ev.service.EarningsTimeSeries.Granularity;
+import com.ev.service.StationChangedEvent;
 
 import jakarta.validation.Valid;
 
@@ -43,6 +54,15 @@ public class OperatorController {
 	 
 	 @Autowired
 	 private UserRepository userRepository;
+	 
+	 @Autowired
+	 private ApplicationEventPublisher eventPublisher;
+
+	 @Autowired
+	 private EarningsLedger earningsLedger;
+
+	 @Autowired
+	 private EarningsTimeSeries earningsTimeSeries;
     
     public OperatorController(ChargingStationRepository repository) {
         this.repository = repository;
@@ -84,6 +104,7 @@ public class OperatorController {
    
 
         ChargingStations saved = repository.save(station);
+        eventPublisher.publishEvent(StationChangedEvent.saved(saved));
         return new ResponseEntity<>(new StationResponseDTO(saved), HttpStatus.CREATED);
     }
     
@@ -166,12 +187,14 @@ public class OperatorController {
         }
 
         ChargingStations updated = repository.save(station);
+        eventPublisher.publishEvent(StationChangedEvent.saved(updated));
         return ResponseEntity.ok(new StationResponseDTO(updated));
     }
     
     @DeleteMapping("/stations/{id}")
     public ResponseEntity<Void> deleteStation(@PathVariable Long id) {
         repository.deleteById(id);
+        eventPublisher.publishEvent(StationChangedEvent.deleted(id));
         return ResponseEntity.noContent().build();
     }
     
@@ -190,27 +213,22 @@ public class OperatorController {
     public ResponseEntity<Map<String, Object>> getOperatorStats(Authentication auth) {
         User operator = userRepository.findByEmail(auth.getName()).orElseThrow();
 
-        BigDecimal totalRevenue = bookingRepository.getOperatorTotalRevenue(operator.getUser_id());
-        List<Object[]> paymentBreakdown = bookingRepository.getPaymentMethodBreakdown(operator.getUser_id());
+        // Read from the daily rollup instead of scanning the operator's bookings
+        EarningsLedger.Totals totals = earningsLedger.operatorTotals(operator.getUser_id());
+        BigDecimal totalRevenue = totals.stationFees();
+        List<Object[]> paymentBreakdown = earningsLedger.operatorPaymentMethods(operator.getUser_id());
         
         // Total bookings count
-        long totalSessions = bookingRepository.countOperatorBookings(operator.getUser_id());
-        
-        // ADD: Monthly sessions (current year)
-        List<Object[]> monthlySessionsRaw = bookingRepository.getMonthlySessions(operator.getUser_id());
-        
-        // Month names for current year
-        String[] monthNames = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", 
-                              "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+        long totalSessions = totals.sessions();
         
-        List<Map<String, Object>> monthlySessions = monthlySessionsRaw.stream()
-            .map(row -> {
-                int monthNum = ((Number) row[0]).intValue();
-                long sessions = ((Number) row[1]).longValue();
-                
+        // Sessions per month of the current year, every month present
+        LocalDate today = LocalDate.now();
+        List<Map<String, Object>> monthlySessions = earningsTimeSeries.operatorSeries(operator.getUser_id(),
+                today.withDayOfYear(1), today.withMonth(12).withDayOfMonth(31), Granularity.MONTH).stream()
+            .map(point -> {
                 Map<String, Object> monthData = new HashMap<>();
-                monthData.put("month", monthNames[monthNum - 1]);
-                monthData.put("sessions", sessions);
+                monthData.put("month", point.start().getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH));
+                monthData.put("sessions", point.sessions());
                 return monthData;
             })
             .collect(Collectors.toList());
@@ -242,4 +260,42 @@ public class OperatorController {
         return ResponseEntity.ok(stats);
     }
 
+    // Sessions, kWh and revenue per day, week or month; defaults to the last 30 days by day
+    @GetMapping("/stats/timeseries")
+    public ResponseEntity<?> getOperatorTimeSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            Authentication auth) {
+        User operator = userRepository.findByEmail(auth.getName()).orElseThrow();
+
+        Granularity unit;
+        try {
+            unit = Granularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("granularity must be day, week or month");
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        // Caps the number of buckets: a year of days, or five years of weeks or months
+        LocalDate limit = unit == Granularity.DAY ? start.plusYears(1) : start.plusYears(5);
+        if (start.isAfter(end) || limit.isBefore(end)) {
+            return ResponseEntity.badRequest().body("from must be before to and at most "
+                    + (unit == Granularity.DAY ? "one year" : "five years") + " apart");
+        }
+
+        List<Map<String, Object>> points = earningsTimeSeries.operatorSeries(operator.getUser_id(), start, end, unit)
+            .stream()
+            .map(point -> {
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("start", point.start());
+                m.put("sessions", point.sessions());
+                m.put("kwh", point.kwh());
+                m.put("revenue", point.revenue());
+                return m;
+            })
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(points);
+    }
+
 }
\ No newline at end of file
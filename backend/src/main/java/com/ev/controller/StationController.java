@@ -1,31 +1,88 @@
 package com.ev.controller;
 
+import java.time.Duration;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import com.ev.model.ChargingStations;
-import com.ev.repository.ChargingStationRepository;
-import com.ev.repository.UserRepository;
+import com.ev.dto.NearbyStationDTO;
+import com.ev.dto.StationClusterDTO;
+import com.ev.model.ConnectorType;
+import com.ev.service.StationSearchService;
+import com.ev.service.StationSearchService.NearbyQuery;
+import com.ev.service.StationTileGrid;
 
 @RestController
 @RequestMapping("/stations")
 public class StationController {
 
-    private final ChargingStationRepository stationRepo;
+    private final StationSearchService searchService;
+    private final StationTileGrid tileGrid;
 
-    public StationController(ChargingStationRepository stationRepo) {
-        this.stationRepo = stationRepo;
+    // Search radius for "closest N" queries when the client does not give one
+    @Value("${app.stations.knn.max-radius-km:100}")
+    private double knnMaxRadiusKm;
+
+    public StationController(StationSearchService searchService, StationTileGrid tileGrid) {
+        this.searchService = searchService;
+        this.tileGrid = tileGrid;
     }
 
+    /**
+     * Radius mode: /stations/nearby?lat=..&lng=..&radiusKm=5
+     * k-NN mode:   /stations/nearby?lat=..&lng=..&limit=10
+     * Optional filters: connector (LEVEL2, DC_FAST, DC_ULTRA, DC_COMBO),
+     * operationalOnly, minFreeSlots.
+     */
     @GetMapping("/nearby")
-    public List<ChargingStations> getNearby(
+    public ResponseEntity<List<NearbyStationDTO>> getNearby(
         @RequestParam double lat,
         @RequestParam double lng,
-        @RequestParam(defaultValue = "5") double radiusKm // 5 km default
+        @RequestParam(required = false) Double radiusKm, // 5 km default in radius mode
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) String connector,
+        @RequestParam(defaultValue = "false") boolean operationalOnly,
+        @RequestParam(defaultValue = "0") int minFreeSlots
     ) {
-        return stationRepo.findNearby(lat, lng, radiusKm);
+        ConnectorType connectorType;
+        try {
+            connectorType = ConnectorType.from(connector);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (limit != null && (limit < 1 || limit > 100)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        double radius = radiusKm != null ? radiusKm : (limit != null ? knnMaxRadiusKm : 5);
+
+        return ResponseEntity.ok(searchService.findNearby(new NearbyQuery(
+                lat, lng, radius, limit, connectorType, operationalOnly, minFreeSlots)));
+    }
+
+    // Pre-aggregated map markers for one Web Mercator tile (same z/x/y scheme as the map tiles)
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public ResponseEntity<List<StationClusterDTO>> getTileClusters(
+        @PathVariable int z,
+        @PathVariable int x,
+        @PathVariable int y
+    ) {
+        if (z < 0 || z > StationTileGrid.MAX_ZOOM) {
+            return ResponseEntity.badRequest().build();
+        }
+        int tiles = 1 << z;
+        if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(30)).cachePrivate())
+                .body(tileGrid.clusters(z, x, y));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.ev.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ev.service.PaymentWebhookService;
+import com.stripe.exception.SignatureVerificationException;
+
+// Payment provider callbacks; authenticated by signature instead of a bearer token
+@RestController
+@RequestMapping("/webhooks")
+public class WebhookController {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookController.class);
+
+    @Autowired
+    private PaymentWebhookService webhookService;
+
+    // Acknowledges as soon as the event is stored; a non-2xx makes Stripe redeliver
+    @PostMapping("/stripe")
+    public ResponseEntity<?> stripe(@RequestBody String payload,
+                                    @RequestHeader(value = "Stripe-Signature", required = false) String signature) {
+        try {
+            return ResponseEntity.ok(webhookService.ingest(payload, signature).name());
+        } catch (SignatureVerificationException e) {
+            log.warn("Rejected Stripe webhook: {}", e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid signature");
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected Stripe webhook: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            log.error("Stripe webhook received but {}", e.getMessage());
+            return ResponseEntity.status(503).body("Webhook not configured");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ev.dto;
+
+import com.ev.model.ChargingStations;
+
+// Station row returned by /stations/nearby, with the distance already computed server-side
+public class NearbyStationDTO extends StationResponseDTO {
+
+    private Double distanceKm;
+
+    public NearbyStationDTO() {}
+
+    public NearbyStationDTO(ChargingStations station, double distanceKm) {
+        super(station);
+        this.distanceKm = Math.round(distanceKm * 100.0) / 100.0;
+    }
+
+    public Double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(Double distanceKm) { this.distanceKm = distanceKm; }
+}
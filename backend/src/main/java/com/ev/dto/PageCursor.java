@@ -0,0 +1,39 @@
+package com.ev.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset-pagination cursor: the sort it was issued for ("field,dir") and
+ * the sort value and id of the last row of a page. Clients echo it back
+ * unchanged to get the next page; a cursor replayed under another sort is
+ * rejected, since its value would be compared against the wrong column.
+ */
+public record PageCursor(String sort, String sortValue, Long id) {
+
+    public String encode() {
+        String raw = sort + "|" + id + "|" + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param sort the sort of the current request, in the form the cursor was issued with
+     * @throws IllegalArgumentException when the cursor is malformed or was issued for another sort
+     */
+    public static PageCursor decode(String cursor, String sort) {
+        PageCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int second = raw.indexOf('|', first + 1);
+            decoded = new PageCursor(raw.substring(0, first), raw.substring(second + 1),
+                    Long.valueOf(raw.substring(first + 1, second)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!decoded.sort().equals(sort)) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + decoded.sort() + ", not " + sort);
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,34 @@
+package com.ev.dto;
+
+import java.util.Map;
+
+// Bookable 15-minute buckets of one station for one day, starting at midnight
+public class SlotGridDTO {
+    private Long stationId;
+    private String date;
+    private int bucketMinutes;
+    private Map<String, Integer> totalPorts; // connector type -> installed ports
+    private boolean[] free;                  // per bucket: a booking may cover it
+
+    public SlotGridDTO() {}
+
+    public SlotGridDTO(Long stationId, String date, int bucketMinutes,
+                       Map<String, Integer> totalPorts, boolean[] free) {
+        this.stationId = stationId;
+        this.date = date;
+        this.bucketMinutes = bucketMinutes;
+        this.totalPorts = totalPorts;
+        this.free = free;
+    }
+
+    public Long getStationId() { return stationId; }
+    public void setStationId(Long stationId) { this.stationId = stationId; }
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public int getBucketMinutes() { return bucketMinutes; }
+    public void setBucketMinutes(int bucketMinutes) { this.bucketMinutes = bucketMinutes; }
+    public Map<String, Integer> getTotalPorts() { return totalPorts; }
+    public void setTotalPorts(Map<String, Integer> totalPorts) { this.totalPorts = totalPorts; }
+    public boolean[] getFree() { return free; }
+    public void setFree(boolean[] free) { this.free = free; }
+}
@@ -0,0 +1,36 @@
+package com.ev.dto;
+
+// One marker on the station map: either a single station or an aggregate of nearby stations
+public class StationClusterDTO {
+    private int count;
+    private double latitude;
+    private double longitude;
+    private Double minPrice;
+    private long freeSlots;
+    private Long stationId; // set when the cluster holds exactly one station
+
+    public StationClusterDTO() {}
+
+    public StationClusterDTO(int count, double latitude, double longitude, Double minPrice,
+                             long freeSlots, Long stationId) {
+        this.count = count;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.minPrice = minPrice;
+        this.freeSlots = freeSlots;
+        this.stationId = stationId;
+    }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+    public Double getMinPrice() { return minPrice; }
+    public void setMinPrice(Double minPrice) { this.minPrice = minPrice; }
+    public long getFreeSlots() { return freeSlots; }
+    public void setFreeSlots(long freeSlots) { this.freeSlots = freeSlots; }
+    public Long getStationId() { return stationId; }
+    public void setStationId(Long stationId) { this.stationId = stationId; }
+}
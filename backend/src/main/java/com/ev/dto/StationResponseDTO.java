@@ -1,6 +1,8 @@
 // StationResponseDTO.java
 package com.ev.dto;
 
+import java.time.LocalDateTime;
+
 import com.ev.model.ChargingStations;
 import com.ev.model.ChargerOperator;
 import com.ev.model.User;
@@ -79,6 +81,44 @@ public class StationResponseDTO {
         }
     }
 
+    // Projection constructor used by the paginated listings (see ChargingStationRepositoryCustom)
+    public StationResponseDTO(Long id, String name, String address, String city, String state,
+                              String zipCode, String location, Integer level2Chargers,
+                              Integer dcFastChargers, Double level2Rate, Double dcFastRate,
+                              Boolean peakPricing, Double peakMultiplier, String notes, String status,
+                              LocalDateTime createdAt, LocalDateTime updatedAt, Long operatorId,
+                              String imageUrl, Double latitude, Double longitude,
+                              Integer level1Chargers, Integer dcUltraChargers, Integer dcComboChargers,
+                              String operatorName) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+        this.city = city;
+        this.state = state;
+        this.zipCode = zipCode;
+        this.location = location;
+        this.level2Chargers = level2Chargers;
+        this.dcFastChargers = dcFastChargers;
+        this.totalChargers = (level2Chargers != null ? level2Chargers : 0)
+                + (dcFastChargers != null ? dcFastChargers : 0);
+        this.level2Rate = level2Rate;
+        this.dcFastRate = dcFastRate;
+        this.peakPricing = peakPricing;
+        this.peakMultiplier = peakMultiplier;
+        this.notes = notes;
+        this.status = status;
+        this.createdAt = createdAt != null ? createdAt.toString() : null;
+        this.updatedAt = updatedAt != null ? updatedAt.toString() : null;
+        this.operatorId = operatorId;
+        this.imageUrl = imageUrl;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.level1Chargers = level1Chargers;
+        this.dcUltraChargers = dcUltraChargers;
+        this.dcComboChargers = dcComboChargers;
+        this.operatorName = operatorName;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -15,8 +16,15 @@ import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 
+import org.hibernate.annotations.ColumnTransformer;
+
 @Entity
-@Table(name = "charging_stations")
+@Table(name = "charging_stations", indexes = {
+    // keyset pagination of the station listings (InnoDB appends the id)
+    @Index(name = "idx_stations_name", columnList = "name"),
+    @Index(name = "idx_stations_city", columnList = "city"),
+    @Index(name = "idx_stations_created_at", columnList = "createdAt")
+})
 public class ChargingStations {
     
     @Id
@@ -82,6 +90,14 @@ public class ChargingStations {
 
     @Column(nullable = true)
     private Double longitude;
+
+    // Mirror of latitude/longitude as a geographic point for the SPATIAL index.
+    // Stored as WKT in lat-long axis order; see SpatialSchemaInitializer.
+    @ColumnTransformer(
+        read = "ST_AsText(geo_point, 'axis-order=lat-long')",
+        write = "ST_GeomFromText(?, 4326, 'axis-order=lat-long')")
+    @Column(name = "geo_point", columnDefinition = "POINT SRID 4326")
+    private String geoPoint;
     
     @Column(name = "image_url", length = 1500)
     private String imageUrl; 
@@ -101,11 +117,21 @@ public class ChargingStations {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        syncGeoPoint();
     }
     
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        syncGeoPoint();
+    }
+
+    // The spatial column is NOT NULL, so stations without coordinates get POINT(0 0);
+    // nearby queries also require latitude/longitude to be set.
+    private void syncGeoPoint() {
+        double lat = latitude != null ? latitude : 0.0;
+        double lng = longitude != null ? longitude : 0.0;
+        geoPoint = "POINT(" + lat + " " + lng + ")";
     }
     
     @Column(name = "total_slots", nullable = false)
@@ -0,0 +1,23 @@
+package com.ev.model;
+
+public enum ConnectorType {
+    LEVEL2,
+    DC_FAST,
+    DC_ULTRA,
+    DC_COMBO;
+
+    // Accepts enum names as well as the labels the booking UI sends ("Level 2", "DC Fast")
+    public static ConnectorType from(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String normalized = value.trim().toUpperCase().replace(' ', '_').replace("-", "_");
+        return switch (normalized) {
+            case "LEVEL2", "LEVEL_2" -> LEVEL2;
+            case "DC_FAST", "DCFAST" -> DC_FAST;
+            case "DC_ULTRA", "DCULTRA" -> DC_ULTRA;
+            case "DC_COMBO", "DCCOMBO" -> DC_COMBO;
+            default -> throw new IllegalArgumentException("Unknown connector type: " + value);
+        };
+    }
+}
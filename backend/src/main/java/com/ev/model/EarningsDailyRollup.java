@@ -0,0 +1,96 @@
+package com.ev.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Per-day booking totals of one station and payment method, maintained by EarningsLedger
+@Entity
+@Table(name = "earnings_daily_rollup", uniqueConstraints = {
+    // Operator first: the operator dashboard reads by operator, the admin one reads everything
+    @UniqueConstraint(name = "uk_earnings_rollup_key",
+            columnNames = {"operatorId", "bookingDay", "stationId", "paymentMethod"})
+})
+public class EarningsDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Date of Booking.bookedAt
+    @Column(nullable = false)
+    private LocalDate bookingDay;
+
+    @Column(nullable = false)
+    private Long operatorId;
+
+    @Column(nullable = false)
+    private Long stationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentMethod paymentMethod;
+
+    // Bookings made, whatever their status
+    @Column(nullable = false)
+    private long sessions;
+
+    // Bookings currently CONFIRMED or COMPLETED, and their amounts
+    @Column(nullable = false)
+    private long paidBookings;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal platformFees = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal stationFees = BigDecimal.ZERO;
+
+    // Estimated kWh of the paid bookings
+    @Column(nullable = false)
+    private double paidKwh;
+
+    private LocalDateTime updatedAt;
+
+    public EarningsDailyRollup() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getBookingDay() { return bookingDay; }
+    public void setBookingDay(LocalDate bookingDay) { this.bookingDay = bookingDay; }
+
+    public Long getOperatorId() { return operatorId; }
+    public void setOperatorId(Long operatorId) { this.operatorId = operatorId; }
+
+    public Long getStationId() { return stationId; }
+    public void setStationId(Long stationId) { this.stationId = stationId; }
+
+    public PaymentMethod getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(PaymentMethod paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public long getSessions() { return sessions; }
+    public void setSessions(long sessions) { this.sessions = sessions; }
+
+    public long getPaidBookings() { return paidBookings; }
+    public void setPaidBookings(long paidBookings) { this.paidBookings = paidBookings; }
+
+    public BigDecimal getPaidAmount() { return paidAmount; }
+    public void setPaidAmount(BigDecimal paidAmount) { this.paidAmount = paidAmount; }
+
+    public BigDecimal getPlatformFees() { return platformFees; }
+    public void setPlatformFees(BigDecimal platformFees) { this.platformFees = platformFees; }
+
+    public BigDecimal getStationFees() { return stationFees; }
+    public void setStationFees(BigDecimal stationFees) { this.stationFees = stationFees; }
+
+    public double getPaidKwh() { return paidKwh; }
+    public void setPaidKwh(double paidKwh) { this.paidKwh = paidKwh; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
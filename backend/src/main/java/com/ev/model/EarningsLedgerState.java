@@ -0,0 +1,44 @@
+package com.ev.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Single row shared by every instance's EarningsLedger; rebuilds lock it exclusively, deltas share it
+@Entity
+@Table(name = "earnings_ledger_state")
+public class EarningsLedgerState {
+
+    public static final long ID = 1L;
+
+    // Layout of the rollup rows; raise it when a change needs them recomputed (2: paidKwh tracked,
+    // 3: started sessions counted as paid)
+    public static final int CURRENT_VERSION = 3;
+
+    @Id
+    private Long id = ID;
+
+    // Bumped by every rebuild; a delta that sees it change while waiting was already counted by that rebuild
+    @Column(nullable = false)
+    private long generation;
+
+    private LocalDateTime rebuiltAt;
+
+    // CURRENT_VERSION of the code that last rebuilt the rollup; older means rebuild on startup
+    @Column(nullable = false)
+    private int version;
+
+    public EarningsLedgerState() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public long getGeneration() { return generation; }
+    public void setGeneration(long generation) { this.generation = generation; }
+
+    public LocalDateTime getRebuiltAt() { return rebuiltAt; }
+    public void setRebuiltAt(LocalDateTime rebuiltAt) { this.rebuiltAt = rebuiltAt; }
+
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+}
@@ -0,0 +1,8 @@
+package com.ev.model;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
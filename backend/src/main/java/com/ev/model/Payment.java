@@ -6,7 +6,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    // Latest payment of a booking / a user's history, newest first; InnoDB appends id, the tie-breaker
+    @Index(name = "idx_payments_booking_created", columnList = "booking_id, createdAt"),
+    @Index(name = "idx_payments_user_created", columnList = "user_id, createdAt")
+}, uniqueConstraints = {
+    // Webhook events are matched on the gateway id; NULLs (checkout not created yet) may repeat
+    @UniqueConstraint(name = "uk_payments_gateway_payment_id", columnNames = "gatewayPaymentId")
+})
 public class Payment {
 
     @Id
@@ -41,6 +48,10 @@ public class Payment {
     @Column(length = 512)
     private String gatewayPaymentId;
 
+    // Hosted checkout page; null until the gateway has created it
+    @Column(length = 1024)
+    private String checkoutUrl;
+
 
     @Column(length = 255)
     private String failureReason;
@@ -78,6 +89,9 @@ public class Payment {
     public String getGatewayPaymentId() { return gatewayPaymentId; }
     public void setGatewayPaymentId(String gatewayPaymentId) { this.gatewayPaymentId = gatewayPaymentId; }
 
+    public String getCheckoutUrl() { return checkoutUrl; }
+    public void setCheckoutUrl(String checkoutUrl) { this.checkoutUrl = checkoutUrl; }
+
     public String getFailureReason() { return failureReason; }
     public void setFailureReason(String failureReason) { this.failureReason = failureReason; }
 
@@ -0,0 +1,107 @@
+package com.ev.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// One payment provider webhook delivery, stored before it is acknowledged and applied later by PaymentEventWorker
+@Entity
+@Table(name = "payment_events", indexes = {
+    @Index(name = "idx_payment_events_status", columnList = "status, id"),
+    @Index(name = "idx_payment_events_booking", columnList = "bookingId, id")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_payment_events_provider_event", columnNames = "providerEventId")
+})
+public class PaymentEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Provider's event id (Stripe evt_...); redeliveries of the same event are dropped on it
+    @Column(nullable = false, length = 255)
+    private String providerEventId;
+
+    @Column(nullable = false, length = 64)
+    private String type;
+
+    private Long bookingId;
+
+    // Checkout session id, matched against Payment.gatewayPaymentId
+    @Column(length = 512)
+    private String gatewayPaymentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentEventStatus status = PaymentEventStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    // Not claimed before this; pushed back with exponential backoff after a failed attempt
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(length = 512)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime receivedAt = LocalDateTime.now();
+
+    private LocalDateTime processedAt;
+
+    // Set by the worker run that claimed the row; it only processes rows carrying its own token
+    @Column(length = 36)
+    private String claimToken;
+
+    // A PROCESSING row still unfinished after this is assumed abandoned and re-queued
+    private LocalDateTime leaseUntil;
+
+    public PaymentEvent() {}
+
+    public PaymentEvent(String providerEventId, String type, Long bookingId, String gatewayPaymentId) {
+        this.providerEventId = providerEventId;
+        this.type = type;
+        this.bookingId = bookingId;
+        this.gatewayPaymentId = gatewayPaymentId;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getProviderEventId() { return providerEventId; }
+    public void setProviderEventId(String providerEventId) { this.providerEventId = providerEventId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public String getGatewayPaymentId() { return gatewayPaymentId; }
+    public void setGatewayPaymentId(String gatewayPaymentId) { this.gatewayPaymentId = gatewayPaymentId; }
+
+    public PaymentEventStatus getStatus() { return status; }
+    public void setStatus(PaymentEventStatus status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+
+    public LocalDateTime getLeaseUntil() { return leaseUntil; }
+    public void setLeaseUntil(LocalDateTime leaseUntil) { this.leaseUntil = leaseUntil; }
+}
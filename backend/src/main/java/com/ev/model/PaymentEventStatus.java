@@ -0,0 +1,8 @@
+package com.ev.model;
+
+public enum PaymentEventStatus {
+    PENDING,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
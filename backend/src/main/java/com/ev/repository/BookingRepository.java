@@ -1,7 +1,7 @@
 package com.ev.repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
@@ -17,7 +17,7 @@ import com.ev.model.User;
 
 import jakarta.transaction.Transactional;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
 
     // Find all bookings for a user (EV Owner)
     List<Booking> findByEvOwnerOrderByStartTimeDesc(User evOwner);
@@ -26,6 +26,11 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
  // EV Owner bookings: earliest bookedAt first
     List<Booking> findByEvOwnerOrderByBookedAtAsc(User evOwner);
 
+    // Bookings with the owner and station operator loaded, for batches that email both
+    @Query("SELECT b FROM Booking b JOIN FETCH b.evOwner JOIN FETCH b.station s JOIN FETCH s.operator " +
+           "WHERE b.id IN :ids")
+    List<Booking> findWithPartiesByIdIn(@Param("ids") Collection<Long> ids);
+
     // Admin: earliest bookedAt first, with pagination
     Page<Booking> findAllByOrderByBookedAtAsc(Pageable pageable);
     
@@ -52,7 +57,41 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
            "AND b.endTime >= :now " +
            "AND b.status IN ('CONFIRMED', 'IN_PROGRESS')")
     long countActiveBookingsAtStation(@Param("station") ChargingStations station, @Param("now") LocalDateTime now);
+
+    // Same as countActiveBookingsAtStation for many stations at once: rows of [stationId, count]
+    @Query("SELECT b.station.id, COUNT(b) FROM Booking b " +
+           "WHERE b.station.id IN :stationIds " +
+           "AND b.startTime <= :now " +
+           "AND b.endTime >= :now " +
+           "AND b.status IN ('CONFIRMED', 'IN_PROGRESS') " +
+           "GROUP BY b.station.id")
+    List<Object[]> countActiveBookingsByStationIds(@Param("stationIds") List<Long> stationIds, @Param("now") LocalDateTime now);
+
+    // Same count for every station with a running booking; rows of [stationId, count]
+    @Query("SELECT b.station.id, COUNT(b) FROM Booking b " +
+           "WHERE b.startTime <= :now " +
+           "AND b.endTime >= :now " +
+           "AND b.status IN ('CONFIRMED', 'IN_PROGRESS') " +
+           "GROUP BY b.station.id")
+    List<Object[]> countActiveBookingsPerStation(@Param("now") LocalDateTime now);
     
+    // Port-holding bookings of one station still running at or after :from: rows of [id, startTime, endTime, connectorType]
+    @Query("SELECT b.id, b.startTime, b.endTime, b.connectorType FROM Booking b " +
+           "WHERE b.station.id = :stationId " +
+           "AND b.endTime > :from " +
+           "AND b.status IN ('CONFIRMED', 'IN_PROGRESS')")
+    List<Object[]> findTimelineRows(@Param("stationId") Long stationId, @Param("from") LocalDateTime from);
+
+    // Port-holding bookings of one station overlapping [from, to): same row shape as findTimelineRows
+    @Query("SELECT b.id, b.startTime, b.endTime, b.connectorType FROM Booking b " +
+           "WHERE b.station.id = :stationId " +
+           "AND b.startTime < :to " +
+           "AND b.endTime > :from " +
+           "AND b.status IN ('CONFIRMED', 'IN_PROGRESS')")
+    List<Object[]> findSlotRows(@Param("stationId") Long stationId,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to);
+
     //Returns true if there is any CONFIRMED or IN_PROGRESS booking 
     //that overlaps with the requested time window (including 15-min cleanup buffer after)
     @Query("""
@@ -83,19 +122,6 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     //Admin List
     Page<Booking> findAllByOrderByBookedAtDesc(Pageable pageable);
     
-    @Query("""
-    	    SELECT COUNT(b) FROM Booking b
-    	    WHERE b.station.id = :stationId
-    	      AND b.status IN ('CONFIRMED', 'IN_PROGRESS')
-    	      AND b.startTime < :endTime
-    	      AND b.endTime > :startTime
-    	    """)
-    	long countBookingsDuringPeriod(
-    	    @Param("stationId") Long stationId,
-    	    @Param("startTime") LocalDateTime startTime,
-    	    @Param("endTime") LocalDateTime endTime
-    	);
-    
     //User is abstract +Joined Inheritance thats why we need a query
     @Query("SELECT COUNT(b) > 0 FROM Booking b WHERE b.evOwner.user_id = :userId")
     boolean existsByEvOwnerUserId(@Param("userId") Long userId);
@@ -108,39 +134,57 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Transactional
     @Query("delete from Booking b where b.station.operator.user_id = :userId")
     int deleteByStationOperatorUserId(@Param("userId") Long userId);
-    @Query("SELECT COALESCE(SUM(b.totalAmount * 0.05), 0) FROM Booking b WHERE b.status IN ('CONFIRMED', 'COMPLETED')")
-    BigDecimal sumPlatformFees();
-
-    @Query("SELECT COALESCE(SUM(b.totalAmount * 0.95), 0) FROM Booking b WHERE b.status IN ('CONFIRMED', 'COMPLETED')")
-    BigDecimal sumStationFees();
 
     
-    @Query("SELECT b FROM Booking b WHERE b.status != 'COMPLETED' AND b.status != 'CANCELLED' AND b.endTime < CURRENT_TIMESTAMP")
-    List<Booking> findExpiredBookings();
-   
-    	
-    	
-    @Query("SELECT b.paymentMethod, COUNT(b) " +
-    	       "FROM Booking b " +
-    	       "WHERE b.station.operator.user_id = :operatorId " +
-    	       "AND b.status IN ('CONFIRMED', 'COMPLETED') " +
-    	       "GROUP BY b.paymentMethod " +
-    	       "ORDER BY COUNT(b) DESC")
-    List<Object[]> getPaymentMethodBreakdown(@Param("operatorId") Long operatorId);
-
-    @Query("SELECT COALESCE(SUM(b.stationFee), 0) FROM Booking b WHERE b.station.operator.user_id = :operatorId AND b.status IN ('CONFIRMED', 'COMPLETED')")
-    BigDecimal getOperatorTotalRevenue(@Param("operatorId") Long operatorId);
-    		
-    //Count how many bookings per Id
-    @Query("SELECT COUNT(b) FROM Booking b " +
-    			       "WHERE b.station.operator.user_id = :operatorId")
-    			long countOperatorBookings(@Param("operatorId") Long operatorId);
-    
-    
-    //Find Current Moth booking
-    @Query("SELECT MONTH(b.bookedAt), COUNT(b) FROM Booking b " +
-    	       "WHERE b.station.operator.user_id = :operatorId " +
-    	       "GROUP BY MONTH(b.bookedAt) ORDER BY MONTH(b.bookedAt)")
-    	List<Object[]> getMonthlySessions(@Param("operatorId") Long operatorId);
+    // One chunk of expired bookings for the auto-complete job: rows of [id, stationId, startTime, endTime, connectorType, status]
+    @Query("SELECT b.id, b.station.id, b.startTime, b.endTime, b.connectorType, b.status FROM Booking b " +
+           "WHERE b.status NOT IN :finalStatuses AND b.endTime < :now ORDER BY b.id")
+    List<Object[]> findExpiredBookingRows(@Param("finalStatuses") List<BookingStatus> finalStatuses,
+                                          @Param("now") LocalDateTime now,
+                                          Pageable pageable);
+
+    // Bookings the lifecycle timers still have to move: same row shape as findExpiredBookingRows
+    @Query("SELECT b.id, b.station.id, b.startTime, b.endTime, b.connectorType, b.status FROM Booking b " +
+           "WHERE b.status IN ('CONFIRMED', 'IN_PROGRESS') AND b.endTime > :now")
+    List<Object[]> findUpcomingLifecycleRows(@Param("now") LocalDateTime now);
+
+    // What EarningsLedger needs of one booking: row of [bookedAt, operatorId, stationId, paymentMethod, totalAmount, platformFee, stationFee, estimatedKwh]
+    @Query("SELECT b.bookedAt, b.station.operator.user_id, b.station.id, b.paymentMethod, " +
+           "b.totalAmount, b.platformFee, b.stationFee, b.estimatedKwh FROM Booking b WHERE b.id = :id")
+    List<Object[]> findLedgerRow(@Param("id") Long id);
+
+    @Query("SELECT b.status FROM Booking b WHERE b.id = :id")
+    BookingStatus findStatusById(@Param("id") Long id);
+
+    // Conditional status change; 0 rows when the booking already moved on
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :to WHERE b.id = :id AND b.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") BookingStatus from,
+                         @Param("to") BookingStatus to);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :completed, b.completedAt = b.endTime " +
+           "WHERE b.id IN :ids AND b.status NOT IN :finalStatuses")
+    int completeBookings(@Param("ids") List<Long> ids,
+                         @Param("completed") BookingStatus completed,
+                         @Param("finalStatuses") List<BookingStatus> finalStatuses);
+
+    // Paid as in EarningsRollupRepository.PAID: confirmed, completed, or started after a successful payment
+    String PAID = "(b.status IN ('CONFIRMED', 'COMPLETED') OR (b.status = 'IN_PROGRESS' AND EXISTS " +
+            "(SELECT p FROM Payment p WHERE p.booking = b AND p.status = 'SUCCESS')))";
+
+    // Rows of [day, sessions, paidKwh, stationFees] of one operator's bookings made in [from, to).
+    // Range on bookedAt rather than a function of it, so the predicate can use an index; this is
+    // the fallback of EarningsTimeSeries while the rollup is being rebuilt.
+    @Query("SELECT CAST(b.bookedAt AS LocalDate), COUNT(b), " +
+           "COALESCE(SUM(CASE WHEN " + PAID + " THEN b.estimatedKwh END), 0), " +
+           "COALESCE(SUM(CASE WHEN " + PAID + " THEN b.stationFee END), 0) " +
+           "FROM Booking b WHERE b.station.operator.user_id = :operatorId " +
+           "AND b.bookedAt >= :from AND b.bookedAt < :to " +
+           "GROUP BY CAST(b.bookedAt AS LocalDate)")
+    List<Object[]> operatorDailySeries(@Param("operatorId") Long operatorId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
 
 }
\ No newline at end of file
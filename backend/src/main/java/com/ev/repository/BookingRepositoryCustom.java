@@ -0,0 +1,44 @@
+package com.ev.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.ev.model.Booking;
+
+public interface BookingRepositoryCustom {
+
+    // Sort keys the admin booking listing accepts; each is backed by an index on (property, id)
+    enum BookingSortKey {
+        BOOKED_AT("bookedAt"),
+        START_TIME("startTime");
+
+        private final String property;
+
+        BookingSortKey(String property) {
+            this.property = property;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        public static BookingSortKey from(String property) {
+            for (BookingSortKey key : values()) {
+                if (key.property.equalsIgnoreCase(property)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort: " + property);
+        }
+    }
+
+    /**
+     * One keyset page of bookings with their station and owner fetched in the same
+     * query. {@code afterValue} and {@code afterId} are the sort value and id of the
+     * previous page's last row (both null for the first page).
+     */
+    List<Booking> findBookingPage(BookingSortKey sortKey, Sort.Direction direction,
+                                  LocalDateTime afterValue, Long afterId, int limit);
+}
@@ -0,0 +1,49 @@
+package com.ev.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.ev.model.Booking;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    // Everything BookingResponseDTO reads, so building the page issues no lazy loads
+    private static final String SELECT_WITH_PARTIES = """
+            SELECT b FROM Booking b
+            JOIN FETCH b.station s
+            JOIN FETCH b.evOwner o
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Booking> findBookingPage(BookingSortKey sortKey, Sort.Direction direction,
+                                         LocalDateTime afterValue, Long afterId, int limit) {
+        // Property names come from the BookingSortKey whitelist, never from the request
+        String column = "b." + sortKey.property();
+        String cmp = direction == Sort.Direction.ASC ? ">" : "<";
+        String dir = direction == Sort.Direction.ASC ? "ASC" : "DESC";
+
+        StringBuilder jpql = new StringBuilder(SELECT_WITH_PARTIES);
+        if (afterValue != null) {
+            jpql.append(" WHERE ").append(column).append(' ').append(cmp).append(" :sortValue")
+                .append(" OR (").append(column).append(" = :sortValue AND b.id ").append(cmp).append(" :lastId)");
+        }
+        jpql.append(" ORDER BY ").append(column).append(' ').append(dir).append(", b.id ").append(dir);
+
+        TypedQuery<Booking> query = em.createQuery(jpql.toString(), Booking.class);
+        if (afterValue != null) {
+            query.setParameter("sortValue", afterValue);
+            query.setParameter("lastId", afterId);
+        }
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+}
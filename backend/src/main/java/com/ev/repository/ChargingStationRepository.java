@@ -1,8 +1,10 @@
 package com.ev.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,8 +13,10 @@ import org.springframework.stereotype.Repository;
 import com.ev.model.ChargingStations;
 import com.ev.model.User;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
-public interface ChargingStationRepository extends JpaRepository<ChargingStations, Long> {
+public interface ChargingStationRepository extends JpaRepository<ChargingStations, Long>, ChargingStationRepositoryCustom {
 
     List<ChargingStations> findByOperator(User operator);
 
@@ -20,33 +24,61 @@ public interface ChargingStationRepository extends JpaRepository<ChargingStation
     @Query("DELETE FROM ChargingStations s WHERE s.operator.user_id = :userId")
     void deleteByOperatorUserId(@Param("userId") Long userId);
 
-    // Nearby by simple radius (in km)
+    @Query("SELECT s.id FROM ChargingStations s WHERE s.operator.user_id = :userId")
+    List<Long> findIdsByOperatorUserId(@Param("userId") Long userId);
+
+    // SELECT ... FOR UPDATE on one station row; serializes reservations on that station across instances
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ChargingStations s WHERE s.id = :id")
+    Optional<ChargingStations> findByIdForUpdate(@Param("id") Long id);
+
+    // Coordinates plus the attributes nearby filters need, used to build the in-memory spatial index
+    @Query("SELECT s.id, s.latitude, s.longitude, s.status, s.level2Chargers, s.dcFastChargers, " +
+           "s.dcUltraChargers, s.dcComboChargers, s.totalSlots FROM ChargingStations s " +
+           "WHERE s.latitude IS NOT NULL AND s.longitude IS NOT NULL")
+    List<Object[]> findAllForSpatialIndex();
+
+    // Coordinates, rates and total slots, used to build the map tile clusters
+    @Query("SELECT s.id, s.latitude, s.longitude, s.level2Rate, s.dcFastRate, s.totalSlots " +
+           "FROM ChargingStations s WHERE s.latitude IS NOT NULL AND s.longitude IS NOT NULL")
+    List<Object[]> findAllForTileGrid();
+
+    // Nearby by radius (in km): the bounding box prunes through the SPATIAL index
+    // on geo_point, exact sphere distance is only computed for the survivors
     @Query(
       value = """
-        SELECT *
+        SELECT s.id AS id,
+               s.total_slots AS totalSlots,
+               ST_Distance_Sphere(s.geo_point, ST_GeomFromText(:point, 4326, 'axis-order=lat-long')) / 1000 AS distanceKm
         FROM charging_stations s
-        WHERE
-          6371 * 2 * ASIN(
-            SQRT(
-              POWER(SIN(RADIANS(:lat - s.latitude) / 2), 2) +
-              COS(RADIANS(:lat)) * COS(RADIANS(s.latitude)) *
-              POWER(SIN(RADIANS(:lng - s.longitude) / 2), 2)
-            )
-          ) <= :radiusKm
-        ORDER BY
-          6371 * 2 * ASIN(
-            SQRT(
-              POWER(SIN(RADIANS(:lat - s.latitude) / 2), 2) +
-              COS(RADIANS(:lat)) * COS(RADIANS(s.latitude)) *
-              POWER(SIN(RADIANS(:lng - s.longitude) / 2), 2)
-            )
-          )
+        WHERE MBRContains(ST_GeomFromText(:box, 4326, 'axis-order=lat-long'), s.geo_point)
+          AND s.latitude IS NOT NULL
+          AND s.longitude IS NOT NULL
+          AND (:operationalOnly = FALSE OR s.status = 'operational')
+          AND (:connector IS NULL
+               OR (:connector = 'LEVEL2' AND s.level2_chargers > 0)
+               OR (:connector = 'DC_FAST' AND s.dc_fast_chargers > 0)
+               OR (:connector = 'DC_ULTRA' AND s.dc_ultra_chargers > 0)
+               OR (:connector = 'DC_COMBO' AND s.dc_combo_chargers > 0))
+        HAVING distanceKm <= :radiusKm
+        ORDER BY distanceKm
         """,
       nativeQuery = true
     )
-    List<ChargingStations> findNearby(
-        @Param("lat") double lat,
-        @Param("lng") double lng,
-        @Param("radiusKm") double radiusKm
+    List<StationDistance> findNearby(
+        @Param("point") String pointWkt,
+        @Param("box") String boxWkt,
+        @Param("radiusKm") double radiusKm,
+        @Param("connector") String connector,
+        @Param("operationalOnly") boolean operationalOnly
     );
+
+    @Query("SELECT s FROM ChargingStations s JOIN FETCH s.operator o LEFT JOIN FETCH o.roles WHERE s.id IN :ids")
+    List<ChargingStations> findAllWithOperatorByIdIn(@Param("ids") List<Long> ids);
+
+    interface StationDistance {
+        Long getId();
+        Double getDistanceKm();
+        Integer getTotalSlots();
+    }
 }
\ No newline at end of file
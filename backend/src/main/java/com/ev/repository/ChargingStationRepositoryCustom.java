@@ -0,0 +1,45 @@
+package com.ev.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.ev.dto.PageCursor;
+import com.ev.dto.StationResponseDTO;
+
+public interface ChargingStationRepositoryCustom {
+
+    // Sort keys the station listings accept; anything else is rejected
+    enum StationSortKey {
+        NAME("name"),
+        CITY("city"),
+        CREATED_AT("createdAt");
+
+        private final String property;
+
+        StationSortKey(String property) {
+            this.property = property;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        public static StationSortKey from(String property) {
+            for (StationSortKey key : values()) {
+                if (key.property.equalsIgnoreCase(property)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported sort: " + property);
+        }
+    }
+
+    /**
+     * One keyset page of station DTOs, selected straight from the columns with a
+     * single join for the operator name. {@code after} is the cursor of the previous
+     * page (null for the first page); {@code limit} null returns every remaining row.
+     */
+    List<StationResponseDTO> findStationPage(StationSortKey sortKey, Sort.Direction direction,
+                                             PageCursor after, Integer limit);
+}
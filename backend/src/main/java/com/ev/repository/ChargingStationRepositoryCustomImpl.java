@@ -0,0 +1,69 @@
+package com.ev.repository;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+
+import com.ev.dto.PageCursor;
+import com.ev.dto.StationResponseDTO;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class ChargingStationRepositoryCustomImpl implements ChargingStationRepositoryCustom {
+
+    private static final String SELECT_DTO = """
+            SELECT new com.ev.dto.StationResponseDTO(
+                s.id, s.name, s.address, s.city, s.state, s.zipCode, s.location,
+                s.level2Chargers, s.dcFastChargers, s.level2Rate, s.dcFastRate,
+                s.peakPricing, s.peakMultiplier, s.notes, s.status, s.createdAt, s.updatedAt,
+                o.user_id, s.imageUrl, s.latitude, s.longitude,
+                s.level1Chargers, s.dcUltraChargers, s.dcComboChargers,
+                COALESCE(co.companyName, o.fullname))
+            FROM ChargingStations s
+            JOIN s.operator o
+            LEFT JOIN ChargerOperator co ON co.user_id = o.user_id
+            """;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<StationResponseDTO> findStationPage(StationSortKey sortKey, Sort.Direction direction,
+                                                    PageCursor after, Integer limit) {
+        // Property names come from the StationSortKey whitelist, never from the request
+        String column = "s." + sortKey.property();
+        String cmp = direction == Sort.Direction.ASC ? ">" : "<";
+        String dir = direction == Sort.Direction.ASC ? "ASC" : "DESC";
+
+        StringBuilder jpql = new StringBuilder(SELECT_DTO);
+        if (after != null) {
+            jpql.append(" WHERE ").append(column).append(' ').append(cmp).append(" :sortValue")
+                .append(" OR (").append(column).append(" = :sortValue AND s.id ").append(cmp).append(" :lastId)");
+        }
+        jpql.append(" ORDER BY ").append(column).append(' ').append(dir).append(", s.id ").append(dir);
+
+        TypedQuery<StationResponseDTO> query = em.createQuery(jpql.toString(), StationResponseDTO.class);
+        if (after != null) {
+            query.setParameter("sortValue", sortKey == StationSortKey.CREATED_AT
+                    ? parseTimestamp(after.sortValue())
+                    : after.sortValue());
+            query.setParameter("lastId", after.id());
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList();
+    }
+
+    private static LocalDateTime parseTimestamp(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ev.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.ev.model.EarningsLedgerState;
+
+import jakarta.persistence.LockModeType;
+
+public interface EarningsLedgerStateRepository extends JpaRepository<EarningsLedgerState, Long> {
+
+    // Plain read: never waits for a rebuild in progress
+    @Query("SELECT s.generation FROM EarningsLedgerState s WHERE s.id = :id")
+    Long findGeneration(@Param("id") Long id);
+
+    // SELECT ... FOR SHARE: deltas hold it together, and wait while a rebuild holds the row
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT s FROM EarningsLedgerState s WHERE s.id = :id")
+    Optional<EarningsLedgerState> lockShared(@Param("id") Long id);
+
+    // SELECT ... FOR UPDATE: one rebuild at a time across instances, after in-flight deltas commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM EarningsLedgerState s WHERE s.id = :id")
+    Optional<EarningsLedgerState> lockExclusive(@Param("id") Long id);
+}
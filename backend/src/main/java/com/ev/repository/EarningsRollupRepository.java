@@ -0,0 +1,106 @@
+package com.ev.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.ev.model.EarningsDailyRollup;
+
+public interface EarningsRollupRepository extends JpaRepository<EarningsDailyRollup, Long> {
+
+    // A started session (IN_PROGRESS after its payment succeeded) is paid; one still awaiting payment is not.
+    // The payment lookup only runs for IN_PROGRESS bookings, through idx_payments_booking_created.
+    String PAID = "(b.status IN (:paidStatuses) OR (b.status = 'IN_PROGRESS' AND EXISTS " +
+            "(SELECT 1 FROM payments p WHERE p.booking_id = b.id AND p.status = 'SUCCESS')))";
+
+    // Bookings aggregated by booked-at day, station and method, using only idx_bookings_earnings_kwh columns
+    String EARNINGS_BY_DAY_STATION_METHOD =
+            "SELECT DATE(b.booked_at) AS booking_day, b.station_id, b.payment_method, COUNT(*) AS sessions, " +
+            "SUM(CASE WHEN " + PAID + " THEN 1 ELSE 0 END) AS paid_bookings, " +
+            "COALESCE(SUM(CASE WHEN " + PAID + " THEN b.total_amount END), 0) AS paid_amount, " +
+            "COALESCE(SUM(CASE WHEN " + PAID + " THEN b.platform_fee END), 0) AS platform_fees, " +
+            "COALESCE(SUM(CASE WHEN " + PAID + " THEN b.station_fee END), 0) AS station_fees, " +
+            "COALESCE(SUM(CASE WHEN " + PAID + " THEN b.estimated_kwh END), 0) AS paid_kwh " +
+            "FROM bookings b GROUP BY DATE(b.booked_at), b.station_id, b.payment_method";
+
+    // Adds a delta to one rollup row, creating it on first use (MySQL upsert on uk_earnings_rollup_key)
+    @Modifying
+    @Query(value = "INSERT INTO earnings_daily_rollup (booking_day, operator_id, station_id, payment_method, " +
+           "sessions, paid_bookings, paid_amount, platform_fees, station_fees, paid_kwh, updated_at) " +
+           "VALUES (:day, :operatorId, :stationId, :paymentMethod, :sessions, :paidBookings, :paidAmount, " +
+           ":platformFees, :stationFees, :paidKwh, :now) " +
+           "ON DUPLICATE KEY UPDATE sessions = sessions + VALUES(sessions), " +
+           "paid_bookings = paid_bookings + VALUES(paid_bookings), " +
+           "paid_amount = paid_amount + VALUES(paid_amount), " +
+           "platform_fees = platform_fees + VALUES(platform_fees), " +
+           "station_fees = station_fees + VALUES(station_fees), " +
+           "paid_kwh = paid_kwh + VALUES(paid_kwh), " +
+           "updated_at = VALUES(updated_at)", nativeQuery = true)
+    int addDelta(@Param("day") LocalDate day,
+                 @Param("operatorId") Long operatorId,
+                 @Param("stationId") Long stationId,
+                 @Param("paymentMethod") String paymentMethod,
+                 @Param("sessions") long sessions,
+                 @Param("paidBookings") long paidBookings,
+                 @Param("paidAmount") BigDecimal paidAmount,
+                 @Param("platformFees") BigDecimal platformFees,
+                 @Param("stationFees") BigDecimal stationFees,
+                 @Param("paidKwh") double paidKwh,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM EarningsDailyRollup r")
+    int deleteAllRows();
+
+    // Recomputes every rollup row from the bookings table in one statement. Bookings are grouped
+    // first (an index-only pass over idx_bookings_earnings_kwh); only the groups are joined to stations.
+    @Modifying
+    @Query(value = "INSERT INTO earnings_daily_rollup (booking_day, operator_id, station_id, payment_method, " +
+           "sessions, paid_bookings, paid_amount, platform_fees, station_fees, paid_kwh, updated_at) " +
+           "SELECT g.booking_day, s.operator_id, g.station_id, g.payment_method, g.sessions, g.paid_bookings, " +
+           "g.paid_amount, g.platform_fees, g.station_fees, g.paid_kwh, :now FROM (" + EARNINGS_BY_DAY_STATION_METHOD + ") g " +
+           "JOIN charging_stations s ON s.id = g.station_id", nativeQuery = true)
+    int rebuildFromBookings(@Param("paidStatuses") List<String> paidStatuses, @Param("now") LocalDateTime now);
+
+    // Rows of [day, stationId, paymentMethod, paidBookings, paidAmount, platformFees, stationFees]
+    // for days in [from, to], in one pass over the rollup
+    @Query("SELECT r.bookingDay, r.stationId, r.paymentMethod, SUM(r.paidBookings), SUM(r.paidAmount), " +
+           "SUM(r.platformFees), SUM(r.stationFees) FROM EarningsDailyRollup r " +
+           "WHERE r.bookingDay BETWEEN :from AND :to AND r.paidBookings > 0 " +
+           "GROUP BY r.bookingDay, r.stationId, r.paymentMethod " +
+           "ORDER BY r.bookingDay, r.stationId, r.paymentMethod")
+    List<Object[]> breakdown(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Row of [sessions, paidBookings, paidAmount, platformFees, stationFees] over all operators
+    @Query("SELECT COALESCE(SUM(r.sessions), 0), COALESCE(SUM(r.paidBookings), 0), COALESCE(SUM(r.paidAmount), 0), " +
+           "COALESCE(SUM(r.platformFees), 0), COALESCE(SUM(r.stationFees), 0) FROM EarningsDailyRollup r")
+    List<Object[]> sumAll();
+
+    // Same row shape as sumAll for one operator
+    @Query("SELECT COALESCE(SUM(r.sessions), 0), COALESCE(SUM(r.paidBookings), 0), COALESCE(SUM(r.paidAmount), 0), " +
+           "COALESCE(SUM(r.platformFees), 0), COALESCE(SUM(r.stationFees), 0) FROM EarningsDailyRollup r " +
+           "WHERE r.operatorId = :operatorId")
+    List<Object[]> sumForOperator(@Param("operatorId") Long operatorId);
+
+    // Rows of [paymentMethod, paidBookings], most used first
+    @Query("SELECT r.paymentMethod, SUM(r.paidBookings) FROM EarningsDailyRollup r " +
+           "WHERE r.operatorId = :operatorId " +
+           "GROUP BY r.paymentMethod HAVING SUM(r.paidBookings) > 0 " +
+           "ORDER BY SUM(r.paidBookings) DESC")
+    List<Object[]> paymentMethodBreakdown(@Param("operatorId") Long operatorId);
+
+    // Rows of [day, sessions, paidKwh, stationFees] for days in [from, to]: a range on
+    // uk_earnings_rollup_key (operatorId, bookingDay, ...)
+    @Query("SELECT r.bookingDay, SUM(r.sessions), SUM(r.paidKwh), SUM(r.stationFees) FROM EarningsDailyRollup r " +
+           "WHERE r.operatorId = :operatorId AND r.bookingDay BETWEEN :from AND :to " +
+           "GROUP BY r.bookingDay")
+    List<Object[]> operatorDailySeries(@Param("operatorId") Long operatorId,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+}
@@ -0,0 +1,39 @@
+package com.ev.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import com.ev.model.EmailOutbox;
+import com.ev.model.EmailOutboxStatus;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Oldest PENDING rows whose next attempt is due, locked FOR UPDATE SKIP LOCKED (lock timeout -2)
+    // so instances polling at the same time claim disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<EmailOutbox> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    // SENDING rows whose lease ran out (their instance died mid-batch) go back to the queue
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = 'PENDING' WHERE e.status = 'SENDING' AND e.nextAttemptAt <= :now")
+    int requeueExpired(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status IN ('SENT', 'DEAD') AND e.createdAt < :before")
+    int deleteFinishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,64 @@
+package com.ev.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.ev.model.PaymentEvent;
+import com.ev.model.PaymentEventStatus;
+
+public interface PaymentEventRepository extends JpaRepository<PaymentEvent, Long> {
+
+    // Due PENDING rows, oldest first (id order is arrival order). A row is held back while an older event
+    // of its booking is being processed, waiting out a backoff, or parked as FAILED, so that a booking's
+    // events are applied in order across retries and instances
+    @Query("SELECT e FROM PaymentEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now "
+            + "AND NOT EXISTS (SELECT o FROM PaymentEvent o WHERE o.bookingId = e.bookingId AND o.id < e.id "
+            + "AND (o.status IN ('PROCESSING', 'FAILED') OR (o.status = 'PENDING' AND o.nextAttemptAt > :now))) "
+            + "ORDER BY e.id")
+    List<PaymentEvent> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(PaymentEventStatus status);
+
+    // Only rows still PENDING are taken, so of two instances reading the same page each row goes to one
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.status = 'PROCESSING', e.claimToken = :token, e.leaseUntil = :leaseUntil "
+            + "WHERE e.id IN :ids AND e.status = 'PENDING'")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("token") String token,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<PaymentEvent> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    // Ids of rows claimed with the token whose booking still has an older unfinished event not held by
+    // the token, e.g. one another instance claimed between our read and our claim
+    @Query("SELECT e.id FROM PaymentEvent e WHERE e.claimToken = :token AND EXISTS ("
+            + "SELECT o FROM PaymentEvent o WHERE o.bookingId = e.bookingId AND o.id < e.id "
+            + "AND o.status IN ('PENDING', 'PROCESSING', 'FAILED') "
+            + "AND (o.claimToken IS NULL OR o.claimToken <> :token))")
+    List<Long> findClaimedOutOfOrder(@Param("token") String token);
+
+    // Hands claimed rows back untouched (no attempt counted)
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.status = 'PENDING', e.claimToken = NULL "
+            + "WHERE e.id IN :ids AND e.claimToken = :token")
+    int release(@Param("ids") Collection<Long> ids, @Param("token") String token);
+
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.status = :status, e.processedAt = :now WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids,
+                      @Param("status") PaymentEventStatus status,
+                      @Param("now") LocalDateTime now);
+
+    // PROCESSING rows whose lease ran out (their instance died mid-batch) go back to the queue
+    @Modifying
+    @Query("UPDATE PaymentEvent e SET e.status = 'PENDING', e.claimToken = NULL "
+            + "WHERE e.status = 'PROCESSING' AND e.leaseUntil <= :now")
+    int requeueExpired(@Param("now") LocalDateTime now);
+}
@@ -11,7 +11,10 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
@@ -19,13 +22,43 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     List<Payment> findByBookingId(Long bookingId);
 
+    // Latest payment of a booking (retries add rows); served by idx_payments_booking_created
+    Optional<Payment> findFirstByBookingIdOrderByCreatedAtDescIdDesc(Long bookingId);
+
+    List<Payment> findByBookingIdIn(Collection<Long> bookingIds);
+
+    List<Payment> findByGatewayPaymentIdIn(Collection<String> gatewayPaymentIds);
+
     List<Payment> findByStatus(PaymentStatus status);
+
+    boolean existsByBookingIdAndStatus(Long bookingId, PaymentStatus status);
     
     @Query("SELECT p FROM Payment p WHERE p.user.user_id = :userId ORDER BY p.createdAt DESC")
     List<Payment> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
     // For wallet / history views
 //    List<Payment> findByUserUserId(Long userId);
     
+    // Stores the checkout created for a payment; 0 rows when it is no longer PENDING
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payment p SET p.gatewayPaymentId = :gatewayPaymentId, p.checkoutUrl = :checkoutUrl, " +
+           "p.updatedAt = :now WHERE p.id = :id AND p.status = :pending")
+    int attachCheckout(@Param("id") Long id,
+                       @Param("gatewayPaymentId") String gatewayPaymentId,
+                       @Param("checkoutUrl") String checkoutUrl,
+                       @Param("now") LocalDateTime now,
+                       @Param("pending") PaymentStatus pending);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Payment p SET p.status = :failed, p.failureReason = :reason, " +
+           "p.updatedAt = :now WHERE p.id = :id AND p.status = :pending")
+    int failCheckout(@Param("id") Long id,
+                     @Param("reason") String reason,
+                     @Param("now") LocalDateTime now,
+                     @Param("pending") PaymentStatus pending,
+                     @Param("failed") PaymentStatus failed);
+
     @Modifying
     @Transactional
     @Query("delete from Payment p where p.booking.evOwner.user_id = :userId")
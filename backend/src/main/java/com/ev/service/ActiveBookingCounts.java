@@ -0,0 +1,57 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ev.repository.BookingRepository;
+
+/**
+ * Number of bookings running right now (CONFIRMED or IN_PROGRESS) per
+ * station, for any number of stations.
+ *
+ * One grouped query per chunkSize ids, so a 500-station admin map costs one
+ * round trip instead of 500, and huge id lists stay under the database's
+ * IN-list and packet limits.
+ */
+@Service
+public class ActiveBookingCounts {
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Value("${app.bookings.active-count.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * @return a count for every distinct id, 0 for stations with nothing
+     *         running, in the order the ids were given
+     */
+    public Map<Long, Long> countActive(Collection<Long> stationIds) {
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (Long id : stationIds) {
+            if (id != null) counts.put(id, 0L);
+        }
+        if (counts.isEmpty()) {
+            return counts;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(counts.keySet()));
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            for (Object[] row : bookingRepo.countActiveBookingsByStationIds(chunk, now)) {
+                counts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,239 @@
+package com.ev.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ev.repository.BookingRepository;
+
+/**
+ * In-memory per-station timeline of the bookings that hold a charging port
+ * (CONFIRMED and IN_PROGRESS), used for booking conflict checks.
+ *
+ * A station takes one booking at a time: a new booking is admitted only if no
+ * other booking comes within {@link #BUFFER} of it on either side, whatever
+ * the station's port count.
+ *
+ * A station's timeline is loaded from the database the first time it is asked
+ * about and then kept current from {@link BookingChangedEvent}s. Each timeline
+ * is an interval set ordered by start time plus the longest interval seen, so
+ * an overlap query only walks the intervals that can intersect the window.
+ * Check-and-reserve happens under the timeline's lock, so two attempts on
+ * the same station can never both take the last gap. The database stays the
+ * durable record; the engine can be dropped and reloaded at any time.
+ */
+@Service
+public class BookingAvailabilityEngine {
+
+    // Cleanup gap required between one booking's end and the next one's start
+    public static final Duration BUFFER = Duration.ofMinutes(15);
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    private final Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+
+    // Holds get negative ids so they never collide with booking ids
+    private final AtomicLong holdSequence = new AtomicLong();
+
+    public enum Outcome {
+        RESERVED,
+        // another booking sits inside [start - BUFFER, end + BUFFER)
+        CONFLICT
+    }
+
+    public record Slot(Long bookingId, LocalDateTime start, LocalDateTime end, String connectorType) {}
+
+    /**
+     * A provisional slot taken by {@link #reserve}; bind it to the saved booking
+     * or release it if the booking is not saved.
+     */
+    public record Hold(Long stationId, Long holdId, Outcome outcome) {
+
+        public boolean reserved() {
+            return outcome == Outcome.RESERVED;
+        }
+    }
+
+    private static final Comparator<Slot> BY_START =
+            Comparator.comparing(Slot::start).thenComparing(Slot::bookingId);
+
+    private static final class Timeline {
+        final Long stationId;
+        final NavigableSet<Slot> byStart = new TreeSet<>(BY_START);
+        final Map<Long, Slot> byId = new HashMap<>();
+        // A lock rather than the monitor: the lazy load runs a query while holding
+        // it, and a virtual thread blocking inside synchronized would pin its carrier
+        final ReentrantLock lock = new ReentrantLock();
+        Duration longest = Duration.ZERO;
+        boolean loaded;
+
+        Timeline(Long stationId) {
+            this.stationId = stationId;
+        }
+
+        void add(Slot slot) {
+            Slot previous = byId.put(slot.bookingId(), slot);
+            if (previous != null) {
+                byStart.remove(previous);
+            }
+            byStart.add(slot);
+            Duration length = Duration.between(slot.start(), slot.end());
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        void remove(Long bookingId) {
+            Slot previous = byId.remove(bookingId);
+            if (previous != null) {
+                byStart.remove(previous);
+            }
+        }
+
+        // Slots with slot.start < to && slot.end > from
+        List<Slot> overlapping(LocalDateTime from, LocalDateTime to) {
+            Slot low = new Slot(Long.MIN_VALUE, from.minus(longest), null, null);
+            Slot high = new Slot(Long.MIN_VALUE, to, null, null);
+            List<Slot> result = new ArrayList<>();
+            for (Slot s : byStart.subSet(low, true, high, false)) {
+                if (s.end().isAfter(from)) {
+                    result.add(s);
+                }
+            }
+            return result;
+        }
+
+        // Drops slots that ended before today; nothing can be booked or displayed there any more
+        void prune(LocalDateTime horizon) {
+            LocalDateTime cutoff = horizon.minus(longest);
+            while (!byStart.isEmpty() && byStart.first().start().isBefore(cutoff)) {
+                byId.remove(byStart.pollFirst().bookingId());
+            }
+        }
+    }
+
+    /**
+     * Atomically checks the window [start - BUFFER, end + BUFFER) and, if free, takes the slot.
+     */
+    public Hold reserve(Long stationId, LocalDateTime start, LocalDateTime end,
+                        String connectorType) {
+        Timeline t = timeline(stationId);
+        t.lock.lock();
+        try {
+            Outcome outcome = check(t, start, end);
+            if (outcome != Outcome.RESERVED) {
+                return new Hold(stationId, null, outcome);
+            }
+            long holdId = -holdSequence.incrementAndGet();
+            t.add(new Slot(holdId, start, end, connectorType));
+            return new Hold(stationId, holdId, outcome);
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    // Swaps the provisional slot for the booking that was saved for it
+    public void bind(Hold hold, Long bookingId) {
+        if (!hold.reserved()) return;
+        Timeline t = timeline(hold.stationId());
+        t.lock.lock();
+        try {
+            Slot slot = t.byId.get(hold.holdId());
+            if (slot != null) {
+                t.remove(hold.holdId());
+                t.add(new Slot(bookingId, slot.start(), slot.end(), slot.connectorType()));
+            }
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    public void release(Hold hold) {
+        if (!hold.reserved()) return;
+        Timeline t = timelines.get(hold.stationId());
+        if (t == null) return;
+        t.lock.lock();
+        try {
+            t.remove(hold.holdId());
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    /**
+     * Port-holding slots of one station overlapping [from, to), reservations in flight included.
+     */
+    public List<Slot> slots(Long stationId, LocalDateTime from, LocalDateTime to) {
+        Timeline t = timeline(stationId);
+        t.lock.lock();
+        try {
+            return t.overlapping(from, to);
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    public void evict(Long stationId) {
+        timelines.remove(stationId);
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.isBulk()) {
+            timelines.clear();
+            return;
+        }
+        Timeline t = timelines.get(event.stationId());
+        if (t == null) return; // not loaded yet; the lazy load will read the committed row
+        t.lock.lock();
+        try {
+            if (!t.loaded) return;
+            if (event.holdsPort()) {
+                t.add(new Slot(event.bookingId(), event.startTime(), event.endTime(), event.connectorType()));
+            } else {
+                t.remove(event.bookingId());
+            }
+        } finally {
+            t.lock.unlock();
+        }
+    }
+
+    private Outcome check(Timeline t, LocalDateTime start, LocalDateTime end) {
+        t.prune(LocalDate.now().atStartOfDay());
+        return t.overlapping(start.minus(BUFFER), end.plus(BUFFER)).isEmpty() ? Outcome.RESERVED : Outcome.CONFLICT;
+    }
+
+    private Timeline timeline(Long stationId) {
+        Timeline t = timelines.computeIfAbsent(stationId, Timeline::new);
+        t.lock.lock();
+        try {
+            if (!t.loaded) {
+                // From the start of today so the day's slot grid is complete
+                for (Object[] row : bookingRepo.findTimelineRows(t.stationId, LocalDate.now().atStartOfDay())) {
+                    t.add(new Slot((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2], (String) row[3]));
+                }
+                t.loaded = true;
+            }
+        } finally {
+            t.lock.unlock();
+        }
+        return t;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+
+/**
+ * Published whenever a booking is created or changes status so that in-memory
+ * views of the bookings table (availability timelines, slot grids) stay current.
+ * Carries a snapshot of the fields those views need, never the entity itself.
+ *
+ * A bulk change (e.g. bookings deleted with a user) has a null bookingId and
+ * stationId; listeners should drop everything they derived from bookings.
+ */
+public record BookingChangedEvent(Long bookingId, Long stationId, LocalDateTime startTime,
+                                  LocalDateTime endTime, String connectorType,
+                                  BookingStatus status, BookingStatus previousStatus) {
+
+    public static BookingChangedEvent of(Booking booking, BookingStatus previousStatus) {
+        return new BookingChangedEvent(booking.getId(), booking.getStation().getId(),
+                booking.getStartTime(), booking.getEndTime(), booking.getConnectorType(),
+                booking.getStatus(), previousStatus);
+    }
+
+    public static BookingChangedEvent bulk() {
+        return new BookingChangedEvent(null, null, null, null, null, null, null);
+    }
+
+    public boolean isBulk() {
+        return bookingId == null;
+    }
+
+    // CONFIRMED and IN_PROGRESS bookings hold a charging port
+    public boolean holdsPort() {
+        return status == BookingStatus.CONFIRMED || status == BookingStatus.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,184 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ev.model.BookingStatus;
+import com.ev.model.PaymentStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.PaymentRepository;
+import com.ev.service.TimingWheelScheduler.Timeout;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Moves bookings through their lifecycle at the exact time it is due:
+ * CONFIRMED becomes IN_PROGRESS at startTime, an unpaid IN_PROGRESS booking
+ * becomes NO_SHOW once the grace period after startTime passes, and a live
+ * booking becomes COMPLETED at endTime.
+ *
+ * Timers live in a {@link TimingWheelScheduler}, rebuilt from the database on
+ * startup and kept current from {@link BookingChangedEvent}s. Every transition
+ * is a conditional UPDATE, so a timer that fires after the booking has moved
+ * on is a no-op. BookingSchedulerService remains as a coarse safety net.
+ */
+@Service
+public class BookingLifecycleService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingLifecycleService.class);
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.bookings.no-show-grace-minutes:15}")
+    private long noShowGraceMinutes;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService transitions = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "booking-lifecycle");
+        t.setDaemon(true);
+        return t;
+    });
+    private final TimingWheelScheduler wheel =
+            new TimingWheelScheduler("booking-lifecycle-wheel", 1000, 60, transitions);
+    private final Map<Long, List<Timeout>> timers = new ConcurrentHashMap<>();
+
+    public BookingLifecycleService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        timers.values().forEach(list -> list.forEach(Timeout::cancel));
+        timers.clear();
+        for (Object[] row : bookingRepo.findUpcomingLifecycleRows(LocalDateTime.now())) {
+            schedule(new BookingChangedEvent((Long) row[0], (Long) row[1], (LocalDateTime) row[2],
+                    (LocalDateTime) row[3], (String) row[4], (BookingStatus) row[5], null));
+        }
+        log.info("Booking lifecycle timers loaded for {} bookings", timers.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.isBulk()) {
+            load();
+            return;
+        }
+        cancel(event.bookingId());
+        if (event.holdsPort()) {
+            schedule(event);
+        }
+    }
+
+    public int scheduledCount() {
+        return wheel.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.close();
+        transitions.shutdownNow();
+    }
+
+    private void schedule(BookingChangedEvent b) {
+        List<Timeout> list = new ArrayList<>(3);
+        Long id = b.bookingId();
+
+        if (b.status() == BookingStatus.CONFIRMED) {
+            list.add(wheel.schedule(epochMs(b.startTime()),
+                    () -> transition(b, BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS)));
+        }
+        // IN_PROGRESS before payment means pending; a booking that just started from CONFIRMED is paid
+        if (b.status() == BookingStatus.IN_PROGRESS && b.previousStatus() != BookingStatus.CONFIRMED) {
+            list.add(wheel.schedule(epochMs(b.startTime().plusMinutes(noShowGraceMinutes)),
+                    () -> markNoShow(b)));
+        }
+        list.add(wheel.schedule(epochMs(b.endTime()), () -> {
+            timers.remove(id);
+            complete(b);
+        }));
+        timers.put(id, list);
+    }
+
+    private void cancel(Long bookingId) {
+        List<Timeout> list = timers.remove(bookingId);
+        if (list != null) {
+            list.forEach(Timeout::cancel);
+        }
+    }
+
+    private void transition(BookingChangedEvent b, BookingStatus from, BookingStatus to) {
+        run(b, () -> {
+            if (bookingRepo.transitionStatus(b.bookingId(), from, to) == 1) {
+                publish(b, to, from);
+            }
+        });
+    }
+
+    private void markNoShow(BookingChangedEvent b) {
+        run(b, () -> {
+            if (paymentRepo.existsByBookingIdAndStatus(b.bookingId(), PaymentStatus.SUCCESS)) {
+                return;
+            }
+            if (bookingRepo.transitionStatus(b.bookingId(), BookingStatus.IN_PROGRESS, BookingStatus.NO_SHOW) == 1) {
+                publish(b, BookingStatus.NO_SHOW, BookingStatus.IN_PROGRESS);
+            }
+        });
+    }
+
+    private void complete(BookingChangedEvent b) {
+        run(b, () -> {
+            BookingStatus current = bookingRepo.findStatusById(b.bookingId());
+            if (current != BookingStatus.CONFIRMED && current != BookingStatus.IN_PROGRESS) {
+                return;
+            }
+            if (bookingRepo.completeBookings(List.of(b.bookingId()), BookingStatus.COMPLETED,
+                    List.of(BookingStatus.COMPLETED, BookingStatus.CANCELLED, BookingStatus.NO_SHOW)) == 1) {
+                publish(b, BookingStatus.COMPLETED, current);
+            }
+        });
+    }
+
+    private void run(BookingChangedEvent b, Runnable work) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> work.run());
+        } catch (RuntimeException e) {
+            // The hourly safety-net poll picks up anything missed here
+            log.error("Lifecycle transition failed for booking {}", b.bookingId(), e);
+        }
+    }
+
+    // Listeners (including this one) run after the transition commits
+    private void publish(BookingChangedEvent b, BookingStatus status, BookingStatus previous) {
+        eventPublisher.publishEvent(new BookingChangedEvent(b.bookingId(), b.stationId(),
+                b.startTime(), b.endTime(), b.connectorType(), status, previous));
+    }
+
+    private static long epochMs(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
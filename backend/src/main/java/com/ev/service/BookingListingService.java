@@ -0,0 +1,102 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ev.dto.BookingResponseDTO;
+import com.ev.dto.PageCursor;
+import com.ev.model.Booking;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.BookingRepositoryCustom.BookingSortKey;
+
+/**
+ * Keyset-paginated booking listing for the admin dashboard.
+ *
+ * Pages seek past the (sort value, id) of the previous page's last row, so
+ * page 1000 costs the same index range scan as page 1. The total is a
+ * COUNT(*) cached for countTtlMs: it is only shown as an indication, and
+ * counting every booking on every page is what made deep paging slow.
+ */
+@Service
+public class BookingListingService {
+
+    public static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Value("${app.admin.bookings.count-ttl-ms:60000}")
+    private long countTtlMs;
+
+    private volatile CachedCount cachedCount;
+
+    private record CachedCount(long value, long expiresAt) {}
+
+    /**
+     * @param nextCursor   cursor for the following page, null when this was the last one
+     * @param approxTotal  number of bookings, up to countTtlMs old
+     */
+    public record BookingPage(List<BookingResponseDTO> content, String nextCursor, long approxTotal) {}
+
+    /**
+     * @param sort   "field,dir" with field one of bookedAt, startTime
+     * @param limit  page size, 1 to MAX_LIMIT
+     * @param cursor nextCursor of the previous page, or null
+     * @throws IllegalArgumentException on an unsupported sort, limit or cursor
+     */
+    @Transactional(readOnly = true)
+    public BookingPage list(String sort, int limit, String cursor) {
+        String[] sortParts = sort.split(",");
+        BookingSortKey sortKey = BookingSortKey.from(sortParts[0].trim());
+        Sort.Direction direction = sortParts.length > 1 && "asc".equalsIgnoreCase(sortParts[1].trim())
+                ? Sort.Direction.ASC
+                : Sort.Direction.DESC;
+
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        // Checked here: an exception thrown inside the repository would surface as a data access error
+        String sortName = sortKey.property() + "," + direction.name().toLowerCase();
+        PageCursor after = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor, sortName) : null;
+        LocalDateTime afterValue = after != null ? parseTimestamp(after.sortValue()) : null;
+
+        // One extra row tells us whether another page exists
+        List<Booking> rows = bookingRepo.findBookingPage(sortKey, direction, afterValue,
+                after != null ? after.id() : null, limit + 1);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            Booking last = rows.get(limit - 1);
+            String sortValue = (sortKey == BookingSortKey.START_TIME ? last.getStartTime() : last.getBookedAt()).toString();
+            nextCursor = new PageCursor(sortName, sortValue, last.getId()).encode();
+        }
+        List<BookingResponseDTO> content = rows.stream().map(BookingResponseDTO::new).toList();
+        return new BookingPage(content, nextCursor, approximateTotal());
+    }
+
+    private static LocalDateTime parseTimestamp(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private long approximateTotal() {
+        CachedCount cached = cachedCount;
+        long now = System.currentTimeMillis();
+        if (cached == null || cached.expiresAt() <= now) {
+            cached = new CachedCount(bookingRepo.count(), now + countTtlMs);
+            cachedCount = cached;
+        }
+        return cached.value();
+    }
+}
@@ -0,0 +1,132 @@
+package com.ev.service;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.service.BookingAvailabilityEngine.Hold;
+import com.ev.service.BookingAvailabilityEngine.Outcome;
+
+/**
+ * Reserve-and-save path for new bookings.
+ *
+ * Attempts on the same station are serialized by a striped lock keyed by
+ * station id, held from the availability check until the booking row is
+ * committed, so two owners can never both take the last port. Attempts on
+ * different stations almost always land on different stripes and run in
+ * parallel. With {@code app.bookings.reservation.row-lock=true} the station
+ * row is also locked with SELECT ... FOR UPDATE and the check is repeated in
+ * the database, for deployments running more than one backend instance.
+ */
+@Service
+public class BookingReservationService {
+
+    private static final int STRIPES = 64;
+
+    @Autowired
+    private BookingAvailabilityEngine availabilityEngine;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.bookings.reservation.row-lock:false}")
+    private boolean rowLock;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final TransactionTemplate transactionTemplate;
+
+    public record Reservation(Outcome outcome, Booking booking) {
+
+        public boolean reserved() {
+            return outcome == Outcome.RESERVED;
+        }
+    }
+
+    public BookingReservationService(PlatformTransactionManager transactionManager) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Saves {@code booking} if no other booking at its station comes within
+     * {@link BookingAvailabilityEngine#BUFFER} of it; otherwise nothing is saved.
+     */
+    public Reservation reserve(Booking booking) {
+        Long stationId = booking.getStation().getId();
+        ReentrantLock lock = lockFor(stationId);
+        lock.lock();
+        try {
+            Hold[] hold = new Hold[1];
+            Reservation result;
+            try {
+                result = transactionTemplate.execute(status -> {
+                    if (rowLock) {
+                        Outcome durable = checkDatabase(booking);
+                        if (durable != Outcome.RESERVED) {
+                            // Another instance got there first; our timeline is stale
+                            availabilityEngine.evict(stationId);
+                            return new Reservation(durable, null);
+                        }
+                    }
+                    hold[0] = availabilityEngine.reserve(stationId, booking.getStartTime(),
+                            booking.getEndTime(), booking.getConnectorType());
+                    if (!hold[0].reserved()) {
+                        return new Reservation(hold[0].outcome(), null);
+                    }
+                    Booking saved = bookingRepo.save(booking);
+                    // Published in the transaction, so listeners see the commit (see EarningsLedger)
+                    eventPublisher.publishEvent(BookingChangedEvent.of(saved, null));
+                    return new Reservation(Outcome.RESERVED, saved);
+                });
+            } catch (RuntimeException e) {
+                if (hold[0] != null) {
+                    availabilityEngine.release(hold[0]);
+                }
+                throw e;
+            }
+
+            if (result.reserved()) {
+                availabilityEngine.bind(hold[0], result.booking().getId());
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Same check as the engine, against committed rows, under the station row lock
+    private Outcome checkDatabase(Booking booking) {
+        Long stationId = booking.getStation().getId();
+        stationRepo.findByIdForUpdate(stationId);
+
+        boolean conflict = bookingRepo.hasOverlappingBooking(stationId,
+                booking.getStartTime().minus(BookingAvailabilityEngine.BUFFER),
+                booking.getEndTime().plus(BookingAvailabilityEngine.BUFFER),
+                List.of(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS));
+        return conflict ? Outcome.CONFLICT : Outcome.RESERVED;
+    }
+
+    private ReentrantLock lockFor(Long stationId) {
+        // Fibonacci hashing spreads sequential ids across stripes
+        int h = (int) ((stationId * 0x9E3779B97F4A7C15L) >>> 32);
+        return locks[Math.floorMod(h, STRIPES)];
+    }
+}
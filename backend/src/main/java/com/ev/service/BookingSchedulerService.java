@@ -1,34 +1,81 @@
 package com.ev.service;
 
-import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
 import com.ev.repository.BookingRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PostConstruct;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 public class BookingSchedulerService {
     private static final Logger log = LoggerFactory.getLogger(BookingSchedulerService.class);
 
+    private static final List<BookingStatus> FINAL_STATUSES =
+            List.of(BookingStatus.COMPLETED, BookingStatus.CANCELLED, BookingStatus.NO_SHOW);
+
     @Autowired
     private BookingRepository bookingRepo;
 
-    @Scheduled(fixedDelay = 300000)  // Every 5 minutes
-    @PostConstruct  // Run once on app start
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.bookings.auto-complete.chunk-size:500}")
+    private int chunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public BookingSchedulerService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Safety net behind BookingLifecycleService's exact timers (hourly by default);
+    // the first run starts as soon as the scheduler is up and clears any backlog
+    @Scheduled(fixedDelayString = "${app.bookings.auto-complete.interval-ms:3600000}")
     public void autoCompleteExpiredBookings() {
-        List<Booking> expired = bookingRepo.findExpiredBookings();
-        if (expired.isEmpty()) return;
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        int chunks = 0;
+        int total = 0;
+
+        // Each chunk is its own short transaction; completed rows drop out of the next select
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> completeChunk(startedAt));
+            if (updated == null || updated < 0) break;
+            chunks++;
+            total += updated;
+            log.debug("Auto-complete chunk {}: {} rows", chunks, updated);
+        }
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        if (total > 0) {
+            log.info("Auto-completed {} expired bookings in {} chunks, {} ms", total, chunks, durationMs);
+        }
+    }
+
+    // Rows updated, or -1 when nothing is left
+    private int completeChunk(LocalDateTime now) {
+        List<Object[]> rows = bookingRepo.findExpiredBookingRows(FINAL_STATUSES, now, PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) return -1;
+
+        List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+        int updated = bookingRepo.completeBookings(ids, BookingStatus.COMPLETED, FINAL_STATUSES);
 
-        for (Booking b : expired) {
-            b.setStatus(com.ev.model.BookingStatus.COMPLETED);
-            b.setCompletedAt(b.getEndTime());
+        // Listeners run after this chunk commits
+        for (Object[] row : rows) {
+            eventPublisher.publishEvent(new BookingChangedEvent((Long) row[0], (Long) row[1],
+                    (LocalDateTime) row[2], (LocalDateTime) row[3], (String) row[4],
+                    BookingStatus.COMPLETED, (BookingStatus) row[5]));
         }
-        bookingRepo.saveAllAndFlush(expired);
-        log.info("Auto-completed {} expired bookings", expired.size());
+        return updated;
     }
 }
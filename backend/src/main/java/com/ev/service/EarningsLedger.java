@@ -0,0 +1,302 @@
+package com.ev.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ev.model.BookingStatus;
+import com.ev.model.EarningsLedgerState;
+import com.ev.model.PaymentMethod;
+import com.ev.model.PaymentStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.EarningsLedgerStateRepository;
+import com.ev.repository.EarningsRollupRepository;
+import com.ev.repository.PaymentRepository;
+
+/**
+ * Earnings and session totals per day, operator, station and payment method,
+ * so the admin and operator dashboards read O(days) rollup rows instead of
+ * scanning bookings.
+ *
+ * Each committed BookingChangedEvent adds its delta to one rollup row: a new
+ * booking counts a session, and becoming or ceasing to be paid adds or
+ * removes its amount, fees and kWh. Paid means CONFIRMED, COMPLETED, or
+ * IN_PROGRESS with a successful payment: a started session, as opposed to a
+ * new booking still awaiting its payment. Deltas commute, so concurrent bookings
+ * need no ordering. Bulk changes and failed updates mark the ledger stale and
+ * it is rebuilt from bookings on the next poll; a nightly rebuild corrects any
+ * remaining drift, and startup backfills it when it does not match.
+ *
+ * Rebuilds and deltas coordinate through the earnings_ledger_state row, so
+ * this holds across instances. A rebuild locks it FOR UPDATE and bumps its
+ * generation. The booking's own transaction reads the generation FOR SHARE
+ * just before it commits, so no rebuild can start until the change is
+ * committed; if a rebuild already holds the row, its INSERT ... SELECT waits
+ * for the booking and counts it, and the delta is skipped. After the commit
+ * the delta locks the row FOR SHARE again: if the generation moved, a rebuild
+ * that started after the commit has counted the change, so the delta is
+ * dropped instead of counted twice.
+ */
+@Service
+public class EarningsLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(EarningsLedger.class);
+
+    // Read in the booking's transaction just before it commits. Through JDBC, so that a failure here
+    // does not mark that transaction rollback-only; NOWAIT, so it never waits on (and deadlocks with)
+    // a rebuild whose locking read is waiting for this booking.
+    private static final String GENERATION_FOR_SHARE =
+            "SELECT generation FROM earnings_ledger_state WHERE id = ? FOR SHARE NOWAIT";
+
+    private static final List<String> PAID_STATUSES =
+            List.of(BookingStatus.CONFIRMED.name(), BookingStatus.COMPLETED.name());
+
+    public record Totals(long sessions, long paidBookings, BigDecimal paidAmount,
+                         BigDecimal platformFees, BigDecimal stationFees) {
+
+        static Totals of(List<Object[]> rows) {
+            Object[] r = rows.get(0);
+            return new Totals(((Number) r[0]).longValue(), ((Number) r[1]).longValue(),
+                    (BigDecimal) r[2], (BigDecimal) r[3], (BigDecimal) r[4]);
+        }
+    }
+
+    @Autowired
+    private EarningsRollupRepository rollupRepo;
+
+    @Autowired
+    private EarningsLedgerStateRepository stateRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean stale = new AtomicBoolean();
+
+    public EarningsLedger(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Listeners run after the booking's transaction has committed
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Published outside a transaction: the change is already committed
+            apply(event, () -> stateRepo.findGeneration(EarningsLedgerState.ID));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Long seen;
+            private boolean counted;
+            private RuntimeException failure;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                if (event.isBulk()) return;
+                try {
+                    seen = jdbcTemplate.query(GENERATION_FOR_SHARE,
+                            rs -> rs.next() ? rs.getLong(1) : null, EarningsLedgerState.ID);
+                } catch (PessimisticLockingFailureException e) {
+                    // A rebuild holds the row; its locking read waits for this commit and counts the change
+                    counted = true;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                if (failure != null) {
+                    log.warn("Earnings ledger generation for booking {} unreadable, scheduling a rebuild: {}",
+                            event.bookingId(), failure.toString());
+                    stale.set(true);
+                } else if (counted) {
+                    log.debug("Earnings ledger rebuild running at booking {}'s commit; change counted by it",
+                            event.bookingId());
+                } else {
+                    apply(event, () -> seen);
+                }
+            }
+        });
+    }
+
+    // Adds the committed change unless a rebuild since generation seen has counted it
+    private void apply(BookingChangedEvent event, Supplier<Long> seen) {
+        if (event.isBulk()) {
+            stale.set(true);
+            return;
+        }
+        boolean created = event.previousStatus() == null;
+        try {
+            int sign = paidDelta(event);
+            if (!created && sign == 0) {
+                return;
+            }
+            Long generation = seen.get();
+            transactionTemplate.executeWithoutResult(status -> {
+                Long current = stateRepo.lockShared(EarningsLedgerState.ID)
+                        .map(EarningsLedgerState::getGeneration).orElse(null);
+                if (!Objects.equals(generation, current)) {
+                    log.debug("Earnings ledger rebuilt since booking {} committed; change already counted",
+                            event.bookingId());
+                    return;
+                }
+                List<Object[]> rows = bookingRepo.findLedgerRow(event.bookingId());
+                if (rows.isEmpty()) return;
+                Object[] b = rows.get(0);
+                rollupRepo.addDelta(((LocalDateTime) b[0]).toLocalDate(), (Long) b[1], (Long) b[2],
+                        ((PaymentMethod) b[3]).name(), created ? 1 : 0, sign,
+                        signed((BigDecimal) b[4], sign), signed((BigDecimal) b[5], sign),
+                        signed((BigDecimal) b[6], sign), sign * kwh((Number) b[7]), LocalDateTime.now());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Earnings ledger update for booking {} failed, scheduling a rebuild: {}",
+                    event.bookingId(), e.toString());
+            stale.set(true);
+        }
+    }
+
+    public Totals totals() {
+        return Totals.of(rollupRepo.sumAll());
+    }
+
+    public Totals operatorTotals(Long operatorId) {
+        return Totals.of(rollupRepo.sumForOperator(operatorId));
+    }
+
+    // Rows of [paymentMethod, paid bookings], most used first
+    public List<Object[]> operatorPaymentMethods(Long operatorId) {
+        return rollupRepo.paymentMethodBreakdown(operatorId);
+    }
+
+    // Rows of [day, sessions, paidKwh, stationFees] for days in [from, to]
+    public List<Object[]> operatorDailySeries(Long operatorId, LocalDate from, LocalDate to) {
+        return rollupRepo.operatorDailySeries(operatorId, from, to);
+    }
+
+    // Rows of [day, stationId, paymentMethod, paidBookings, paidAmount, platformFees, stationFees]
+    public List<Object[]> breakdown(LocalDate from, LocalDate to) {
+        return rollupRepo.breakdown(from, to);
+    }
+
+    public boolean isStale() {
+        return stale.get();
+    }
+
+    // Backfill: an empty or out-of-date ledger (e.g. first start after the upgrade) is rebuilt
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        int version = stateRepo.findById(EarningsLedgerState.ID).map(EarningsLedgerState::getVersion).orElse(0);
+        if (version < EarningsLedgerState.CURRENT_VERSION) {
+            log.info("Earnings ledger was built by version {}, rebuilding for version {}",
+                    version, EarningsLedgerState.CURRENT_VERSION);
+            rebuild();
+            return;
+        }
+        long sessions = totals().sessions();
+        long bookings = bookingRepo.count();
+        if (sessions != bookings) {
+            log.info("Earnings ledger has {} sessions for {} bookings, rebuilding", sessions, bookings);
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.earnings.stale-check-ms:60000}")
+    public void rebuildIfStale() {
+        if (stale.get()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${app.earnings.rebuild-cron:0 30 3 * * *}")
+    public void nightlyRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Recomputes the ledger from bookings in one transaction, holding the
+     * ledger state row so no delta is applied halfway through.
+     *
+     * @return number of rollup rows written
+     */
+    public int rebuild() {
+        // Cleared first: a bulk change during the rebuild flags it again
+        stale.set(false);
+        long started = System.nanoTime();
+        try {
+            Integer rows = transactionTemplate.execute(status -> {
+                EarningsLedgerState state = stateRepo.lockExclusive(EarningsLedgerState.ID)
+                        .orElseGet(EarningsLedgerState::new);
+                LocalDateTime now = LocalDateTime.now();
+                rollupRepo.deleteAllRows();
+                int written = rollupRepo.rebuildFromBookings(PAID_STATUSES, now);
+                state.setGeneration(state.getGeneration() + 1);
+                state.setRebuiltAt(now);
+                state.setVersion(EarningsLedgerState.CURRENT_VERSION);
+                stateRepo.save(state);
+                return written;
+            });
+            log.info("Earnings ledger rebuilt: {} rows in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+            return rows != null ? rows : 0;
+        } catch (RuntimeException e) {
+            stale.set(true);
+            throw e;
+        }
+    }
+
+    // 1 when the change makes the booking count as paid, -1 when it stops counting, else 0
+    private int paidDelta(BookingChangedEvent event) {
+        BookingStatus from = event.previousStatus();
+        BookingStatus to = event.status();
+        boolean paymentSucceeded = (from == BookingStatus.IN_PROGRESS || to == BookingStatus.IN_PROGRESS)
+                && paymentRepo.existsByBookingIdAndStatus(event.bookingId(), PaymentStatus.SUCCESS);
+        // The confirmation (IN_PROGRESS -> CONFIRMED) is what records the payment, so it was not there before
+        boolean paidBefore = paymentSucceeded && to != BookingStatus.CONFIRMED;
+        boolean wasPaid = from != null && isPaid(from, paidBefore);
+        boolean isPaid = isPaid(to, paymentSucceeded);
+        return wasPaid == isPaid ? 0 : isPaid ? 1 : -1;
+    }
+
+    // Same rule as EarningsRollupRepository.PAID: IN_PROGRESS is paid only once started, i.e. after the payment
+    private static boolean isPaid(BookingStatus status, boolean paymentSucceeded) {
+        return status == BookingStatus.CONFIRMED || status == BookingStatus.COMPLETED
+                || (status == BookingStatus.IN_PROGRESS && paymentSucceeded);
+    }
+
+    // Bookings made before kWh estimates were stored have none
+    private static double kwh(Number estimatedKwh) {
+        return estimatedKwh == null ? 0.0 : estimatedKwh.doubleValue();
+    }
+
+    private static BigDecimal signed(BigDecimal amount, int sign) {
+        if (amount == null || sign == 0) return BigDecimal.ZERO;
+        return sign > 0 ? amount : amount.negate();
+    }
+}
@@ -0,0 +1,95 @@
+package com.ev.service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.ev.repository.BookingRepository;
+
+/**
+ * Sessions, kWh and revenue of one operator per day, week or month over a
+ * date range.
+ *
+ * Daily figures come from the earnings rollup, a range on its operator/day
+ * key; while the ledger is stale (a rebuild is pending) they are read from
+ * bookings with a range on bookedAt instead. Days are then summed into
+ * buckets here, and buckets with no bookings are returned as zeros so charts
+ * get a continuous axis. Buckets carry their start date, so months and weeks
+ * of different years never mix.
+ */
+@Service
+public class EarningsTimeSeries {
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        // First day of the bucket holding day; weeks start on Monday
+        LocalDate bucketOf(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(DayOfWeek.MONDAY);
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        LocalDate next(LocalDate bucket) {
+            return switch (this) {
+                case DAY -> bucket.plusDays(1);
+                case WEEK -> bucket.plusWeeks(1);
+                case MONTH -> bucket.plusMonths(1);
+            };
+        }
+    }
+
+    // revenue is the operator's share (station fees) of paid bookings; kWh is their estimated energy
+    public record Point(LocalDate start, long sessions, double kwh, BigDecimal revenue) {
+
+        Point plus(long sessions, double kwh, BigDecimal revenue) {
+            return new Point(start, this.sessions + sessions, this.kwh + kwh, this.revenue.add(revenue));
+        }
+    }
+
+    @Autowired
+    private EarningsLedger earningsLedger;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    /**
+     * @param from first day, inclusive
+     * @param to   last day, inclusive
+     * @return one point per bucket overlapping [from, to], oldest first; the
+     *         first and last buckets only count the days inside the range
+     */
+    public List<Point> operatorSeries(Long operatorId, LocalDate from, LocalDate to, Granularity granularity) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        Map<LocalDate, Point> buckets = new LinkedHashMap<>();
+        LocalDate last = granularity.bucketOf(to);
+        for (LocalDate b = granularity.bucketOf(from); !b.isAfter(last); b = granularity.next(b)) {
+            buckets.put(b, new Point(b, 0, 0, BigDecimal.ZERO));
+        }
+
+        List<Object[]> days = earningsLedger.isStale()
+                ? bookingRepo.operatorDailySeries(operatorId, from.atStartOfDay(), to.plusDays(1).atStartOfDay())
+                : earningsLedger.operatorDailySeries(operatorId, from, to);
+        for (Object[] row : days) {
+            LocalDate bucket = granularity.bucketOf((LocalDate) row[0]);
+            buckets.computeIfPresent(bucket, (b, point) -> point.plus(((Number) row[1]).longValue(),
+                    ((Number) row[2]).doubleValue(), decimal(row[3])));
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    private static BigDecimal decimal(Object value) {
+        return value instanceof BigDecimal d ? d : new BigDecimal(value.toString());
+    }
+}
@@ -0,0 +1,257 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ev.model.EmailOutbox;
+import com.ev.model.EmailOutboxStatus;
+import com.ev.repository.EmailOutboxRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Drains the email outbox.
+ *
+ * Each poll claims a batch of due rows, splits it across a bounded worker pool
+ * (one SMTP connection per worker share) and records the outcome: SENT, or a
+ * retry with exponential backoff, or DEAD once maxAttempts is reached.
+ *
+ * Claiming locks rows with SKIP LOCKED and leases them for leaseSeconds, so
+ * several instances can drain the same table without sending an email twice;
+ * only rows whose lease ran out are put back in the queue. Bodies can hold
+ * one-time codes, so they are cleared once a row is SENT or DEAD, and those
+ * rows are deleted after retentionDays.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Autowired
+    private EmailOutboxRepository outboxRepo;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Value("${app.mail.outbox.workers:4}")
+    private int workers;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.mail.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.mail.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final TransactionTemplate transactionTemplate;
+    private ExecutorService pool;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong sendNanos = new AtomicLong();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public record OutboxStats(long pending, long dead, long sent, long failedAttempts, long deadLettered,
+                              int inFlight, double avgSendMs, double maxSendMs) {}
+
+    public EmailOutboxDispatcher(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void startPool() {
+        if (virtualThreads) {
+            // deliver() never submits more than `workers` shares, so SMTP concurrency stays bounded
+            pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("email-outbox-", 1).factory());
+            return;
+        }
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers),
+                r -> {
+                    Thread t = new Thread(r, "email-outbox-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void stopPool() {
+        pool.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.lease-check-ms:60000}")
+    public void recover() {
+        Integer requeued = transactionTemplate.execute(status -> outboxRepo.requeueExpired(LocalDateTime.now()));
+        if (requeued != null && requeued > 0) {
+            log.warn("Re-queued {} emails whose SENDING lease expired", requeued);
+        }
+    }
+
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 0 4 * * *}")
+    public void purge() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepo.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} sent or dead emails older than {} days", deleted, retentionDays);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-ms:2000}")
+    public void drain() {
+        List<EmailOutbox> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    public OutboxStats stats() {
+        long count = sent.get();
+        return new OutboxStats(
+                outboxRepo.countByStatus(EmailOutboxStatus.PENDING),
+                outboxRepo.countByStatus(EmailOutboxStatus.DEAD),
+                count, failedAttempts.get(), deadLettered.get(), inFlight.get(),
+                count == 0 ? 0 : sendNanos.get() / 1e6 / count,
+                maxSendNanos.get() / 1e6);
+    }
+
+    private List<EmailOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = outboxRepo.findDue(now, PageRequest.of(0, batchSize));
+            for (EmailOutbox e : due) {
+                e.setStatus(EmailOutboxStatus.SENDING);
+                e.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return outboxRepo.saveAll(due);
+        });
+    }
+
+    private void deliver(List<EmailOutbox> batch) {
+        int shares = Math.min(workers, batch.size());
+        List<Callable<Map<EmailOutbox, Exception>>> tasks = new ArrayList<>(shares);
+        for (int i = 0; i < shares; i++) {
+            List<EmailOutbox> share = new ArrayList<>();
+            for (int j = i; j < batch.size(); j += shares) {
+                share.add(batch.get(j));
+            }
+            tasks.add(() -> send(share));
+        }
+
+        Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+        try {
+            for (var future : pool.invokeAll(tasks)) {
+                failures.putAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return; // rows stay SENDING and are re-queued when their lease expires
+        } catch (Exception e) {
+            log.error("Email outbox worker failed", e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox e : batch) {
+            Exception error = failures.get(e);
+            if (error == null) {
+                e.setStatus(EmailOutboxStatus.SENT);
+                e.setSentAt(now);
+                redact(e);
+                continue;
+            }
+            e.setAttempts(e.getAttempts() + 1);
+            e.setLastError(truncate(error.getMessage()));
+            if (e.getAttempts() >= maxAttempts) {
+                e.setStatus(EmailOutboxStatus.DEAD);
+                redact(e);
+                deadLettered.incrementAndGet();
+                log.error("Email {} to {} dead-lettered after {} attempts: {}",
+                        e.getId(), e.getRecipient(), e.getAttempts(), e.getLastError());
+            } else {
+                e.setStatus(EmailOutboxStatus.PENDING);
+                e.setNextAttemptAt(now.plusSeconds(backoffSeconds(e.getAttempts())));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxRepo.saveAll(batch));
+    }
+
+    private Map<EmailOutbox, Exception> send(List<EmailOutbox> share) {
+        inFlight.addAndGet(share.size());
+        long started = System.nanoTime();
+        Map<EmailOutbox, Exception> failed;
+        try {
+            failed = emailService.sendBatch(share);
+        } catch (RuntimeException ex) {
+            failed = new IdentityHashMap<>();
+            for (EmailOutbox e : share) failed.put(e, ex);
+        } finally {
+            inFlight.addAndGet(-share.size());
+        }
+        long perMessage = (System.nanoTime() - started) / share.size();
+
+        sent.addAndGet(share.size() - failed.size());
+        failedAttempts.addAndGet(failed.size());
+        sendNanos.addAndGet(perMessage * (share.size() - failed.size()));
+        maxSendNanos.accumulateAndGet(perMessage, Math::max);
+        return failed;
+    }
+
+    // 30s, 60s, 120s, ... capped at maxBackoffSeconds
+    long backoffSeconds(int attempts) {
+        long delay = initialBackoffSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffSeconds);
+    }
+
+    // Recipient, subject and error stay for diagnosis; the body may carry an OTP or reset code
+    private static void redact(EmailOutbox e) {
+        e.setBody("");
+        e.setHtmlBody(null);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -1,16 +1,53 @@
 package com.ev.service;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import com.ev.model.EmailOutbox;
+import com.ev.repository.EmailOutboxRepository;
+import com.ev.service.NotificationTemplates.RenderedNotification;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
 @Service
 public class EmailService {
 
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private EmailOutboxRepository outboxRepo;
+
+    /**
+     * Queues an email in the outbox. Joins the caller's transaction, so the
+     * email is only sent if the change it reports commits, and is never lost
+     * once it has; EmailOutboxDispatcher delivers it in the background. A
+     * failed insert is thrown and rolls the change back with it.
+     */
+    public void queueMail(String to, String subject, String text) {
+        outboxRepo.save(new EmailOutbox(to, subject, text));
+    }
+
+    public void queueMail(String to, RenderedNotification notification) {
+        outboxRepo.save(new EmailOutbox(to, notification.subject(), notification.text(), notification.html()));
+    }
+
+    // Sends right away on the calling thread
     public void sendSimpleMail(String to, String subject, String text) {
         SimpleMailMessage msg = new SimpleMailMessage();
         msg.setTo(to);
@@ -18,4 +55,54 @@ public class EmailService {
         msg.setText(text);
         mailSender.send(msg);
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends several outbox rows over one SMTP connection. A row with an HTML body
+     * goes out as Spring's MULTIPART_MODE_MIXED_RELATED layout: multipart/mixed
+     * wrapping multipart/related wrapping a multipart/alternative of the text
+     * and HTML bodies. A row without one is a plain text/plain message.
+     *
+     * @return the rows that failed, with their error; empty when all were sent
+     */
+    public Map<EmailOutbox, Exception> sendBatch(List<EmailOutbox> rows) {
+        Map<EmailOutbox, Exception> failed = new IdentityHashMap<>();
+        Map<MimeMessage, EmailOutbox> byMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(rows.size());
+        for (EmailOutbox row : rows) {
+            try {
+                MimeMessage msg = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(msg, row.getHtmlBody() != null
+                        ? MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED
+                        : MimeMessageHelper.MULTIPART_MODE_NO, "UTF-8");
+                helper.setTo(row.getRecipient());
+                helper.setSubject(row.getSubject());
+                if (row.getHtmlBody() != null) {
+                    helper.setText(row.getBody(), row.getHtmlBody());
+                } else {
+                    helper.setText(row.getBody());
+                }
+                messages.add(msg);
+                byMessage.put(msg, row);
+            } catch (MessagingException e) {
+                failed.put(row, e);
+            }
+        }
+        if (messages.isEmpty()) return failed;
+
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.forEach(m -> failed.put(byMessage.get(m), e));
+            } else {
+                e.getFailedMessages().forEach((msg, ex) -> {
+                    EmailOutbox row = byMessage.get(msg);
+                    if (row != null) failed.put(row, ex);
+                });
+            }
+        } catch (MailException e) {
+            messages.forEach(m -> failed.put(byMessage.get(m), e));
+        }
+        return failed;
+    }
+}
@@ -0,0 +1,171 @@
+package com.ev.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Replays the stored response of a request that is retried with the same
+ * Idempotency-Key, without running it again.
+ *
+ * Entries are keyed by scope (endpoint + caller) and key, and hold a SHA-256
+ * fingerprint of the request so a key reused for a different request is
+ * rejected (422). A duplicate that arrives while the first is still running
+ * gets 409. Only 2xx/4xx responses are kept; a 5xx or an exception frees the
+ * key so the client can retry. Inside a transaction the response is stored
+ * only once the transaction commits. Entries expire after ttl and the store
+ * is bounded by maxEntries: when it overflows, the completed entries closest
+ * to expiry are dropped first, found through an expiry-ordered index rather
+ * than a scan. The store is per instance.
+ */
+@Service
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    @Value("${app.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${app.idempotency.max-entries:50000}")
+    private int maxEntries;
+
+    // done is false while the first request is still running
+    private record Entry(String fingerprint, long expiresAtMs, int status, Object body, boolean done) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Ids by expiry, soonest first; items whose entry is gone or was replaced are skipped when polled
+    private record Expiry(long expiresAtMs, String id) {}
+
+    private final NavigableSet<Expiry> byExpiry = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Expiry::expiresAtMs).thenComparing(Expiry::id));
+
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 255) {
+            return ResponseEntity.badRequest().body(HEADER + " must be at most 255 characters");
+        }
+
+        String id = scope + '\n' + key;
+        String hash = sha256(fingerprint);
+        long now = System.currentTimeMillis();
+        Entry placeholder = new Entry(hash, now + ttlMinutes * 60_000, 0, null, false);
+
+        Entry existing = entries.compute(id, (k, e) -> e == null || e.expiresAtMs() <= now ? placeholder : e);
+        if (existing == placeholder) {
+            byExpiry.add(new Expiry(placeholder.expiresAtMs(), id));
+        } else {
+            if (!existing.fingerprint().equals(hash)) {
+                return ResponseEntity.unprocessableEntity()
+                        .body(HEADER + " was already used for a different request");
+            }
+            if (!existing.done()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("A request with this " + HEADER + " is still being processed");
+            }
+            return ResponseEntity.status(existing.status())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(existing.body());
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(id, placeholder);
+            throw e;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            entries.remove(id, placeholder);
+            return response;
+        }
+        Entry done = new Entry(hash, placeholder.expiresAtMs(), response.getStatusCode().value(),
+                response.getBody(), true);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        entries.replace(id, placeholder, done);
+                    } else {
+                        entries.remove(id, placeholder);
+                    }
+                }
+            });
+        } else {
+            entries.replace(id, placeholder, done);
+        }
+        if (entries.size() > maxEntries) {
+            trim();
+        }
+        return response;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelay = 300_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Expiry> it = byExpiry.iterator();
+        while (it.hasNext()) {
+            Expiry first = it.next();
+            if (first.expiresAtMs() > now) break;
+            it.remove();
+            entries.computeIfPresent(first.id(), (k, e) -> e.expiresAtMs() == first.expiresAtMs() ? null : e);
+        }
+    }
+
+    // Drops expired, then soonest-expiring completed entries; running ones must stay to block duplicates
+    private void trim() {
+        long now = System.currentTimeMillis();
+        List<Expiry> running = new ArrayList<>();
+        while (entries.size() > maxEntries) {
+            Expiry first = byExpiry.pollFirst();
+            if (first == null) break;
+            Entry e = entries.get(first.id());
+            if (e == null || e.expiresAtMs() != first.expiresAtMs()) continue;
+            if (!e.done() && e.expiresAtMs() > now) {
+                running.add(first);
+                continue;
+            }
+            entries.remove(first.id(), e);
+        }
+        byExpiry.addAll(running);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ev.service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ev.model.PaymentMethod;
+
+/**
+ * Stand-in for every payment provider, for tests and load runs
+ * (app.payments.gateway=local). Sleeps for a configurable latency, fails a
+ * configurable share of calls, and sends the user straight to the frontend's
+ * payment-success page.
+ */
+@Component
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "local")
+public class LocalPaymentGateway implements PaymentGateway {
+
+    @Value("${app.frontend.base-url}")
+    private String frontendBaseUrl;
+
+    @Value("${app.payments.local.latency-ms:200}")
+    private long latencyMs;
+
+    @Value("${app.payments.local.failure-rate:0}")
+    private double failureRate;
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public boolean supports(PaymentMethod method) {
+        return true;
+    }
+
+    @Override
+    public CheckoutSession createCheckout(CheckoutRequest request) throws Exception {
+        Thread.sleep(latencyMs);
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IllegalStateException("Local gateway: simulated failure");
+        }
+        String id = "local_" + UUID.randomUUID();
+        return new CheckoutSession(id,
+                frontendBaseUrl + "/payment-success?bookingId=" + request.bookingId() + "&session=" + id);
+    }
+}
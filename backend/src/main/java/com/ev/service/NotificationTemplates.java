@@ -0,0 +1,187 @@
+package com.ev.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import com.ev.model.Booking;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Email templates for booking and account notifications.
+ *
+ * Templates live in classpath:templates/notifications as {@code <name>.txt}
+ * (first line "Subject: ...") and {@code <name>.html}, with {{var}}
+ * placeholders. They are parsed once at startup into literal/variable
+ * segments; rendering walks the segments into a per-thread reusable buffer,
+ * HTML-escaping values for the HTML variant.
+ */
+@Service
+public class NotificationTemplates {
+
+    private static final String LOCATION = "templates/notifications/";
+    private static final int MAX_POOLED_BUFFER = 16 * 1024;
+
+    public enum Notification {
+        BOOKING_CONFIRMED_OWNER("booking-confirmed-owner"),
+        BOOKING_CONFIRMED_OPERATOR("booking-confirmed-operator"),
+        BOOKING_CANCELLED_OWNER("booking-cancelled-owner"),
+        BOOKING_CANCELLED_OPERATOR("booking-cancelled-operator"),
+        PAYMENT_FAILED_OWNER("payment-failed-owner"),
+        PAYMENT_FAILED_OPERATOR("payment-failed-operator"),
+        OTP_LOGIN("otp-login"),
+        OTP_PASSWORD_RESET("otp-password-reset");
+
+        private final String file;
+
+        Notification(String file) {
+            this.file = file;
+        }
+    }
+
+    public record RenderedNotification(String subject, String text, String html) {}
+
+    // Alternating literal and variable segments; variables hold the placeholder name
+    private record Template(String[] segments, boolean[] variable) {}
+
+    private record Compiled(Template subject, Template text, Template html) {}
+
+    private final Map<Notification, Compiled> templates = new EnumMap<>(Notification.class);
+
+    private static final Map<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    @PostConstruct
+    void load() throws IOException {
+        for (Notification n : Notification.values()) {
+            String text = read(LOCATION + n.file + ".txt");
+            String html = read(LOCATION + n.file + ".html");
+
+            String subject = "";
+            if (text.startsWith("Subject:")) {
+                int eol = text.indexOf('\n');
+                subject = (eol < 0 ? text.substring(8) : text.substring(8, eol)).trim();
+                text = eol < 0 ? "" : text.substring(eol + 1);
+            }
+            templates.put(n, new Compiled(compile(subject), compile(text), compile(html)));
+        }
+    }
+
+    public RenderedNotification render(Notification notification, Map<String, ?> vars) {
+        Compiled c = templates.get(notification);
+        return new RenderedNotification(
+                render(c.subject(), vars, false),
+                render(c.text(), vars, false),
+                render(c.html(), vars, true));
+    }
+
+    /**
+     * Shared, thread-safe formatter for a pattern; built once per pattern.
+     */
+    public static DateTimeFormatter formatter(String pattern) {
+        return FORMATTERS.computeIfAbsent(pattern, DateTimeFormatter::ofPattern);
+    }
+
+    public static String format(TemporalAccessor value, String pattern) {
+        return formatter(pattern).format(value);
+    }
+
+    // Template variables shared by every booking email
+    public static Map<String, Object> bookingVars(Booking booking) {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("bookingId", booking.getId());
+        vars.put("ownerName", booking.getEvOwner().getFullname());
+        vars.put("stationName", booking.getStation().getName());
+        vars.put("connectorType", booking.getConnectorType());
+        vars.put("totalAmount", booking.getTotalAmount());
+        return vars;
+    }
+
+    private static String render(Template t, Map<String, ?> vars, boolean html) {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        String[] segments = t.segments();
+        boolean[] variable = t.variable();
+        for (int i = 0; i < segments.length; i++) {
+            if (!variable[i]) {
+                sb.append(segments[i]);
+                continue;
+            }
+            Object value = vars.get(segments[i]);
+            if (value == null) continue;
+            if (html) {
+                escapeHtml(String.valueOf(value), sb);
+            } else {
+                sb.append(value);
+            }
+        }
+        String result = sb.toString();
+        if (sb.capacity() > MAX_POOLED_BUFFER) {
+            // Don't keep an oversized buffer pinned to a pooled thread
+            BUFFER.set(new StringBuilder(1024));
+        }
+        return result;
+    }
+
+    static Template compile(String source) {
+        List<String> segments = new ArrayList<>();
+        List<Boolean> variable = new ArrayList<>();
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (open < 0 || close < 0) {
+                segments.add(source.substring(pos));
+                variable.add(false);
+                break;
+            }
+            if (open > pos) {
+                segments.add(source.substring(pos, open));
+                variable.add(false);
+            }
+            segments.add(source.substring(open + 2, close).trim());
+            variable.add(true);
+            pos = close + 2;
+        }
+        boolean[] flags = new boolean[variable.size()];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = variable.get(i);
+        }
+        return new Template(segments.toArray(new String[0]), flags);
+    }
+
+    private static void escapeHtml(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String read(String path) throws IOException {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return content.endsWith("\n") ? content.substring(0, content.length() - 1) : content;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.model.Payment;
+import com.ev.model.PaymentStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.PaymentRepository;
+import com.ev.service.PaymentGateway.CheckoutRequest;
+import com.ev.service.PaymentGateway.CheckoutSession;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opens hosted checkouts off the request thread.
+ *
+ * The PENDING payment row is written first; the gateway call then runs on a
+ * worker with a timeout, behind a per-gateway bulkhead (max concurrent calls)
+ * and circuit breaker. The outcome is written back to the payment row, where
+ * clients poll it: a checkout URL, or FAILED with a reason, in which case the
+ * booking is cancelled so its slot is freed.
+ */
+@Service
+public class PaymentCheckoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentCheckoutService.class);
+
+    @Autowired
+    private List<PaymentGateway> gateways;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.payments.checkout.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${app.payments.checkout.max-concurrent:20}")
+    private int maxConcurrent;
+
+    @Value("${app.payments.checkout.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold;
+
+    @Value("${app.payments.checkout.breaker.open-ms:30000}")
+    private long breakerOpenMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+    private ExecutorService pool;
+
+    // Bulkhead and breaker for one gateway
+    private record Guard(Semaphore bulkhead, CircuitBreaker breaker) {}
+
+    public PaymentCheckoutService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void startPool() {
+        if (virtualThreads) {
+            pool = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-checkout-", 1).factory());
+            return;
+        }
+        // The bulkheads already bound concurrency; the queue only absorbs bursts across gateways
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConcurrent),
+                r -> {
+                    Thread t = new Thread(r, "payment-checkout-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        ((ThreadPoolExecutor) pool).allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stopPool() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Starts creating a checkout for a saved PENDING payment of the booking.
+     * Never throws: rejections and failures are recorded on the payment row.
+     *
+     * @return completes with the session once it is stored, or exceptionally
+     */
+    public CompletableFuture<CheckoutSession> start(Booking booking, Payment payment) {
+        PaymentGateway gateway = gateways.stream()
+                .filter(g -> g.supports(payment.getPaymentMethod()))
+                .findFirst()
+                .orElse(null);
+        if (gateway == null) {
+            return reject(booking, payment, "Unsupported payment method");
+        }
+
+        Guard guard = guards.computeIfAbsent(gateway.name(), name -> new Guard(
+                new Semaphore(maxConcurrent), new CircuitBreaker(breakerFailureThreshold, breakerOpenMs)));
+        if (!guard.bulkhead().tryAcquire()) {
+            return reject(booking, payment, "Payment provider is busy, please try again");
+        }
+        if (!guard.breaker().tryAcquire()) {
+            guard.bulkhead().release();
+            return reject(booking, payment, "Payment provider is unavailable, please try again shortly");
+        }
+
+        CheckoutRequest request = new CheckoutRequest(booking.getId(), payment.getPaymentMethod(),
+                payment.getAmount(), payment.getCurrency());
+        CompletableFuture<CheckoutSession> call;
+        try {
+            call = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return gateway.createCheckout(request);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    // Held for the real duration of the call, even past the timeout
+                    guard.bulkhead().release();
+                }
+            }, pool);
+        } catch (RuntimeException e) {
+            guard.bulkhead().release();
+            guard.breaker().onFailure();
+            return reject(booking, payment, "Payment provider is busy, please try again");
+        }
+
+        return call.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((session, error) -> {
+                    if (error == null) {
+                        guard.breaker().onSuccess();
+                        attach(payment, session);
+                    } else {
+                        guard.breaker().onFailure();
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        log.warn("Checkout via {} failed for booking {}: {}",
+                                gateway.name(), booking.getId(), cause.toString());
+                        fail(booking, payment, cause instanceof TimeoutException
+                                ? "Payment provider timed out"
+                                : "Payment provider error");
+                    }
+                });
+    }
+
+    public CircuitBreaker.State breakerState(String gatewayName) {
+        Guard guard = guards.get(gatewayName);
+        return guard == null ? CircuitBreaker.State.CLOSED : guard.breaker().state();
+    }
+
+    private CompletableFuture<CheckoutSession> reject(Booking booking, Payment payment, String reason) {
+        fail(booking, payment, reason);
+        return CompletableFuture.failedFuture(new IllegalStateException(reason));
+    }
+
+    private void attach(Payment payment, CheckoutSession session) {
+        try {
+            paymentRepo.attachCheckout(payment.getId(), session.gatewayPaymentId(), session.checkoutUrl(),
+                    LocalDateTime.now(), PaymentStatus.PENDING);
+        } catch (RuntimeException e) {
+            log.error("Could not store checkout for payment {}", payment.getId(), e);
+        }
+    }
+
+    // Marks the payment FAILED and frees the booking's slot
+    private void fail(Booking booking, Payment payment, String reason) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (paymentRepo.failCheckout(payment.getId(), reason, LocalDateTime.now(),
+                        PaymentStatus.PENDING, PaymentStatus.FAILED) == 1
+                        && bookingRepo.transitionStatus(booking.getId(),
+                                BookingStatus.IN_PROGRESS, BookingStatus.CANCELLED) == 1) {
+                    eventPublisher.publishEvent(new BookingChangedEvent(booking.getId(),
+                            booking.getStation().getId(), booking.getStartTime(), booking.getEndTime(),
+                            booking.getConnectorType(), BookingStatus.CANCELLED, BookingStatus.IN_PROGRESS));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not record checkout failure for payment {}", payment.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.ev.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.model.Payment;
+import com.ev.model.PaymentStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.PaymentRepository;
+import com.ev.service.NotificationTemplates.Notification;
+import com.ev.service.NotificationTemplates.RenderedNotification;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Applies a payment outcome to a booking: payment status, booking status,
+ * BookingChangedEvent and the owner/operator emails.
+ *
+ * Shared by the browser callbacks in BookingController and the webhook
+ * worker, so a booking is confirmed (and emailed) once whichever arrives
+ * first. Callers own the transaction.
+ */
+@Service
+public class PaymentConfirmationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentConfirmationService.class);
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private NotificationTemplates notificationTemplates;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.admin.email}")
+    private String adminEmail;
+
+    /**
+     * Confirms the booking against its latest payment.
+     *
+     * @return false if the success was already recorded
+     * @throws EntityNotFoundException if the booking does not exist
+     */
+    public boolean confirm(Long bookingId, String gatewayPaymentId) {
+        Booking booking = bookingRepo.findById(bookingId)
+                .orElseThrow(() -> new EntityNotFoundException("Booking not found"));
+        Payment payment = paymentRepo.findFirstByBookingIdOrderByCreatedAtDescIdDesc(bookingId)
+                .orElseThrow(() -> new RuntimeException("No payment found for booking " + bookingId));
+        return confirm(booking, payment, gatewayPaymentId);
+    }
+
+    /**
+     * Confirms the booking only while it is still waiting for this payment:
+     * IN_PROGRESS with the payment PENDING or FAILED. A success arriving for
+     * a booking that was cancelled, marked no-show, has started or is over is
+     * recorded on the payment, but the booking is left as it is and the
+     * payment is logged for refund.
+     *
+     * @return false if the booking was not confirmed, e.g. a repeated
+     *         callback, a webhook for a booking the browser confirmed, or a
+     *         late success that needs a refund
+     */
+    public boolean confirm(Booking booking, Payment payment, String gatewayPaymentId) {
+        if (payment.getStatus() == PaymentStatus.SUCCESS || payment.getStatus() == PaymentStatus.REFUNDED) {
+            // Also covers a confirmed booking that has since started (IN_PROGRESS again)
+            log.info("Payment success for booking {} already recorded", booking.getId());
+            return false;
+        }
+        // The payment is PENDING or FAILED here; only a booking still waiting for it is confirmed
+        if (booking.getStatus() != BookingStatus.IN_PROGRESS) {
+            markSucceeded(payment, gatewayPaymentId);
+            log.warn("Payment {} for booking {} succeeded while the booking is {}; booking left unchanged, "
+                    + "payment needs a refund", payment.getId(), booking.getId(), booking.getStatus());
+            return false;
+        }
+        log.info("Payment success for booking {}: total={} platformFee={} stationFee={}",
+                booking.getId(), booking.getTotalAmount(), booking.getPlatformFee(), booking.getStationFee());
+
+        markSucceeded(payment, gatewayPaymentId);
+
+        BookingStatus previousStatus = booking.getStatus();
+        booking.setStatus(BookingStatus.CONFIRMED);
+        bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.of(booking, previousStatus));
+
+        String durationHours = String.format("%.1f hours",
+                Duration.between(booking.getStartTime(), booking.getEndTime()).toMinutes() / 60.0);
+        String timeSlot = NotificationTemplates.format(booking.getStartTime(), "hh:mm a")
+                + " - " + NotificationTemplates.format(booking.getEndTime(), "hh:mm a, MMM dd");
+
+        Map<String, Object> vars = NotificationTemplates.bookingVars(booking);
+        vars.put("duration", durationHours);
+        vars.put("timeSlot", timeSlot);
+        vars.put("paymentMethod", payment.getPaymentMethod() != null ? payment.getPaymentMethod().name() : "Unknown");
+
+        sendSafeEmail(booking.getEvOwner().getEmail(), Notification.BOOKING_CONFIRMED_OWNER, vars);
+        sendSafeEmail(booking.getStation().getOperator().getEmail(), Notification.BOOKING_CONFIRMED_OPERATOR, vars);
+        return true;
+    }
+
+    /**
+     * Cancels the booking after a failed or abandoned payment; a PENDING
+     * payment is marked FAILED with the reason.
+     *
+     * @return false if the booking was already cancelled
+     */
+    public boolean fail(Booking booking, Payment payment, String reason) {
+        if (booking.getStatus() == BookingStatus.CANCELLED) {
+            return false;
+        }
+        if (payment != null && payment.getStatus() == PaymentStatus.PENDING) {
+            payment.setStatus(PaymentStatus.FAILED);
+            payment.setFailureReason(reason);
+            payment.setUpdatedAt(LocalDateTime.now());
+            paymentRepo.save(payment);
+        }
+
+        BookingStatus previousStatus = booking.getStatus();
+        booking.setStatus(BookingStatus.CANCELLED);
+        bookingRepo.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.of(booking, previousStatus));
+
+        Map<String, Object> vars = NotificationTemplates.bookingVars(booking);
+        sendSafeEmail(booking.getEvOwner().getEmail(), Notification.PAYMENT_FAILED_OWNER, vars);
+        sendSafeEmail(booking.getStation().getOperator().getEmail(), Notification.PAYMENT_FAILED_OPERATOR, vars);
+        return true;
+    }
+
+    private void markSucceeded(Payment payment, String gatewayPaymentId) {
+        payment.setStatus(PaymentStatus.SUCCESS);
+        if (gatewayPaymentId != null) {
+            payment.setGatewayPaymentId(gatewayPaymentId);
+        }
+        payment.setUpdatedAt(LocalDateTime.now());
+        paymentRepo.save(payment);
+    }
+
+    // In-memory counterpart of findFirstByBookingIdOrderByCreatedAtDescIdDesc, for payments loaded in bulk
+    public static Payment latest(List<Payment> payments) {
+        return payments.stream()
+                .max(Comparator.comparing(Payment::getCreatedAt).thenComparing(Payment::getId))
+                .orElse(null);
+    }
+
+    private void sendSafeEmail(String toEmail, Notification notification, Map<String, ?> vars) {
+        if (toEmail == null || toEmail.trim().isEmpty()) {
+            toEmail = adminEmail;
+            log.debug("No recipient email, falling back to admin {}", toEmail);
+        }
+        RenderedNotification rendered;
+        try {
+            rendered = notificationTemplates.render(notification, vars);
+        } catch (Exception e) {
+            log.error("Failed to render {} email to {}", notification, toEmail, e);
+            return;
+        }
+        // Outbox row written in the booking's transaction; delivery happens in the background
+        emailService.queueMail(toEmail, rendered);
+    }
+}
@@ -0,0 +1,273 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.model.Payment;
+import com.ev.model.PaymentEvent;
+import com.ev.model.PaymentEventStatus;
+import com.ev.model.PaymentStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.PaymentEventRepository;
+import com.ev.repository.PaymentRepository;
+
+/**
+ * Applies stored webhook events to payments and bookings.
+ *
+ * Events are claimed in id (arrival) order, so events of one booking are
+ * applied in the order they were received. Each batch runs in one
+ * transaction: bookings and payments are loaded with one query each and
+ * written back together at commit. If the batch fails it is retried one
+ * booking at a time, so one bad booking only holds back its own events;
+ * those are retried with exponential backoff up to maxAttempts, then FAILED.
+ * A booking's later events wait while an earlier one is in flight, backing
+ * off or FAILED, so they are never applied ahead of it; a FAILED event holds
+ * its booking until it is dealt with by hand.
+ *
+ * Dedupe is on the payment: a success for a gatewayPaymentId already marked
+ * SUCCESS (by an earlier event or the browser callback) changes nothing.
+ *
+ * Several instances may poll the same table. A claim is a conditional
+ * UPDATE that only takes rows still PENDING and stamps them with a token and
+ * a lease of leaseSeconds; each run then processes just the rows carrying
+ * its token. When another instance got part of the page first, rows whose
+ * booking has an earlier event held elsewhere are handed back. Only rows
+ * whose lease ran out are put back in the queue, never rows another live
+ * instance is still working on.
+ */
+@Service
+public class PaymentEventWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentEventWorker.class);
+
+    @Autowired
+    private PaymentEventRepository eventRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private PaymentConfirmationService confirmationService;
+
+    @Value("${app.payments.webhook.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.payments.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.payments.webhook.initial-backoff-seconds:10}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.payments.webhook.max-backoff-seconds:600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.payments.webhook.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PaymentEventWorker(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.webhook.lease-check-ms:60000}")
+    public void recover() {
+        Integer requeued = transactionTemplate.execute(status -> eventRepo.requeueExpired(LocalDateTime.now()));
+        if (requeued != null && requeued > 0) {
+            log.warn("Re-queued {} payment events whose PROCESSING lease expired", requeued);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.payments.webhook.poll-ms:1000}")
+    public void drain() {
+        List<PaymentEvent> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) {
+                process(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private List<PaymentEvent> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<PaymentEvent> due = eventRepo.findDue(now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                return due;
+            }
+            String token = UUID.randomUUID().toString();
+            LocalDateTime leaseUntil = now.plusSeconds(leaseSeconds);
+            int claimed = eventRepo.claim(ids(due), token, leaseUntil);
+            if (claimed == 0) {
+                return List.of();
+            }
+            List<PaymentEvent> mine = due;
+            if (claimed < due.size()) {
+                // Another instance took part of the page: give back rows that would now overtake an
+                // earlier event of their booking, and keep only the rest stamped with our token
+                List<Long> outOfOrder = eventRepo.findClaimedOutOfOrder(token);
+                if (!outOfOrder.isEmpty()) {
+                    eventRepo.release(outOfOrder, token);
+                }
+                mine = eventRepo.findByClaimTokenOrderByIdAsc(token);
+            }
+            for (PaymentEvent e : mine) {
+                e.setStatus(PaymentEventStatus.PROCESSING);
+                e.setClaimToken(token);
+                e.setLeaseUntil(leaseUntil);
+            }
+            return mine;
+        });
+    }
+
+    private void process(List<PaymentEvent> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(batch));
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Payment event batch of {} failed, retrying per booking: {}", batch.size(), e.toString());
+        }
+        for (List<PaymentEvent> group : byBooking(batch).values()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(group));
+            } catch (RuntimeException e) {
+                log.error("Payment events for booking {} failed", group.get(0).getBookingId(), e);
+                transactionTemplate.executeWithoutResult(status -> recordFailure(group, e));
+            }
+        }
+    }
+
+    private void apply(List<PaymentEvent> events) {
+        Set<Long> bookingIds = events.stream()
+                .map(PaymentEvent::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> gatewayIds = events.stream()
+                .map(PaymentEvent::getGatewayPaymentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, Booking> bookings = new HashMap<>();
+        if (!bookingIds.isEmpty()) {
+            for (Booking b : bookingRepo.findWithPartiesByIdIn(bookingIds)) {
+                bookings.put(b.getId(), b);
+            }
+        }
+        Map<String, Payment> paymentsByGatewayId = new HashMap<>();
+        if (!gatewayIds.isEmpty()) {
+            for (Payment p : paymentRepo.findByGatewayPaymentIdIn(gatewayIds)) {
+                paymentsByGatewayId.put(p.getGatewayPaymentId(), p);
+            }
+        }
+        Map<Long, Payment> latestByBooking = null;
+
+        for (PaymentEvent event : events) {
+            Booking booking = event.getBookingId() == null ? null : bookings.get(event.getBookingId());
+            if (booking == null) {
+                log.warn("Payment event {} ({}) has no known booking; skipped",
+                        event.getProviderEventId(), event.getType());
+                continue;
+            }
+            Payment payment = paymentsByGatewayId.get(event.getGatewayPaymentId());
+            if (payment == null || !booking.getId().equals(payment.getBooking().getId())) {
+                // Session id not attached yet (checkout still being stored): fall back to the latest payment
+                if (latestByBooking == null) {
+                    latestByBooking = latestByBooking(bookingIds);
+                }
+                payment = latestByBooking.get(booking.getId());
+            }
+            if (payment == null) {
+                log.warn("Payment event {} for booking {} has no payment; skipped",
+                        event.getProviderEventId(), booking.getId());
+                continue;
+            }
+
+            if (PaymentWebhookService.SUCCESS_TYPES.contains(event.getType())) {
+                confirmationService.confirm(booking, payment, event.getGatewayPaymentId());
+            } else if (payment.getStatus() != PaymentStatus.SUCCESS
+                    && booking.getStatus() == BookingStatus.IN_PROGRESS) {
+                // Only a booking still waiting for this payment is released
+                confirmationService.fail(booking, payment, "Checkout " + event.getType().substring(
+                        event.getType().lastIndexOf('.') + 1));
+            }
+        }
+        eventRepo.markProcessed(ids(events), PaymentEventStatus.PROCESSED, LocalDateTime.now());
+    }
+
+    private Map<Long, Payment> latestByBooking(Set<Long> bookingIds) {
+        Map<Long, List<Payment>> byBooking = new HashMap<>();
+        for (Payment p : paymentRepo.findByBookingIdIn(bookingIds)) {
+            byBooking.computeIfAbsent(p.getBooking().getId(), id -> new ArrayList<>()).add(p);
+        }
+        Map<Long, Payment> latest = new HashMap<>();
+        byBooking.forEach((id, payments) -> latest.put(id, PaymentConfirmationService.latest(payments)));
+        return latest;
+    }
+
+    private void recordFailure(List<PaymentEvent> group, RuntimeException error) {
+        LocalDateTime now = LocalDateTime.now();
+        for (PaymentEvent e : group) {
+            e.setAttempts(e.getAttempts() + 1);
+            e.setLastError(truncate(error.toString()));
+            e.setClaimToken(null);
+            if (e.getAttempts() >= maxAttempts) {
+                e.setStatus(PaymentEventStatus.FAILED);
+            } else {
+                e.setStatus(PaymentEventStatus.PENDING);
+                e.setNextAttemptAt(now.plusSeconds(backoffSeconds(e.getAttempts())));
+            }
+        }
+        eventRepo.saveAll(group);
+        if (group.get(0).getStatus() == PaymentEventStatus.FAILED) {
+            log.error("Payment events for booking {} failed after {} attempts",
+                    group.get(0).getBookingId(), group.get(0).getAttempts());
+        }
+    }
+
+    // 10s, 20s, 40s, ... capped at maxBackoffSeconds
+    long backoffSeconds(int attempts) {
+        long delay = initialBackoffSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffSeconds);
+    }
+
+    // Keeps id order within each booking
+    private static Map<Long, List<PaymentEvent>> byBooking(List<PaymentEvent> events) {
+        Map<Long, List<PaymentEvent>> groups = new LinkedHashMap<>();
+        for (PaymentEvent e : events) {
+            groups.computeIfAbsent(e.getBookingId(), id -> new ArrayList<>()).add(e);
+        }
+        return groups;
+    }
+
+    private static List<Long> ids(List<PaymentEvent> events) {
+        return events.stream().map(PaymentEvent::getId).toList();
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
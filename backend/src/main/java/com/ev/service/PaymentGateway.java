@@ -0,0 +1,23 @@
+package com.ev.service;
+
+import java.math.BigDecimal;
+
+import com.ev.model.PaymentMethod;
+
+/**
+ * A payment provider that can open a hosted checkout for a booking.
+ * Implementations may block on the network; PaymentCheckoutService calls them
+ * off the request thread with a timeout, a bulkhead and a circuit breaker.
+ */
+public interface PaymentGateway {
+
+    record CheckoutRequest(Long bookingId, PaymentMethod method, BigDecimal amount, String currency) {}
+
+    record CheckoutSession(String gatewayPaymentId, String checkoutUrl) {}
+
+    String name();
+
+    boolean supports(PaymentMethod method);
+
+    CheckoutSession createCheckout(CheckoutRequest request) throws Exception;
+}
@@ -0,0 +1,106 @@
+package com.ev.service;
+
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.ev.model.PaymentEvent;
+import com.ev.repository.PaymentEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+
+/**
+ * Verifies Stripe webhook deliveries and appends the ones that change a
+ * payment to the payment_events table, so the endpoint can acknowledge
+ * without touching bookings. PaymentEventWorker applies them.
+ *
+ * Only the fields the worker needs are kept (event id, type, session id,
+ * bookingId metadata). Redeliveries of an event are dropped on the unique
+ * provider event id.
+ */
+@Service
+public class PaymentWebhookService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentWebhookService.class);
+
+    // checkout.session.completed counts only once paid; async methods complete unpaid first
+    static final Set<String> SUCCESS_TYPES = Set.of(
+            "checkout.session.completed", "checkout.session.async_payment_succeeded");
+    static final Set<String> FAILURE_TYPES = Set.of(
+            "checkout.session.async_payment_failed", "checkout.session.expired");
+
+    public enum Outcome { STORED, DUPLICATE, IGNORED }
+
+    @Autowired
+    private PaymentEventRepository eventRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${stripe.webhook-secret:}")
+    private String webhookSecret;
+
+    @Value("${stripe.webhook-tolerance-seconds:300}")
+    private long toleranceSeconds;
+
+    /**
+     * @throws SignatureVerificationException if the Stripe-Signature header does not match the payload
+     * @throws IllegalStateException if no webhook secret is configured
+     * @throws IllegalArgumentException if the payload is not a Stripe event
+     */
+    public Outcome ingest(String payload, String signatureHeader) throws SignatureVerificationException {
+        if (webhookSecret == null || webhookSecret.isBlank()) {
+            throw new IllegalStateException("stripe.webhook-secret is not configured");
+        }
+        Webhook.Signature.verifyHeader(payload, signatureHeader, webhookSecret, toleranceSeconds);
+
+        JsonNode event;
+        try {
+            event = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed event payload", e);
+        }
+        String eventId = event.path("id").asText(null);
+        String type = event.path("type").asText("");
+        if (eventId == null) {
+            throw new IllegalArgumentException("Event has no id");
+        }
+
+        JsonNode session = event.path("data").path("object");
+        if (!SUCCESS_TYPES.contains(type) && !FAILURE_TYPES.contains(type)) {
+            log.debug("Ignoring Stripe event {} of type {}", eventId, type);
+            return Outcome.IGNORED;
+        }
+        if ("checkout.session.completed".equals(type) && !"paid".equals(session.path("payment_status").asText())) {
+            log.debug("Ignoring unpaid completion {}; the async outcome follows", eventId);
+            return Outcome.IGNORED;
+        }
+
+        Long bookingId = parseBookingId(session.path("metadata").path("bookingId").asText(null));
+        PaymentEvent row = new PaymentEvent(eventId, type, bookingId, session.path("id").asText(null));
+        try {
+            eventRepo.save(row);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Stripe event {} already received", eventId);
+            return Outcome.DUPLICATE;
+        }
+        return Outcome.STORED;
+    }
+
+    private static Long parseBookingId(String value) {
+        if (value == null) return null;
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
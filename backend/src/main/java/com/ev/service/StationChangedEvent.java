@@ -0,0 +1,23 @@
+package com.ev.service;
+
+import com.ev.model.ChargingStations;
+
+/**
+ * Published whenever a charging station is created, edited or deleted so that
+ * in-memory views of the station table (spatial index, map tiles) stay current.
+ * {@code station} is null when the station was deleted.
+ */
+public record StationChangedEvent(Long stationId, ChargingStations station) {
+
+    public static StationChangedEvent saved(ChargingStations station) {
+        return new StationChangedEvent(station.getId(), station);
+    }
+
+    public static StationChangedEvent deleted(Long stationId) {
+        return new StationChangedEvent(stationId, null);
+    }
+
+    public boolean isDeleted() {
+        return station == null;
+    }
+}
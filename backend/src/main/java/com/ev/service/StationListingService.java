@@ -0,0 +1,84 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ev.dto.PageCursor;
+import com.ev.dto.StationResponseDTO;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.repository.ChargingStationRepositoryCustom.StationSortKey;
+
+/**
+ * Keyset-paginated station listings shared by the EV owner and admin endpoints.
+ */
+@Service
+public class StationListingService {
+
+    public static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    /**
+     * @param nextCursor cursor for the following page, null when this was the last one
+     */
+    public record StationPage(List<StationResponseDTO> content, String nextCursor) {}
+
+    /**
+     * @param sort   "field,dir" with field one of name, city, createdAt
+     * @param limit  page size, or null for every remaining row
+     * @param cursor nextCursor of the previous page, or null
+     * @throws IllegalArgumentException on an unsupported sort, limit or cursor
+     */
+    @Transactional(readOnly = true)
+    public StationPage list(String sort, Integer limit, String cursor) {
+        String[] sortParts = sort.split(",");
+        StationSortKey sortKey = StationSortKey.from(sortParts[0].trim());
+        Sort.Direction direction = sortParts.length > 1 && "desc".equalsIgnoreCase(sortParts[1].trim())
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+
+        if (limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        String sortName = sortKey.property() + "," + direction.name().toLowerCase();
+        PageCursor after = cursor != null && !cursor.isBlank() ? PageCursor.decode(cursor, sortName) : null;
+        if (after != null && sortKey == StationSortKey.CREATED_AT) {
+            // Parsed again by the repository; rejected here, where it can still become a 400
+            checkTimestamp(after.sortValue());
+        }
+
+        // One extra row tells us whether another page exists
+        List<StationResponseDTO> rows = stationRepo.findStationPage(sortKey, direction, after,
+                limit != null ? limit + 1 : null);
+
+        if (limit == null || rows.size() <= limit) {
+            return new StationPage(rows, null);
+        }
+        List<StationResponseDTO> content = rows.subList(0, limit);
+        StationResponseDTO last = content.get(limit - 1);
+        return new StationPage(content, new PageCursor(sortName, sortValue(sortKey, last), last.getId()).encode());
+    }
+
+    private static void checkTimestamp(String value) {
+        try {
+            LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String sortValue(StationSortKey key, StationResponseDTO dto) {
+        return switch (key) {
+            case NAME -> dto.getName();
+            case CITY -> dto.getCity();
+            case CREATED_AT -> dto.getCreatedAt();
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package com.ev.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ev.dto.NearbyStationDTO;
+import com.ev.model.ChargingStations;
+import com.ev.model.ConnectorType;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.repository.ChargingStationRepository.StationDistance;
+import com.ev.service.StationSpatialIndex.Neighbour;
+import com.ev.service.StationSpatialIndex.StationPoint;
+
+/**
+ * Nearby-station search used by /stations/nearby.
+ *
+ * Radius mode returns everything inside the circle; k-NN mode returns the
+ * {@code limit} closest stations. Connector, status and free-slot filters are
+ * applied while searching, so k-NN always fills its quota with matching
+ * stations instead of returning k stations for the client to discard.
+ */
+@Service
+public class StationSearchService {
+
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+    private static final int MAX_KNN_ROUNDS = 4;
+
+    @Autowired
+    private StationSpatialIndex stationIndex;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    @Autowired
+    private ActiveBookingCounts activeBookingCounts;
+
+    @Value("${app.stations.spatial-index.enabled:true}")
+    private boolean spatialIndexEnabled;
+
+    public record NearbyQuery(double lat, double lng, double radiusKm, Integer limit,
+                              ConnectorType connector, boolean operationalOnly, int minFreeSlots) {
+
+        boolean knn() {
+            return limit != null && limit > 0;
+        }
+
+        Predicate<StationPoint> staticFilter() {
+            return p -> (!operationalOnly || p.operational())
+                    && (connector == null || p.hasConnector(connector));
+        }
+    }
+
+    public List<NearbyStationDTO> findNearby(NearbyQuery query) {
+        List<Neighbour> neighbours = spatialIndexEnabled && stationIndex.isReady()
+                ? searchIndex(query)
+                : searchDatabase(query);
+        return hydrate(neighbours);
+    }
+
+    private List<Neighbour> searchIndex(NearbyQuery q) {
+        Predicate<StationPoint> filter = q.staticFilter();
+
+        if (!q.knn()) {
+            List<Neighbour> all = stationIndex.withinRadius(q.lat(), q.lng(), q.radiusKm(), filter);
+            return q.minFreeSlots() > 0 ? withFreeSlots(all, q.minFreeSlots(), this::indexedTotalSlots) : all;
+        }
+
+        if (q.minFreeSlots() <= 0) {
+            return stationIndex.nearest(q.lat(), q.lng(), q.limit(), q.radiusKm(), filter);
+        }
+
+        // Free slots depend on live bookings, so over-fetch candidates and widen if too many are full
+        int fetch = q.limit() * 2;
+        List<Neighbour> matches = List.of();
+        for (int round = 0; round < MAX_KNN_ROUNDS; round++) {
+            List<Neighbour> candidates = stationIndex.nearest(q.lat(), q.lng(), fetch, q.radiusKm(), filter);
+            matches = withFreeSlots(candidates, q.minFreeSlots(), this::indexedTotalSlots);
+            if (matches.size() >= q.limit() || candidates.size() < fetch) {
+                break;
+            }
+            fetch *= 2;
+        }
+        return matches.size() > q.limit() ? matches.subList(0, q.limit()) : matches;
+    }
+
+    // Bounding-box + SPATIAL index query, static filters in SQL
+    private List<Neighbour> searchDatabase(NearbyQuery q) {
+        // 1% padding: box edges are geodesics, not lines of constant latitude
+        double dLat = q.radiusKm() * 1.01 / KM_PER_DEGREE_LAT;
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(q.lat())));
+        double dLng = Math.min(180, q.radiusKm() * 1.01 / (KM_PER_DEGREE_LAT * cos));
+
+        double minLat = Math.max(-90, q.lat() - dLat);
+        double maxLat = Math.min(90, q.lat() + dLat);
+        double minLng = Math.max(-180, q.lng() - dLng);
+        double maxLng = Math.min(180, q.lng() + dLng);
+
+        String point = "POINT(" + q.lat() + " " + q.lng() + ")";
+        String box = "POLYGON((" +
+                minLat + " " + minLng + ", " +
+                maxLat + " " + minLng + ", " +
+                maxLat + " " + maxLng + ", " +
+                minLat + " " + maxLng + ", " +
+                minLat + " " + minLng + "))";
+
+        List<StationDistance> rows = stationRepo.findNearby(point, box, q.radiusKm(),
+                q.connector() != null ? q.connector().name() : null,
+                q.operationalOnly());
+
+        List<Neighbour> found = rows.stream()
+                .map(row -> new Neighbour(row.getId(), row.getDistanceKm()))
+                .toList();
+
+        if (q.minFreeSlots() > 0) {
+            Map<Long, Integer> totals = new HashMap<>();
+            rows.forEach(row -> totals.put(row.getId(), row.getTotalSlots() != null ? row.getTotalSlots() : 0));
+            found = withFreeSlots(found, q.minFreeSlots(), id -> totals.getOrDefault(id, 0));
+        }
+        return q.knn() && found.size() > q.limit() ? found.subList(0, q.limit()) : found;
+    }
+
+    // Keeps candidates with at least minFreeSlots ports not taken by a booking right now
+    private List<Neighbour> withFreeSlots(List<Neighbour> candidates, int minFreeSlots,
+                                          Function<Long, Integer> totalSlots) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Map<Long, Long> active = activeBookingCounts.countActive(
+                candidates.stream().map(Neighbour::stationId).toList());
+
+        List<Neighbour> result = new ArrayList<>(candidates.size());
+        for (Neighbour n : candidates) {
+            int total = totalSlots.apply(n.stationId());
+            if (total - active.getOrDefault(n.stationId(), 0L) >= minFreeSlots) {
+                result.add(n);
+            }
+        }
+        return result;
+    }
+
+    private int indexedTotalSlots(Long stationId) {
+        StationPoint p = stationIndex.get(stationId);
+        return p != null ? p.totalSlots() : 0;
+    }
+
+    // Load only the matching rows and keep them in distance order
+    private List<NearbyStationDTO> hydrate(List<Neighbour> neighbours) {
+        if (neighbours.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = neighbours.stream().map(Neighbour::stationId).toList();
+        Map<Long, ChargingStations> byId = stationRepo.findAllWithOperatorByIdIn(ids).stream()
+                .collect(Collectors.toMap(ChargingStations::getId, Function.identity()));
+
+        return neighbours.stream()
+                .filter(n -> byId.containsKey(n.stationId()))
+                .map(n -> new NearbyStationDTO(byId.get(n.stationId()), n.distanceKm()))
+                .toList();
+    }
+}
@@ -0,0 +1,183 @@
+package com.ev.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ev.dto.SlotGridDTO;
+import com.ev.model.ChargingStations;
+import com.ev.model.ConnectorType;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.service.BookingAvailabilityEngine.Slot;
+import com.ev.service.StationSpatialIndex.StationPoint;
+
+/**
+ * Per-day grids of bookable buckets for the booking calendar, cached per
+ * (station, date).
+ *
+ * A bucket is free when a booking covering it would pass the availability
+ * engine's check: no other booking at the station within
+ * {@link BookingAvailabilityEngine#BUFFER} of it, whatever the connector.
+ * A booking aligned to buckets is admitted exactly when all of its buckets
+ * are free.
+ *
+ * Today and later days are built from the availability engine's timeline,
+ * earlier days from the database. A booking change only evicts the days that
+ * booking and its buffer touch; a station edit evicts that station's days.
+ */
+@Service
+public class StationSlotGridService {
+
+    public static final int BUCKET_MINUTES = 15;
+    private static final int BUCKETS = 24 * 60 / BUCKET_MINUTES;
+    private static final int MAX_ENTRIES = 10_000;
+
+    @Autowired
+    private BookingAvailabilityEngine availabilityEngine;
+
+    @Autowired
+    private StationSpatialIndex stationIndex;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    private record Key(Long stationId, LocalDate date) {}
+
+    private final Map<Key, SlotGridDTO> cache = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so a grid built from pre-change data is not cached after it
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @return the grid, or null when the station does not exist
+     */
+    public SlotGridDTO grid(Long stationId, LocalDate date) {
+        Key key = new Key(stationId, date);
+        SlotGridDTO cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = generation.get();
+        Map<ConnectorType, Integer> ports = ports(stationId);
+        if (ports == null) {
+            return null;
+        }
+        SlotGridDTO grid = build(stationId, date, ports);
+        if (cache.size() >= MAX_ENTRIES) {
+            trim();
+        }
+        cache.put(key, grid);
+        if (generation.get() != seen) {
+            cache.remove(key, grid);
+        }
+        return grid;
+    }
+
+    // Default (lowest) order: runs after the engine and the spatial index have applied the event
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        generation.incrementAndGet();
+        if (event.isBulk()) {
+            cache.clear();
+            return;
+        }
+        LocalDate last = event.endTime().plus(BookingAvailabilityEngine.BUFFER).minusNanos(1).toLocalDate();
+        LocalDate first = event.startTime().minus(BookingAvailabilityEngine.BUFFER).toLocalDate();
+        for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) {
+            cache.remove(new Key(event.stationId(), d));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        generation.incrementAndGet();
+        cache.keySet().removeIf(k -> k.stationId().equals(event.stationId()));
+    }
+
+    private SlotGridDTO build(Long stationId, LocalDate date, Map<ConnectorType, Integer> ports) {
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        Duration buffer = BookingAvailabilityEngine.BUFFER;
+
+        // Bucket [t, t + 15m) is blocked by a booking within the buffer of it on either side
+        boolean[] free = new boolean[BUCKETS];
+        Arrays.fill(free, true);
+        for (Slot slot : slots(stationId, dayStart.minus(buffer), dayEnd.plus(buffer))) {
+            LocalDateTime from = slot.start().minus(buffer);
+            LocalDateTime to = slot.end().plus(buffer);
+            long first = Math.floorDiv(Duration.between(dayStart, from).toMinutes(), BUCKET_MINUTES);
+            long last = Math.floorDiv(Duration.between(dayStart, to).toMinutes() + BUCKET_MINUTES - 1, BUCKET_MINUTES);
+            for (long b = Math.max(first, 0); b < Math.min(last, BUCKETS); b++) {
+                free[(int) b] = false;
+            }
+        }
+
+        Map<String, Integer> total = new LinkedHashMap<>();
+        ports.forEach((type, count) -> total.put(type.name(), count));
+        return new SlotGridDTO(stationId, date.toString(), BUCKET_MINUTES, total, free);
+    }
+
+    private List<Slot> slots(Long stationId, LocalDateTime dayStart, LocalDateTime dayEnd) {
+        if (!dayStart.toLocalDate().isBefore(LocalDate.now())) {
+            // Skip in-flight holds: they are only shown once bound to a saved booking
+            return availabilityEngine.slots(stationId, dayStart, dayEnd).stream()
+                    .filter(s -> s.bookingId() > 0)
+                    .toList();
+        }
+        List<Slot> result = new ArrayList<>();
+        for (Object[] row : bookingRepo.findSlotRows(stationId, dayStart, dayEnd)) {
+            result.add(new Slot((Long) row[0], (LocalDateTime) row[1], (LocalDateTime) row[2], (String) row[3]));
+        }
+        return result;
+    }
+
+    // Installed ports per connector type, from the spatial index when it has the station
+    private Map<ConnectorType, Integer> ports(Long stationId) {
+        Map<ConnectorType, Integer> ports = new EnumMap<>(ConnectorType.class);
+        StationPoint p = stationIndex.get(stationId);
+        if (p != null) {
+            ports.put(ConnectorType.LEVEL2, p.level2Chargers());
+            ports.put(ConnectorType.DC_FAST, p.dcFastChargers());
+            ports.put(ConnectorType.DC_ULTRA, p.dcUltraChargers());
+            ports.put(ConnectorType.DC_COMBO, p.dcComboChargers());
+            return ports;
+        }
+        ChargingStations s = stationRepo.findById(stationId).orElse(null);
+        if (s == null) {
+            return null;
+        }
+        ports.put(ConnectorType.LEVEL2, orZero(s.getLevel2Chargers()));
+        ports.put(ConnectorType.DC_FAST, orZero(s.getDcFastChargers()));
+        ports.put(ConnectorType.DC_ULTRA, orZero(s.getDcUltraChargers()));
+        ports.put(ConnectorType.DC_COMBO, orZero(s.getDcComboChargers()));
+        return ports;
+    }
+
+    private void trim() {
+        LocalDate today = LocalDate.now();
+        cache.keySet().removeIf(k -> k.date().isBefore(today));
+        if (cache.size() >= MAX_ENTRIES) {
+            cache.clear();
+        }
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
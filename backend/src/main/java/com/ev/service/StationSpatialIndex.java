@@ -0,0 +1,300 @@
+package com.ev.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ev.model.ChargingStations;
+import com.ev.model.ConnectorType;
+import com.ev.repository.ChargingStationRepository;
+
+/**
+ * In-memory geohash-style grid of station coordinates.
+ *
+ * Stations are bucketed into fixed lat/lng cells so a radius or k-nearest
+ * search only touches the cells around the query point instead of scanning
+ * the whole charging_stations table. The index holds ids, coordinates and the
+ * few attributes search filters need; callers hydrate the matching rows from
+ * the database.
+ */
+@Service
+public class StationSpatialIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StationSpatialIndex.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    // ~5.5 km cells: a default 5 km radius search touches at most 9 cells
+    private static final double CELL_DEGREES = 0.05;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    private final Map<Long, StationPoint> points = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    public record StationPoint(Long id, double latitude, double longitude, boolean operational,
+                               int level2Chargers, int dcFastChargers, int dcUltraChargers,
+                               int dcComboChargers, int totalSlots) {
+
+        static StationPoint of(ChargingStations s) {
+            return new StationPoint(s.getId(), s.getLatitude(), s.getLongitude(),
+                    "operational".equalsIgnoreCase(s.getStatus()),
+                    orZero(s.getLevel2Chargers()), orZero(s.getDcFastChargers()),
+                    orZero(s.getDcUltraChargers()), orZero(s.getDcComboChargers()),
+                    orZero(s.getTotalSlots()));
+        }
+
+        public boolean hasConnector(ConnectorType type) {
+            return switch (type) {
+                case LEVEL2 -> level2Chargers > 0;
+                case DC_FAST -> dcFastChargers > 0;
+                case DC_ULTRA -> dcUltraChargers > 0;
+                case DC_COMBO -> dcComboChargers > 0;
+            };
+        }
+    }
+
+    public record Neighbour(Long stationId, double distanceKm) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        points.clear();
+        cells.clear();
+        for (Object[] row : stationRepo.findAllForSpatialIndex()) {
+            put(new StationPoint((Long) row[0],
+                    ((Number) row[1]).doubleValue(),
+                    ((Number) row[2]).doubleValue(),
+                    "operational".equalsIgnoreCase((String) row[3]),
+                    orZero((Integer) row[4]), orZero((Integer) row[5]),
+                    orZero((Integer) row[6]), orZero((Integer) row[7]),
+                    orZero((Integer) row[8])));
+        }
+        ready = true;
+        log.info("Station spatial index loaded {} stations in {} ms",
+                points.size(), System.currentTimeMillis() - started);
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        ChargingStations station = event.station();
+        if (event.isDeleted() || station.getLatitude() == null || station.getLongitude() == null) {
+            remove(event.stationId());
+        } else {
+            put(StationPoint.of(station));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    public StationPoint get(Long id) {
+        return points.get(id);
+    }
+
+    public void put(StationPoint point) {
+        StationPoint previous = points.put(point.id(), point);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+        cells.computeIfAbsent(cellKey(point.latitude(), point.longitude()),
+                k -> ConcurrentHashMap.newKeySet()).add(point.id());
+    }
+
+    public void remove(Long id) {
+        StationPoint previous = points.remove(id);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+    }
+
+    /**
+     * All stations within {@code radiusKm} of the point that match the filter, closest first.
+     */
+    public List<Neighbour> withinRadius(double lat, double lng, double radiusKm,
+                                        Predicate<StationPoint> filter) {
+        List<Neighbour> result = new ArrayList<>();
+
+        int minRow = row(lat - radiusKm / KM_PER_DEGREE_LAT);
+        int maxRow = row(lat + radiusKm / KM_PER_DEGREE_LAT);
+        double lngSpan = lngDegrees(lat, radiusKm);
+        int minCol = col(lng - lngSpan);
+        int maxCol = col(lng + lngSpan);
+
+        long cellsToVisit = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (lngSpan >= 180 || cellsToVisit > cells.size()) {
+            // Query box is bigger than the populated grid; a flat pass is cheaper
+            for (StationPoint p : points.values()) {
+                if (filter.test(p)) collect(p, lat, lng, radiusKm, result);
+            }
+        } else {
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol; c++) {
+                    Set<Long> ids = cells.get(key(r, c));
+                    if (ids == null) continue;
+                    for (Long id : ids) {
+                        StationPoint p = points.get(id);
+                        if (p != null && filter.test(p)) collect(p, lat, lng, radiusKm, result);
+                    }
+                }
+            }
+        }
+
+        result.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+        return result;
+    }
+
+    /**
+     * The {@code k} closest stations matching the filter that are no further
+     * than {@code maxRadiusKm}, closest first. Searches outward ring by ring and
+     * stops once no unvisited cell can hold a closer station.
+     */
+    public List<Neighbour> nearest(double lat, double lng, int k, double maxRadiusKm,
+                                   Predicate<StationPoint> filter) {
+        if (k <= 0 || points.isEmpty()) {
+            return List.of();
+        }
+
+        PriorityQueue<Neighbour> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Neighbour::distanceKm).reversed());
+
+        int centerRow = row(lat);
+        int centerCol = col(lng);
+        double cellKm = minCellKm(lat, maxRadiusKm);
+        int maxRing = (int) Math.ceil(maxRadiusKm / cellKm) + 1;
+        int seen = 0;
+
+        if ((2L * maxRing + 1) * (2L * maxRing + 1) > 4L * cells.size()) {
+            // Search area dwarfs the populated grid; rank every point instead
+            for (StationPoint p : points.values()) {
+                if (filter.test(p)) offer(best, k, p, lat, lng, maxRadiusKm);
+            }
+            maxRing = -1;
+        }
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+                for (int c = centerCol - ring; c <= centerCol + ring; c++) {
+                    // only the border of the ring; the inside was visited already
+                    if (ring > 0 && r != centerRow - ring && r != centerRow + ring
+                            && c != centerCol - ring && c != centerCol + ring) {
+                        continue;
+                    }
+                    Set<Long> ids = cells.get(key(r, c));
+                    if (ids == null) continue;
+                    for (Long id : ids) {
+                        StationPoint p = points.get(id);
+                        if (p == null) continue;
+                        seen++;
+                        if (filter.test(p)) offer(best, k, p, lat, lng, maxRadiusKm);
+                    }
+                }
+            }
+
+            // Anything outside this ring is at least ring * cellKm away
+            boolean kthIsCloser = best.size() == k && best.peek().distanceKm() <= ring * cellKm;
+            if (kthIsCloser || seen >= points.size()) {
+                break;
+            }
+        }
+
+        List<Neighbour> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+        return result;
+    }
+
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.pow(Math.sin(dLng / 2), 2);
+        return EARTH_RADIUS_KM * 2 * Math.asin(Math.sqrt(a));
+    }
+
+    private void collect(StationPoint p, double lat, double lng, double radiusKm, List<Neighbour> out) {
+        double d = distanceKm(lat, lng, p.latitude(), p.longitude());
+        if (d <= radiusKm) {
+            out.add(new Neighbour(p.id(), d));
+        }
+    }
+
+    // Keeps the k closest candidates in a max-heap keyed on distance
+    private void offer(PriorityQueue<Neighbour> best, int k, StationPoint p,
+                       double lat, double lng, double maxRadiusKm) {
+        double d = distanceKm(lat, lng, p.latitude(), p.longitude());
+        if (d > maxRadiusKm) return;
+        if (best.size() < k) {
+            best.add(new Neighbour(p.id(), d));
+        } else if (d < best.peek().distanceKm()) {
+            best.poll();
+            best.add(new Neighbour(p.id(), d));
+        }
+    }
+
+    private void removeFromCell(StationPoint p) {
+        long key = cellKey(p.latitude(), p.longitude());
+        Set<Long> ids = cells.get(key);
+        if (ids != null) {
+            ids.remove(p.id());
+            if (ids.isEmpty()) {
+                cells.remove(key, ids);
+            }
+        }
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    // Width of one cell in km at the widest-latitude edge of the search area
+    private static double minCellKm(double lat, double radiusKm) {
+        double edgeLat = Math.min(89.0, Math.abs(lat) + radiusKm / KM_PER_DEGREE_LAT);
+        double widthKm = CELL_DEGREES * KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(edgeLat));
+        return Math.max(0.01, Math.min(CELL_DEGREES * KM_PER_DEGREE_LAT, widthKm));
+    }
+
+    private static double lngDegrees(double lat, double km) {
+        double cos = Math.cos(Math.toRadians(lat));
+        return cos < 1e-6 ? 180 : km / (KM_PER_DEGREE_LAT * cos);
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor((Math.max(-90, Math.min(90, lat)) + 90) / CELL_DEGREES);
+    }
+
+    private static int col(double lng) {
+        return (int) Math.floor((Math.max(-180, Math.min(180, lng)) + 180) / CELL_DEGREES);
+    }
+
+    private static long cellKey(double lat, double lng) {
+        return key(row(lat), col(lng));
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
@@ -0,0 +1,251 @@
+package com.ev.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.ev.dto.StationClusterDTO;
+import com.ev.model.ChargingStations;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.ChargingStationRepository;
+
+/**
+ * Pre-aggregated station clusters for web-map tiles (z/x/y, Web Mercator).
+ *
+ * Every zoom level keeps a grid of cluster cells CLUSTER_BITS levels finer
+ * than the tile, i.e. 8x8 cells per tile. Each station contributes to exactly
+ * one cell per zoom level, so adding, moving or removing a station updates
+ * MAX_ZOOM + 1 aggregates and a tile request just reads up to 64 of them.
+ *
+ * Cells hold total slots; free slots subtract the bookings running right now,
+ * taken from one grouped query that is shared by all tiles for busyTtlMs and
+ * dropped as soon as a booking or station changes.
+ */
+@Service
+public class StationTileGrid {
+
+    private static final Logger log = LoggerFactory.getLogger(StationTileGrid.class);
+
+    public static final int MAX_ZOOM = 18;
+    private static final int CLUSTER_BITS = 3;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Value("${app.stations.tiles.busy-ttl-ms:30000}")
+    private long busyTtlMs;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private volatile BusySnapshot busy;
+    // Bumped on every change so a snapshot computed during one is not kept
+    private final AtomicLong busyVersion = new AtomicLong();
+
+    private record Entry(Long id, double lat, double lng, Double minPrice, int totalSlots) {}
+
+    // Slots taken by running bookings per cell key, at every zoom level
+    private record BusySnapshot(Map<Long, Long> byCell, long expiresAt) {}
+
+    // Running aggregate of one cluster cell; prices kept as a multiset so removals stay exact
+    private static final class Cell {
+        final Set<Long> ids = new HashSet<>();
+        double sumLat;
+        double sumLng;
+        long totalSlots;
+        final TreeMap<Double, Integer> prices = new TreeMap<>();
+
+        synchronized void add(Entry e) {
+            ids.add(e.id());
+            sumLat += e.lat();
+            sumLng += e.lng();
+            totalSlots += e.totalSlots();
+            if (e.minPrice() != null) prices.merge(e.minPrice(), 1, Integer::sum);
+        }
+
+        synchronized void remove(Entry e) {
+            ids.remove(e.id());
+            sumLat -= e.lat();
+            sumLng -= e.lng();
+            totalSlots -= e.totalSlots();
+            if (e.minPrice() != null) {
+                prices.computeIfPresent(e.minPrice(), (k, n) -> n > 1 ? n - 1 : null);
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return ids.isEmpty();
+        }
+
+        synchronized StationClusterDTO toDto(Map<Long, Entry> entries, long busySlots) {
+            int count = ids.size();
+            if (count == 0) return null;
+            Double minPrice = prices.isEmpty() ? null : prices.firstKey();
+            long freeSlots = Math.max(0, totalSlots - busySlots);
+            if (count == 1) {
+                // Exact position for a lone station instead of a float-drifted average
+                Entry only = entries.get(ids.iterator().next());
+                if (only != null) {
+                    return new StationClusterDTO(1, only.lat(), only.lng(), minPrice, freeSlots, only.id());
+                }
+            }
+            return new StationClusterDTO(count, sumLat / count, sumLng / count, minPrice, freeSlots, null);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        entries.clear();
+        cells.clear();
+        for (Object[] row : stationRepo.findAllForTileGrid()) {
+            put(new Entry((Long) row[0],
+                    ((Number) row[1]).doubleValue(),
+                    ((Number) row[2]).doubleValue(),
+                    minPrice((Double) row[3], (Double) row[4]),
+                    row[5] != null ? (Integer) row[5] : 0));
+        }
+        invalidateBusy();
+        log.info("Station tile grid loaded {} stations in {} ms",
+                entries.size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStationChanged(StationChangedEvent event) {
+        ChargingStations s = event.station();
+        if (event.isDeleted() || s.getLatitude() == null || s.getLongitude() == null) {
+            remove(event.stationId());
+        } else {
+            put(new Entry(s.getId(), s.getLatitude(), s.getLongitude(),
+                    minPrice(s.getLevel2Rate(), s.getDcFastRate()),
+                    s.getTotalSlots() != null ? s.getTotalSlots() : 0));
+        }
+        invalidateBusy();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        invalidateBusy();
+    }
+
+    /**
+     * Non-empty clusters inside tile z/x/y.
+     */
+    public List<StationClusterDTO> clusters(int z, int x, int y) {
+        int span = 1 << CLUSTER_BITS;
+        Map<Long, Long> busyByCell = busySnapshot().byCell();
+        List<StationClusterDTO> result = new ArrayList<>();
+        for (int cx = x * span; cx < (x + 1) * span; cx++) {
+            for (int cy = y * span; cy < (y + 1) * span; cy++) {
+                long key = key(z, cx, cy);
+                Cell cell = cells.get(key);
+                if (cell == null) continue;
+                StationClusterDTO dto = cell.toDto(entries, busyByCell.getOrDefault(key, 0L));
+                if (dto != null) result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    private BusySnapshot busySnapshot() {
+        BusySnapshot snapshot = busy;
+        long now = System.currentTimeMillis();
+        if (snapshot != null && snapshot.expiresAt() > now) {
+            return snapshot;
+        }
+        long version = busyVersion.get();
+        Map<Long, Long> byCell = new HashMap<>();
+        for (Object[] row : bookingRepo.countActiveBookingsPerStation(LocalDateTime.now())) {
+            Entry e = entries.get((Long) row[0]);
+            if (e == null) continue;
+            // An overbooked station counts as full, not as negative free slots
+            long taken = Math.min(((Number) row[1]).longValue(), e.totalSlots());
+            for (int z = 0; z <= MAX_ZOOM; z++) {
+                byCell.merge(key(z, cellX(e.lng(), z), cellY(e.lat(), z)), taken, Long::sum);
+            }
+        }
+        snapshot = new BusySnapshot(byCell, now + busyTtlMs);
+        if (busyVersion.get() == version) {
+            busy = snapshot;
+        }
+        return snapshot;
+    }
+
+    private void invalidateBusy() {
+        busyVersion.incrementAndGet();
+        busy = null;
+    }
+
+    private synchronized void put(Entry entry) {
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) {
+            removeFromCells(previous);
+        }
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            cells.computeIfAbsent(key(z, cellX(entry.lng(), z), cellY(entry.lat(), z)), k -> new Cell())
+                    .add(entry);
+        }
+    }
+
+    private synchronized void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            removeFromCells(previous);
+        }
+    }
+
+    private void removeFromCells(Entry previous) {
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            long key = key(z, cellX(previous.lng(), z), cellY(previous.lat(), z));
+            Cell cell = cells.get(key);
+            if (cell != null) {
+                cell.remove(previous);
+                if (cell.isEmpty()) cells.remove(key);
+            }
+        }
+    }
+
+    private static Double minPrice(Double level2Rate, Double dcFastRate) {
+        if (level2Rate == null) return dcFastRate;
+        if (dcFastRate == null) return level2Rate;
+        return Math.min(level2Rate, dcFastRate);
+    }
+
+    // Web Mercator cell column at zoom z + CLUSTER_BITS
+    private static int cellX(double lng, int z) {
+        int n = 1 << (z + CLUSTER_BITS);
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    private static int cellY(double lat, int z) {
+        int n = 1 << (z + CLUSTER_BITS);
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, lat));
+        double rad = Math.toRadians(clamped);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    // 5 bits zoom, 21 bits per axis (MAX_ZOOM + CLUSTER_BITS)
+    private static long key(int z, int cx, int cy) {
+        return ((long) z << 42) | ((long) cx << 21) | cy;
+    }
+}
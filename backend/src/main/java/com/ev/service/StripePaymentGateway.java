@@ -0,0 +1,73 @@
+package com.ev.service;
+
+import java.math.BigDecimal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ev.model.PaymentMethod;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+
+// CARD payments through a Stripe Checkout session
+@Component
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "live", matchIfMissing = true)
+public class StripePaymentGateway implements PaymentGateway {
+
+    @Value("${app.frontend.base-url}")
+    private String frontendBaseUrl;
+
+    @Value("${stripe.currency:npr}")
+    private String stripeCurrency;
+
+    @Override
+    public String name() {
+        return "stripe";
+    }
+
+    @Override
+    public boolean supports(PaymentMethod method) {
+        return method == PaymentMethod.CARD;
+    }
+
+    @Override
+    public CheckoutSession createCheckout(CheckoutRequest request) throws StripeException {
+        Long bookingId = request.bookingId();
+        long amountInRs = request.amount().multiply(BigDecimal.valueOf(100)).longValue();
+        long minRs = 100;
+        if (amountInRs < minRs) {
+            amountInRs = minRs;
+        }
+
+        long amountInSmallestUnit = amountInRs; //NPR TO outside money because Stripe doesn't accept less than 1 dollar
+
+        SessionCreateParams params =
+            SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setSuccessUrl(frontendBaseUrl + "/payment-success?bookingId=" + bookingId)
+                .setCancelUrl(frontendBaseUrl + "/payment-failed?bookingId=" + bookingId)
+                .addLineItem(
+                    SessionCreateParams.LineItem.builder()
+                        .setQuantity(1L)
+                        .setPriceData(
+                            SessionCreateParams.LineItem.PriceData.builder()
+                                .setCurrency(stripeCurrency)
+                                .setUnitAmount(amountInSmallestUnit)
+                                .setProductData(
+                                    SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                                        .setName("EV Charging Booking #" + bookingId)
+                                        .build()
+                                )
+                                .build()
+                        )
+                        .build()
+                )
+                .putMetadata("bookingId", String.valueOf(bookingId))
+                .build();
+
+        Session session = Session.create(params);
+        return new CheckoutSession(session.getId(), session.getUrl());
+    }
+}
@@ -0,0 +1,268 @@
+package com.ev.service;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchical timing wheel for one-shot tasks due at a wall-clock time.
+ *
+ * The innermost wheel has {@code wheelSize} buckets of {@code tickMs}; each
+ * overflow wheel is {@code wheelSize} times coarser, so tasks days away cost
+ * the same O(1) insert as tasks seconds away. Only non-empty buckets sit in a
+ * DelayQueue, and the driver thread blocks on it until the earliest bucket is
+ * due: with nothing scheduled soon the thread is simply parked. When a coarse
+ * bucket expires its tasks cascade into finer wheels until they are due, then
+ * run on {@code executor}.
+ */
+public class TimingWheelScheduler implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheelScheduler.class);
+
+    private final DelayQueue<Bucket> queue = new DelayQueue<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Executor executor;
+    private final Wheel wheel;
+    private final Thread driver;
+    private volatile boolean running = true;
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public static final class Timeout {
+        private final long dueMs;
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private volatile Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(long dueMs, Runnable task) {
+            this.dueMs = dueMs;
+            this.task = task;
+        }
+
+        public long dueMs() {
+            return dueMs;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            Bucket b = bucket;
+            if (b != null) {
+                b.remove(this);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public TimingWheelScheduler(String name, long tickMs, int wheelSize, Executor executor) {
+        this.executor = executor;
+        this.wheel = new Wheel(tickMs, wheelSize, System.currentTimeMillis());
+        this.driver = new Thread(this::drive, name);
+        this.driver.setDaemon(true);
+        this.driver.start();
+    }
+
+    /**
+     * Runs {@code task} at {@code dueMs} (epoch millis). Tasks already due run right away.
+     */
+    public Timeout schedule(long dueMs, Runnable task) {
+        Timeout timeout = new Timeout(dueMs, task);
+        pending.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            addOrRun(timeout);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return timeout;
+    }
+
+    // Tasks scheduled and not yet run or cancelled-and-flushed
+    public int size() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        driver.interrupt();
+    }
+
+    private void drive() {
+        while (running) {
+            Bucket bucket;
+            try {
+                bucket = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                while (bucket != null) {
+                    wheel.advanceClock(bucket.getExpiration());
+                    bucket.flush(this::addOrRun);
+                    bucket = queue.poll();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void addOrRun(Timeout timeout) {
+        if (timeout.cancelled) {
+            pending.decrementAndGet();
+            return;
+        }
+        if (!wheel.add(timeout)) {
+            pending.decrementAndGet();
+            try {
+                executor.execute(timeout.task);
+            } catch (RuntimeException e) {
+                log.error("Timing wheel task rejected", e);
+            }
+        }
+    }
+
+    private final class Wheel {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket[] buckets;
+        private long currentTime;
+        private volatile Wheel overflow;
+
+        Wheel(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.currentTime = startMs - startMs % tickMs;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket(pending);
+            }
+        }
+
+        // false when the task is already due
+        boolean add(Timeout timeout) {
+            long due = timeout.dueMs;
+            if (due < currentTime + tickMs) {
+                return false;
+            }
+            if (due < currentTime + interval) {
+                long virtualId = due / tickMs;
+                Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+                bucket.add(timeout);
+                if (bucket.setExpiration(virtualId * tickMs)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            return overflow().add(timeout);
+        }
+
+        void advanceClock(long timeMs) {
+            if (timeMs >= currentTime + tickMs) {
+                currentTime = timeMs - timeMs % tickMs;
+                Wheel next = overflow;
+                if (next != null) {
+                    next.advanceClock(currentTime);
+                }
+            }
+        }
+
+        private Wheel overflow() {
+            Wheel next = overflow;
+            if (next == null) {
+                synchronized (this) {
+                    next = overflow;
+                    if (next == null) {
+                        next = new Wheel(interval, wheelSize, currentTime);
+                        overflow = next;
+                    }
+                }
+            }
+            return next;
+        }
+    }
+
+    // Doubly linked list of timeouts sharing one expiration tick
+    private static final class Bucket implements Delayed {
+        private final Timeout root = new Timeout(-1, null);
+        private final AtomicLong expiration = new AtomicLong(-1);
+        private final AtomicInteger pending;
+
+        Bucket(AtomicInteger pending) {
+            this.pending = pending;
+            root.next = root;
+            root.prev = root;
+        }
+
+        boolean setExpiration(long expirationMs) {
+            return expiration.getAndSet(expirationMs) != expirationMs;
+        }
+
+        long getExpiration() {
+            return expiration.get();
+        }
+
+        synchronized void add(Timeout t) {
+            t.bucket = this;
+            t.next = root;
+            t.prev = root.prev;
+            root.prev.next = t;
+            root.prev = t;
+        }
+
+        // Unlinks a cancelled timeout
+        synchronized void remove(Timeout t) {
+            if (t.bucket != this) return;
+            unlink(t);
+            pending.decrementAndGet();
+        }
+
+        // Empties the bucket, handing every timeout to sink (which may re-add it elsewhere)
+        synchronized void flush(Consumer<Timeout> sink) {
+            Timeout t = root.next;
+            while (t != root) {
+                unlink(t);
+                sink.accept(t);
+                t = root.next;
+            }
+            expiration.set(-1);
+        }
+
+        private void unlink(Timeout t) {
+            t.next.prev = t.prev;
+            t.prev.next = t.next;
+            t.next = null;
+            t.prev = null;
+            t.bucket = null;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(0, expiration.get() - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiration.get(), ((Bucket) other).expiration.get());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ev.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ev.model.PaymentMethod;
+
+// KHALTI and ESEWA; both are still mock redirect pages
+@Component
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "live", matchIfMissing = true)
+public class WalletPaymentGateway implements PaymentGateway {
+
+    @Override
+    public String name() {
+        return "wallet";
+    }
+
+    @Override
+    public boolean supports(PaymentMethod method) {
+        return method == PaymentMethod.KHALTI || method == PaymentMethod.ESEWA;
+    }
+
+    @Override
+    public CheckoutSession createCheckout(CheckoutRequest request) {
+        String url = request.method() == PaymentMethod.KHALTI
+                ? "https://khalti.com/mock-payment?bookingId=" + request.bookingId()
+                : "https://esewa.com/mock-payment?bookingId=" + request.bookingId();
+        return new CheckoutSession(null, url);
+    }
+}
@@ -0,0 +1,241 @@
+package com.ev;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.ev.configuration.jwtUtil;
+import com.ev.model.ChargerOperator;
+import com.ev.model.ChargingStations;
+import com.ev.model.EmailOutboxStatus;
+import com.ev.model.EvOwner;
+import com.ev.model.Role;
+import com.ev.model.RoleType;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.repository.EmailOutboxRepository;
+import com.ev.repository.RoleRepository;
+import com.ev.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Load test of booking creation with virtual threads on and then off.
+ *
+ * Each run boots the whole application on a random port with the local
+ * payment gateway (GATEWAY_LATENCY_MS per checkout) and a mail sender that
+ * takes MAIL_LATENCY_MS per message. CLIENTS concurrent clients each create
+ * ROUNDS bookings and confirm them through the payment-success callback,
+ * which queues two emails per booking. Bookings per second over the HTTP calls and
+ * the time the outbox takes to drain are logged for both runs; the test only
+ * asserts that every call succeeded and every email went out.
+ *
+ * Needs MySQL, so it only runs when PLAN_TEST_DB_URL is set; see
+ * PaymentIndexPlanTest. DB_USER and DB_PASSWORD are read as by the application.
+ */
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_DB_URL", matches = ".+")
+class BookingCreationLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingCreationLoadTest.class);
+
+    private static final int CLIENTS = 300;
+    private static final int ROUNDS = 4;
+    private static final int STATIONS = 20;
+    private static final long GATEWAY_LATENCY_MS = 200;
+    private static final long MAIL_LATENCY_MS = 20;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final List<Long> stationIds = new ArrayList<>();
+
+    private record Result(double bookingsPerSecond, double drainSeconds) {}
+
+    @Test
+    void bookingThroughputWithAndWithoutVirtualThreads() throws Exception {
+        Result virtual = run(true);
+        Result platform = run(false);
+
+        log.info("{} clients x {} bookings, gateway {} ms, mail {} ms/message: virtual threads {} bookings/s "
+                + "(outbox drained in {} s), platform threads {} bookings/s (outbox drained in {} s)",
+                CLIENTS, ROUNDS, GATEWAY_LATENCY_MS, MAIL_LATENCY_MS,
+                Math.round(virtual.bookingsPerSecond()), String.format("%.1f", virtual.drainSeconds()),
+                Math.round(platform.bookingsPerSecond()), String.format("%.1f", platform.drainSeconds()));
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        SlowMailSender mail = new SlowMailSender();
+        String key = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+        // Command-line arguments, so they win over application.properties
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EvApplication.class)
+                .initializers(ctx -> ctx.getBeanFactory().registerSingleton("mailSender", mail))
+                .run("--spring.datasource.url=" + System.getenv("PLAN_TEST_DB_URL"),
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--jwt.secret=" + key,
+                        "--stripe.secret-key=sk_test_unused",
+                        "--app.admin.email=admin@example.com",
+                        "--app.payments.gateway=local",
+                        "--app.payments.local.latency-ms=" + GATEWAY_LATENCY_MS,
+                        // The bulkhead would otherwise turn most of the load away as "busy"
+                        "--app.payments.checkout.max-concurrent=" + CLIENTS,
+                        "--app.mail.outbox.poll-ms=200")) {
+
+            List<String> tokens = seed(context);
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            AtomicInteger failures = new AtomicInteger();
+
+            long started = System.nanoTime();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> done = new ArrayList<>();
+                for (int c = 0; c < CLIENTS; c++) {
+                    int client = c;
+                    done.add(clients.submit(() -> {
+                        for (int r = 0; r < ROUNDS; r++) {
+                            if (!book(http, base, tokens.get(client % tokens.size()), client * ROUNDS + r)) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> f : done) {
+                    f.get();
+                }
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            assertEquals(0, failures.get(), "failed bookings with virtual threads " + virtualThreads);
+
+            // Emails are sent in the background; time until the outbox is empty
+            EmailOutboxRepository outbox = context.getBean(EmailOutboxRepository.class);
+            while (outbox.countByStatus(EmailOutboxStatus.PENDING) + outbox.countByStatus(EmailOutboxStatus.SENDING) > 0) {
+                Thread.sleep(100);
+            }
+            double drained = (System.nanoTime() - started) / 1e9;
+            assertEquals(2L * CLIENTS * ROUNDS, mail.sent.get());
+
+            return new Result(CLIENTS * ROUNDS / seconds, drained);
+        }
+    }
+
+    // Creates booking n and confirms it; false on any other answer than 200
+    private boolean book(HttpClient http, String base, String token, int n) throws Exception {
+        // Unique slot per booking: one hour, two hours apart on one of the stations
+        LocalDateTime start = LocalDate.now().plusDays(1).atStartOfDay().plusHours(2L * (n / STATIONS));
+        String body = String.format(
+                "{\"stationId\":%d,\"startTime\":\"%s\",\"endTime\":\"%s\",\"connectorType\":\"Level 2\",\"paymentMethod\":\"CARD\"}",
+                stationIds.get(n % STATIONS), start, start.plusHours(1));
+        HttpResponse<String> created = http.send(HttpRequest.newBuilder(URI.create(base + "/bookings"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (created.statusCode() != 200) {
+            log.warn("Booking {} answered {}: {}", n, created.statusCode(), created.body());
+            return false;
+        }
+        long bookingId = json.readTree(created.body()).get("bookingId").asLong();
+        HttpResponse<String> confirmed = http.send(HttpRequest.newBuilder(
+                        URI.create(base + "/bookings/" + bookingId + "/payment-success?gatewayPaymentId=load_" + n))
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return confirmed.statusCode() == 200;
+    }
+
+    // STATIONS stations under one operator, and a token per EV owner
+    private List<String> seed(ConfigurableApplicationContext context) {
+        RoleRepository roleRepo = context.getBean(RoleRepository.class);
+        UserRepository userRepo = context.getBean(UserRepository.class);
+        ChargingStationRepository stationRepo = context.getBean(ChargingStationRepository.class);
+        jwtUtil jwt = context.getBean(jwtUtil.class);
+
+        ChargerOperator operator = new ChargerOperator();
+        operator.setEmail("operator@example.com");
+        operator.setFullname("Operator");
+        operator.setCompanyName("Company");
+        operator.setRoles(new HashSet<>(Set.of(role(roleRepo, RoleType.ROLE_CHARGER_OPERATOR))));
+        operator = userRepo.save(operator);
+
+        List<ChargingStations> stations = new ArrayList<>();
+        for (int i = 0; i < STATIONS; i++) {
+            ChargingStations s = new ChargingStations();
+            s.setOperator(operator);
+            s.setName("Station " + i);
+            s.setLocation("Kathmandu");
+            s.setAddress("Main road");
+            s.setCity("Kathmandu");
+            s.setState("Bagmati");
+            s.setZipCode("44600");
+            s.setLevel2Chargers(2);
+            s.setDcFastChargers(1);
+            s.setLevel2Rate(12.0);
+            s.setDcFastRate(30.0);
+            s.setLatitude(27.7172);
+            s.setLongitude(85.3240);
+            s.setCreatedAt(LocalDateTime.now());
+            s.setUpdatedAt(LocalDateTime.now());
+            stations.add(s);
+        }
+        stationIds.clear();
+        stationRepo.saveAll(stations).forEach(s -> stationIds.add(s.getId()));
+
+        Role evOwnerRole = role(roleRepo, RoleType.ROLE_EV_OWNER);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            EvOwner owner = new EvOwner();
+            owner.setEmail("owner" + i + "@example.com");
+            owner.setFullname("Owner " + i);
+            owner.setRoles(new HashSet<>(Set.of(evOwnerRole)));
+            owner = userRepo.save(owner);
+            tokens.add(jwt.generateToken(owner.getEmail(), "EV_OWNER", owner.getUser_id()));
+        }
+        return tokens;
+    }
+
+    private static Role role(RoleRepository roleRepo, RoleType name) {
+        return roleRepo.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(name);
+            return roleRepo.save(role);
+        });
+    }
+
+    // Stand-in for SMTP: MAIL_LATENCY_MS per message on the calling thread
+    static class SlowMailSender extends JavaMailSenderImpl {
+
+        final AtomicInteger sent = new AtomicInteger();
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            try {
+                Thread.sleep(MAIL_LATENCY_MS * mimeMessages.length);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.addAndGet(mimeMessages.length);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.ev.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import jakarta.servlet.FilterChain;
+
+/**
+ * Multi-threaded timing of JwtRequestFilter under the logging it used to do
+ * and the logging it does now. Both write to the same file standing in for
+ * the console, so the difference is the logging path alone:
+ *
+ * - old: the synchronized System.out.println lines the filter printed per
+ *   request (the bearer token, the user, or the missing token);
+ * - new: SLF4J at the shipped INFO level behind the AsyncAppender settings
+ *   of logback-spring.xml, where the per-request lines are DEBUG;
+ * - new at DEBUG: the same async appender with the rejection lines enabled.
+ *
+ * One request in ten carries no token and is rejected. Throughputs are
+ * logged; the only assertion is that the shipped path beats the old one.
+ */
+class JwtRequestFilterThroughputTest {
+
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(JwtRequestFilterThroughputTest.class);
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 20_000;
+    private static final int USERS = 64;
+
+    private final List<String> tokens = new ArrayList<>();
+    private JwtRequestFilter filter;
+    private PrintStream originalOut;
+    private PrintStream console;
+    private Logger filterLogger;
+    private AsyncAppender async;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jwtUtil jwt = new jwtUtil();
+        ReflectionTestUtils.setField(jwt, "base64Key",
+                Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes()));
+        jwt.init();
+        for (int i = 0; i < USERS; i++) {
+            tokens.add(jwt.generateToken("user" + i + "@example.com", "EV_OWNER", (long) i));
+        }
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10_000);
+        filter = new JwtRequestFilter(jwt, cache);
+
+        // Console stand-in: a real file, autoflushed like stdout
+        File sink = File.createTempFile("filter-throughput", ".log");
+        sink.deleteOnExit();
+        originalOut = System.out;
+        console = new PrintStream(new FileOutputStream(sink), true);
+        System.setOut(console);
+
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %t --- [%X{requestId}] %logger{39} : %m%n");
+        encoder.start();
+        ConsoleAppender<ILoggingEvent> consoleAppender = new ConsoleAppender<>();
+        consoleAppender.setContext(context);
+        consoleAppender.setEncoder(encoder);
+        consoleAppender.start();
+        async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(20);
+        async.setNeverBlock(true);
+        async.setIncludeCallerData(false);
+        async.addAppender(consoleAppender);
+        async.start();
+
+        filterLogger = context.getLogger(JwtRequestFilter.class);
+        filterLogger.setAdditive(false);
+        filterLogger.addAppender(async);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filterLogger.detachAppender(async);
+        filterLogger.setAdditive(true);
+        filterLogger.setLevel(null);
+        async.stop();
+        System.setOut(originalOut);
+        console.close();
+    }
+
+    @Test
+    void asyncSlf4jPathOutrunsThePrintlnPath() throws Exception {
+        filterLogger.setLevel(Level.INFO);
+        // Warm up both paths (JIT, token cache) before timing
+        run(true, 2_000);
+        run(false, 2_000);
+
+        double old = run(true, REQUESTS_PER_THREAD);
+        double shipped = run(false, REQUESTS_PER_THREAD);
+        filterLogger.setLevel(Level.DEBUG);
+        double debug = run(false, REQUESTS_PER_THREAD);
+
+        // Logback's console target follows System.out, so report to the real one
+        System.setOut(originalOut);
+        log.info("JwtRequestFilter, {} threads x {} requests: System.out {} req/s, async SLF4J at INFO {} req/s "
+                + "({}x), at DEBUG {} req/s", THREADS, REQUESTS_PER_THREAD, Math.round(old), Math.round(shipped),
+                String.format("%.1f", shipped / old), Math.round(debug));
+        assertTrue(shipped > old, "shipped " + shipped + " req/s vs old " + old + " req/s");
+    }
+
+    // Requests per second over all threads
+    private double run(boolean legacyLogging, int requestsPerThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            tasks.add(() -> {
+                int authenticated = 0;
+                for (int i = 0; i < requestsPerThread; i++) {
+                    authenticated += request(legacyLogging, i % 10 == 0 ? null : tokens.get((thread + i) % USERS));
+                }
+                return authenticated;
+            });
+        }
+        long started = System.nanoTime();
+        int authenticated = 0;
+        for (Future<Integer> f : pool.invokeAll(tasks)) {
+            authenticated += f.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        pool.shutdown();
+
+        assertEquals(THREADS * (requestsPerThread - (requestsPerThread + 9) / 10), authenticated);
+        return THREADS * requestsPerThread / seconds;
+    }
+
+    // 1 when the request reached the controller authenticated
+    private int request(boolean legacyLogging, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookings");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        int[] reached = new int[1];
+        FilterChain controller = (req, res) -> {
+            if (legacyLogging) {
+                System.out.println("[JwtRequestFilter] Authenticated user: "
+                        + SecurityContextHolder.getContext().getAuthentication().getName());
+            }
+            reached[0] = 1;
+            SecurityContextHolder.clearContext();
+        };
+        if (legacyLogging) {
+            System.out.println(token != null
+                    ? "[JwtRequestFilter] Token found: " + token
+                    : "[JwtRequestFilter] No Bearer token found");
+        }
+        filter.doFilter(request, response, controller);
+        return reached[0];
+    }
+}
@@ -0,0 +1,96 @@
+package com.ev.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache cache = new VerifiedTokenCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+    }
+
+    @Test
+    void servesUntilExpiryOrRevocation() {
+        long inAnHour = System.currentTimeMillis() + 3_600_000;
+        cache.put("token-a", entry("jti-a", inAnHour));
+        cache.put("token-b", entry("jti-b", System.currentTimeMillis() - 1));
+
+        assertNotNull(cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+
+        cache.revoke("jti-a", inAnHour);
+        assertNull(cache.get("token-a"));
+        assertTrue(cache.isRevoked("jti-a"));
+
+        // A revoked jti is not cached again
+        cache.put("token-a", entry("jti-a", inAnHour));
+        assertNull(cache.get("token-a"));
+    }
+
+    @Test
+    void staysBoundedUnderConcurrentPuts() throws Exception {
+        long inAnHour = System.currentTimeMillis() + 3_600_000;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            pool.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    String token = "token-" + thread + "-" + i;
+                    cache.put(token, entry("jti-" + thread + "-" + i, inAnHour));
+                    cache.get(token);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Each put evicts down below the bound first, so overshoot is at most one per thread
+        assertTrue(cache.size() <= 100 + 8, "size " + cache.size());
+    }
+
+    @Test
+    void fullCacheDropsTheEntryClosestToExpiry() {
+        long now = System.currentTimeMillis();
+        cache.put("token-soon", entry("jti-soon", now + 60_000));
+        for (int i = 0; i < 99; i++) {
+            cache.put("token-" + i, entry("jti-" + i, now + 3_600_000 + i));
+        }
+        assertEquals(100, cache.size());
+
+        cache.put("token-new", entry("jti-new", now + 7_200_000));
+
+        assertEquals(100, cache.size());
+        assertNull(cache.get("token-soon"));
+        assertNotNull(cache.get("token-0"));
+        assertNotNull(cache.get("token-new"));
+    }
+
+    @Test
+    void disabledCacheStoresNothing() {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+        cache.put("token-a", entry("jti-a", System.currentTimeMillis() + 60_000));
+        assertEquals(0, cache.size());
+        assertNull(cache.get("token-a"));
+    }
+
+    private static VerifiedTokenCache.Entry entry(String jti, long exp) {
+        return new VerifiedTokenCache.Entry(jti, "owner@example.com",
+                List.of(new SimpleGrantedAuthority("ROLE_EV_OWNER")), exp);
+    }
+}
@@ -0,0 +1,46 @@
+package com.ev.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Base64;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+
+class jwtUtilTest {
+
+    private final jwtUtil jwt = new jwtUtil();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwt, "base64Key",
+                Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes()));
+        jwt.init();
+    }
+
+    @Test
+    void parsesClaimsOnceFromASignedToken() {
+        String token = jwt.generateToken("owner@example.com", "EV_OWNER,ADMIN", 7L);
+
+        Claims claims = jwt.parseClaims(token);
+
+        assertEquals("owner@example.com", claims.getSubject());
+        assertEquals("EV_OWNER,ADMIN", claims.get("role", String.class));
+        assertEquals(7L, claims.get("userId", Long.class));
+        assertEquals(claims.getId(), jwt.getJti(token));
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        String token = jwt.generateToken("owner@example.com", "EV_OWNER", 7L);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertNull(jwt.parseClaims(tampered));
+        assertFalse(jwt.validateToken("not-a-jwt"));
+    }
+}
@@ -0,0 +1,159 @@
+package com.ev.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ev.dto.BookingResponseDTO;
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.model.ChargerOperator;
+import com.ev.model.ChargingStations;
+import com.ev.model.EvOwner;
+import com.ev.model.PaymentMethod;
+import com.ev.service.BookingListingService;
+import com.ev.service.BookingListingService.BookingPage;
+
+/**
+ * Walks the admin booking listing page by page against the real keyset JPQL
+ * of BookingRepositoryCustomImpl, through BookingListingService so cursors
+ * are encoded and decoded as in production.
+ *
+ * Needs MySQL, so it only runs when PLAN_TEST_DB_URL is set; see
+ * PaymentIndexPlanTest.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=${PLAN_TEST_DB_URL}",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_DB_URL", matches = ".+")
+class BookingPageQueryTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 5, 1, 8, 0);
+    private static final int BOOKINGS = 25;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    private final List<Booking> saved = new ArrayList<>();
+    private BookingListingService service;
+
+    @BeforeEach
+    void seed() {
+        bookingRepo.deleteAll();
+        stationRepo.deleteAll();
+        userRepo.deleteAll();
+
+        ChargerOperator operator = new ChargerOperator();
+        operator.setEmail("operator@example.com");
+        operator.setFullname("Operator");
+        operator.setCompanyName("Company");
+        operator = userRepo.save(operator);
+        EvOwner owner = new EvOwner();
+        owner.setEmail("owner@example.com");
+        owner.setFullname("Owner");
+        owner = userRepo.save(owner);
+        ChargingStations station = stationRepo.save(station(operator));
+
+        // Every pair shares a bookedAt, and the start times run the other way, so both
+        // sorts cross a page boundary inside a tie that only the id breaks
+        saved.clear();
+        for (int i = 1; i <= BOOKINGS; i++) {
+            Booking b = new Booking();
+            b.setEvOwner(owner);
+            b.setStation(station);
+            b.setBookedAt(T0.plusMinutes(i / 2));
+            b.setStartTime(T0.plusDays(1).plusHours((BOOKINGS - i) / 2));
+            b.setEndTime(b.getStartTime().plusMinutes(30));
+            b.setConnectorType("Type 2");
+            b.setEstimatedKwh(20.0);
+            b.setTotalAmount(BigDecimal.TEN);
+            b.setStatus(BookingStatus.CONFIRMED);
+            b.setPaymentMethod(PaymentMethod.CARD);
+            saved.add(b);
+        }
+        bookingRepo.saveAll(saved);
+
+        service = new BookingListingService();
+        ReflectionTestUtils.setField(service, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(service, "countTtlMs", 60_000L);
+    }
+
+    @Test
+    void newestFirstVisitsEveryBookingOnceInOrder() {
+        assertEquals(expected(Comparator.comparing(Booking::getBookedAt).thenComparing(Booking::getId).reversed()),
+                walk("bookedAt,desc", 10));
+    }
+
+    @Test
+    void startTimeAscendingVisitsEveryBookingOnceInOrder() {
+        assertEquals(expected(Comparator.comparing(Booking::getStartTime).thenComparing(Booking::getId)),
+                walk("startTime,asc", 4));
+    }
+
+    @Test
+    void cursorOfOneSortIsRejectedByAnother() {
+        String cursor = service.list("bookedAt,desc", 10, null).nextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> service.list("startTime,asc", 10, cursor));
+    }
+
+    private List<Long> walk(String sort, int limit) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookingPage page = service.list(sort, limit, cursor);
+            page.content().stream().map(BookingResponseDTO::getId).forEach(seen::add);
+            assertEquals(BOOKINGS, page.approxTotal());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    private List<Long> expected(Comparator<Booking> order) {
+        return saved.stream().sorted(order).map(Booking::getId).toList();
+    }
+
+    private static ChargingStations station(ChargerOperator operator) {
+        ChargingStations s = new ChargingStations();
+        s.setOperator(operator);
+        s.setName("Station");
+        s.setLocation("Kathmandu");
+        s.setAddress("Main road");
+        s.setCity("Kathmandu");
+        s.setState("Bagmati");
+        s.setZipCode("44600");
+        s.setLevel2Chargers(2);
+        s.setDcFastChargers(1);
+        s.setLevel2Rate(12.0);
+        s.setDcFastRate(30.0);
+        s.setLatitude(27.7172);
+        s.setLongitude(85.3240);
+        s.setCreatedAt(LocalDateTime.now());
+        s.setUpdatedAt(LocalDateTime.now());
+        return s;
+    }
+}
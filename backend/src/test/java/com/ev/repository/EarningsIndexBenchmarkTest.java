@@ -0,0 +1,160 @@
+package com.ev.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Benchmark and query-plan check for idx_bookings_earnings_kwh: seeds
+ * PLAN_TEST_BOOKINGS bookings (default 1,000,000), checks with EXPLAIN that
+ * the ledger rebuild's grouping reads only the index, and logs the platform
+ * fees it yields next to the old total_amount * rate scan.
+ *
+ * Needs MySQL, so it only runs when PLAN_TEST_DB_URL is set. The schema is
+ * created and dropped by the test: point it at a throwaway database, e.g.
+ * PLAN_TEST_DB_URL=jdbc:mysql://localhost:3306/ev_plan_test?createDatabaseIfNotExist=true
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=${PLAN_TEST_DB_URL}",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_DB_URL", matches = ".+")
+class EarningsIndexBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EarningsIndexBenchmarkTest.class);
+
+    private static final int BOOKINGS = Integer.parseInt(
+            System.getenv().getOrDefault("PLAN_TEST_BOOKINGS", "1000000"));
+    private static final String[] STATUSES = { "CONFIRMED", "COMPLETED", "CANCELLED", "IN_PROGRESS" };
+    private static final String[] METHODS = { "CARD", "KHALTI" };
+
+    private static final String BY_DAY_STATION_METHOD = EarningsRollupRepository.EARNINGS_BY_DAY_STATION_METHOD
+            .replace(":paidStatuses", "'CONFIRMED', 'COMPLETED'");
+    // Platform fees as the rollup holds them after a rebuild, i.e. what /admin/earnings reports
+    private static final String PLATFORM_FEES =
+            "SELECT COALESCE(SUM(g.platform_fees), 0) FROM (" + BY_DAY_STATION_METHOD + ") g";
+    // What the admin totals computed before the stored fees were used
+    private static final String PLATFORM_FEES_FROM_TOTAL =
+            "SELECT COALESCE(SUM(total_amount * 0.07), 0) FROM bookings IGNORE INDEX (idx_bookings_earnings_kwh) " +
+            "WHERE status IN ('CONFIRMED', 'COMPLETED')";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void seed() throws Exception {
+        try (Connection con = dataSource.getConnection(); Statement st = con.createStatement()) {
+            // Bookings only: the referenced users and stations are not needed for the plans
+            st.execute("SET FOREIGN_KEY_CHECKS = 0");
+            st.execute("TRUNCATE TABLE bookings");
+            con.setAutoCommit(false);
+            try (PreparedStatement insert = con.prepareStatement(
+                    "INSERT INTO bookings (user_id, station_id, start_time, end_time, connector_type, estimated_kwh, " +
+                    "total_amount, status, booked_at, payment_method, platform_fee, station_fee, commision_rate) " +
+                    "VALUES (?, ?, ?, ?, 'Type 2', 20, ?, ?, ?, ?, ?, ?, 0.07)")) {
+                LocalDateTime start = LocalDateTime.now().minusDays(365);
+                for (int i = 1; i <= BOOKINGS; i++) {
+                    LocalDateTime bookedAt = start.plusSeconds(i * 30L);
+                    BigDecimal total = BigDecimal.valueOf(200 + i % 800);
+                    BigDecimal platformFee = total.multiply(new BigDecimal("0.07"));
+                    insert.setLong(1, i % 5000 + 1);
+                    insert.setLong(2, i % 300 + 1);
+                    insert.setTimestamp(3, Timestamp.valueOf(bookedAt.plusHours(1)));
+                    insert.setTimestamp(4, Timestamp.valueOf(bookedAt.plusHours(2)));
+                    insert.setBigDecimal(5, total);
+                    insert.setString(6, STATUSES[i % STATUSES.length]);
+                    insert.setTimestamp(7, Timestamp.valueOf(bookedAt));
+                    insert.setString(8, METHODS[i % 7 == 0 ? 1 : 0]);
+                    insert.setBigDecimal(9, platformFee);
+                    insert.setBigDecimal(10, total.subtract(platformFee));
+                    insert.addBatch();
+                    if (i % 5000 == 0) {
+                        insert.executeBatch();
+                        con.commit();
+                    }
+                }
+                insert.executeBatch();
+            }
+            con.commit();
+            con.setAutoCommit(true);
+            st.execute("SET FOREIGN_KEY_CHECKS = 1");
+            st.execute("ANALYZE TABLE bookings");
+        }
+    }
+
+    @Test
+    void rollupPlatformFeesMatchTheOldFormula() throws Exception {
+        // Same figure as the old formula, since the fees were stored at that rate
+        assertEquals(0, scalar(PLATFORM_FEES).compareTo(scalar(PLATFORM_FEES_FROM_TOTAL)));
+        log.info("Platform fees over {} bookings: stored fees {} ms, total_amount scan {} ms", BOOKINGS,
+                time(PLATFORM_FEES), time(PLATFORM_FEES_FROM_TOTAL));
+    }
+
+    @Test
+    void ledgerRebuildGroupingReadsOnlyTheEarningsIndex() throws Exception {
+        Plan plan = explain(BY_DAY_STATION_METHOD);
+        assertEquals("idx_bookings_earnings_kwh", plan.key());
+        assertTrue(plan.extra().contains("Using index"), plan.extra());
+        log.info("Earnings by day, station and method over {} bookings: {} ms", BOOKINGS, time(BY_DAY_STATION_METHOD));
+    }
+
+    private record Plan(String key, String extra) {}
+
+    private Plan explain(String sql) throws Exception {
+        try (Connection con = dataSource.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            rs.next();
+            String extra = rs.getString("Extra");
+            return new Plan(rs.getString("key"), extra == null ? "" : extra);
+        }
+    }
+
+    private BigDecimal scalar(String sql) throws Exception {
+        try (Connection con = dataSource.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getBigDecimal(1);
+        }
+    }
+
+    // Best of three runs, reading every row of the result
+    private long time(String sql) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long started = System.nanoTime();
+            try (Connection con = dataSource.getConnection();
+                 Statement st = con.createStatement();
+                 ResultSet rs = st.executeQuery(sql)) {
+                while (rs.next()) {
+                    // drain
+                }
+            }
+            best = Math.min(best, (System.nanoTime() - started) / 1_000_000);
+        }
+        return best;
+    }
+}
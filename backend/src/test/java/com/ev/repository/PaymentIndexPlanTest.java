@@ -0,0 +1,113 @@
+package com.ev.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Query-plan regression test for the payments indexes: seeds a few thousand
+ * bookings' worth of payments and checks with EXPLAIN that the latest-payment,
+ * history and gateway-id lookups use their index without a filesort.
+ *
+ * Needs MySQL, so it only runs when PLAN_TEST_DB_URL is set. The schema is
+ * created and dropped by the test: point it at a throwaway database, e.g.
+ * PLAN_TEST_DB_URL=jdbc:mysql://localhost:3306/ev_plan_test?createDatabaseIfNotExist=true
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=${PLAN_TEST_DB_URL}",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_DB_URL", matches = ".+")
+class PaymentIndexPlanTest {
+
+    private static final int BOOKINGS = 5000;
+    private static final int PAYMENTS_PER_BOOKING = 4;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void seed() throws Exception {
+        try (Connection con = dataSource.getConnection(); Statement st = con.createStatement()) {
+            // Payments only: the referenced bookings and users are not needed for the plans
+            st.execute("SET FOREIGN_KEY_CHECKS = 0");
+            st.execute("TRUNCATE TABLE payments");
+            con.setAutoCommit(false);
+            try (PreparedStatement insert = con.prepareStatement(
+                    "INSERT INTO payments (booking_id, user_id, payment_method, status, amount, currency, " +
+                    "gateway_payment_id, created_at) VALUES (?, ?, 'CARD', 'FAILED', 100, 'NPR', ?, ?)")) {
+                LocalDateTime start = LocalDateTime.now().minusDays(30);
+                long n = 0;
+                for (long booking = 1; booking <= BOOKINGS; booking++) {
+                    for (int i = 0; i < PAYMENTS_PER_BOOKING; i++) {
+                        insert.setLong(1, booking);
+                        insert.setLong(2, booking % 500);
+                        insert.setString(3, "cs_" + (++n));
+                        insert.setTimestamp(4, Timestamp.valueOf(start.plusMinutes(n)));
+                        insert.addBatch();
+                    }
+                    if (booking % 500 == 0) insert.executeBatch();
+                }
+            }
+            con.commit();
+            con.setAutoCommit(true);
+            st.execute("SET FOREIGN_KEY_CHECKS = 1");
+            st.execute("ANALYZE TABLE payments");
+        }
+    }
+
+    @Test
+    void latestPaymentOfBookingUsesBookingIndex() throws Exception {
+        // SQL of findFirstByBookingIdOrderByCreatedAtDescIdDesc
+        Plan plan = explain("SELECT * FROM payments WHERE booking_id = 1234 " +
+                "ORDER BY created_at DESC, id DESC LIMIT 1");
+        assertEquals("idx_payments_booking_created", plan.key());
+        assertFalse(plan.extra().contains("filesort"), plan.extra());
+    }
+
+    @Test
+    void paymentHistoryOfUserUsesUserIndex() throws Exception {
+        // SQL of findByUserIdOrderByCreatedAtDesc
+        Plan plan = explain("SELECT * FROM payments WHERE user_id = 42 ORDER BY created_at DESC");
+        assertEquals("idx_payments_user_created", plan.key());
+        assertFalse(plan.extra().contains("filesort"), plan.extra());
+    }
+
+    @Test
+    void gatewayPaymentIdLookupIsUnique() throws Exception {
+        Plan plan = explain("SELECT * FROM payments WHERE gateway_payment_id = 'cs_777'");
+        assertEquals("uk_payments_gateway_payment_id", plan.key());
+        assertEquals("const", plan.type());
+    }
+
+    private record Plan(String type, String key, String extra) {}
+
+    private Plan explain(String sql) throws Exception {
+        try (Connection con = dataSource.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            rs.next();
+            String extra = rs.getString("Extra");
+            return new Plan(rs.getString("type"), rs.getString("key"), extra == null ? "" : extra);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ev.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ev.dto.PageCursor;
+import com.ev.dto.StationResponseDTO;
+import com.ev.model.ChargerOperator;
+import com.ev.model.ChargingStations;
+import com.ev.model.Role;
+import com.ev.model.RoleType;
+import com.ev.repository.ChargingStationRepositoryCustom.StationSortKey;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Statement-count regression test for the station listing: a keyset page is
+ * one SELECT no matter how many operators own the stations, where loading the
+ * entities and mapping them to DTOs costs an extra query per operator.
+ *
+ * Counts come from Hibernate statistics. Needs MySQL (the station location
+ * column is spatial), so it only runs when PLAN_TEST_DB_URL is set; see
+ * PaymentIndexPlanTest.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=${PLAN_TEST_DB_URL}",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = "PLAN_TEST_DB_URL", matches = ".+")
+class StationListingStatementCountTest {
+
+    private static final int OPERATORS = 20;
+    private static final int STATIONS_PER_OPERATOR = 10;
+
+    @Autowired
+    private ChargingStationRepository stationRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RoleRepository roleRepo;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void seed() {
+        stationRepo.deleteAll();
+        userRepo.deleteAll();
+        roleRepo.deleteAll();
+
+        Role role = new Role();
+        role.setName(RoleType.ROLE_CHARGER_OPERATOR);
+        role = roleRepo.save(role);
+
+        List<ChargingStations> stations = new ArrayList<>();
+        for (int o = 0; o < OPERATORS; o++) {
+            ChargerOperator operator = new ChargerOperator();
+            operator.setEmail("operator" + o + "@example.com");
+            operator.setFullname("Operator " + o);
+            operator.setCompanyName("Company " + o);
+            operator.setRoles(new HashSet<>(Set.of(role)));
+            operator = userRepo.save(operator);
+            for (int i = 0; i < STATIONS_PER_OPERATOR; i++) {
+                stations.add(station(operator, String.format("Station %03d", o * STATIONS_PER_OPERATOR + i)));
+            }
+        }
+        stationRepo.saveAll(stations);
+
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void everyKeysetPageIsOneStatement() {
+        List<StationResponseDTO> first = stationRepo.findStationPage(StationSortKey.NAME, Sort.Direction.ASC, null, 25);
+        assertEquals(25, first.size());
+        assertEquals(1, stats.getPrepareStatementCount());
+
+        StationResponseDTO last = first.get(first.size() - 1);
+        stats.clear();
+        List<StationResponseDTO> second = stationRepo.findStationPage(StationSortKey.NAME, Sort.Direction.ASC,
+                new PageCursor("name,asc", last.getName(), last.getId()), 25);
+        assertEquals("Station 025", second.get(0).getName());
+        assertEquals(1, stats.getPrepareStatementCount());
+
+        stats.clear();
+        List<StationResponseDTO> all = stationRepo.findStationPage(StationSortKey.CITY, Sort.Direction.DESC, null, null);
+        assertEquals(OPERATORS * STATIONS_PER_OPERATOR, all.size());
+        assertEquals(1, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void mappingEntitiesCostsAQueryPerOperator() {
+        List<StationResponseDTO> dtos = stationRepo.findAll().stream().map(StationResponseDTO::new).toList();
+
+        assertEquals(OPERATORS * STATIONS_PER_OPERATOR, dtos.size());
+        assertTrue(stats.getPrepareStatementCount() > OPERATORS,
+                "expected N+1 on operators, got " + stats.getPrepareStatementCount());
+    }
+
+    private static ChargingStations station(ChargerOperator operator, String name) {
+        ChargingStations s = new ChargingStations();
+        s.setOperator(operator);
+        s.setName(name);
+        s.setLocation("Kathmandu");
+        s.setAddress("Main road");
+        s.setCity(name.endsWith("0") ? "Lalitpur" : "Kathmandu");
+        s.setState("Bagmati");
+        s.setZipCode("44600");
+        s.setLevel2Chargers(2);
+        s.setDcFastChargers(1);
+        s.setLevel2Rate(12.0);
+        s.setDcFastRate(30.0);
+        s.setLatitude(27.7172);
+        s.setLongitude(85.3240);
+        s.setCreatedAt(LocalDateTime.now());
+        s.setUpdatedAt(LocalDateTime.now());
+        return s;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.repository.BookingRepository;
+
+class ActiveBookingCountsTest {
+
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private final List<Integer> chunkSizes = new ArrayList<>();
+    private ActiveBookingCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        // Even station ids have id % 3 bookings running
+        when(bookingRepo.countActiveBookingsByStationIds(anyList(), any())).thenAnswer(inv -> {
+            List<Long> ids = inv.getArgument(0);
+            chunkSizes.add(ids.size());
+            return ids.stream()
+                    .filter(id -> id % 2 == 0 && id % 3 != 0)
+                    .map(id -> new Object[] {id, id % 3})
+                    .toList();
+        });
+        counts = new ActiveBookingCounts();
+        ReflectionTestUtils.setField(counts, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(counts, "chunkSize", 1000);
+    }
+
+    private static List<Long> ids(int n) {
+        return LongStream.rangeClosed(1, n).boxed().toList();
+    }
+
+    @Test
+    void oneQueryRegardlessOfStationCountWithinAChunk() {
+        for (int n : new int[] {1, 10, 500, 1000}) {
+            chunkSizes.clear();
+            Map<Long, Long> result = counts.countActive(ids(n));
+
+            assertEquals(List.of(n), chunkSizes, "stations=" + n);
+            assertEquals(n, result.size());
+        }
+        verify(bookingRepo, times(4)).countActiveBookingsByStationIds(anyList(), any());
+    }
+
+    @Test
+    void hugeListsAreChunked() {
+        Map<Long, Long> result = counts.countActive(ids(2500));
+
+        assertEquals(List.of(1000, 1000, 500), chunkSizes);
+        assertEquals(2500, result.size());
+        assertEquals(2L, result.get(2L));
+        assertEquals(0L, result.get(3L));
+        assertEquals(0L, result.get(6L));
+    }
+
+    @Test
+    void duplicatesAndEmptyInput() {
+        Map<Long, Long> result = counts.countActive(List.of(4L, 4L, 5L));
+        assertEquals(Map.of(4L, 1L, 5L, 0L), result);
+        assertEquals(List.of(2), chunkSizes);
+
+        chunkSizes.clear();
+        assertEquals(Map.of(), counts.countActive(List.of()));
+        verify(bookingRepo, times(1)).countActiveBookingsByStationIds(anyList(), any());
+        verify(bookingRepo, never()).countActiveBookingsAtStation(any(), any());
+    }
+}
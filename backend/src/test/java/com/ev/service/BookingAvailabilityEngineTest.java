@@ -0,0 +1,105 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.model.BookingStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.service.BookingAvailabilityEngine.Hold;
+import com.ev.service.BookingAvailabilityEngine.Outcome;
+import com.ev.service.BookingAvailabilityEngine.Slot;
+
+class BookingAvailabilityEngineTest {
+
+    private static final Long STATION = 1L;
+    private static final LocalDateTime TEN = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0)
+            .withSecond(0).withNano(0);
+
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private final List<Object[]> committed = new ArrayList<>();
+    private BookingAvailabilityEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // An existing booking from 10:00 to 11:00
+        committed.add(new Object[] {100L, TEN, TEN.plusHours(1), "Level 2"});
+        when(bookingRepo.findTimelineRows(eq(STATION), any())).thenAnswer(inv -> List.copyOf(committed));
+
+        engine = new BookingAvailabilityEngine();
+        ReflectionTestUtils.setField(engine, "bookingRepo", bookingRepo);
+    }
+
+    @Test
+    void overlappingBookingConflicts() {
+        Hold hold = engine.reserve(STATION, TEN.plusMinutes(30), TEN.plusMinutes(90), "DC Fast");
+
+        assertEquals(Outcome.CONFLICT, hold.outcome());
+        assertEquals(1, engine.slots(STATION, TEN, TEN.plusHours(2)).size());
+    }
+
+    @Test
+    void bookingsStayFifteenMinutesApart() {
+        // Ends at 9:50, only 10 minutes before the 10:00 booking
+        assertEquals(Outcome.CONFLICT,
+                engine.reserve(STATION, TEN.minusHours(1), TEN.minusMinutes(10), "Level 2").outcome());
+        assertTrue(engine.reserve(STATION, TEN.minusHours(1), TEN.minusMinutes(15), "Level 2").reserved());
+
+        // The gap applies after the existing booking too
+        assertEquals(Outcome.CONFLICT,
+                engine.reserve(STATION, TEN.plusMinutes(70), TEN.plusHours(2), "Level 2").outcome());
+        assertTrue(engine.reserve(STATION, TEN.plusMinutes(75), TEN.plusHours(2), "Level 2").reserved());
+    }
+
+    @Test
+    void otherStationsAreIndependent() {
+        when(bookingRepo.findTimelineRows(eq(2L), any())).thenReturn(List.of());
+
+        assertTrue(engine.reserve(2L, TEN, TEN.plusHours(1), "Level 2").reserved());
+    }
+
+    @Test
+    void releasedAndCancelledSlotsFreeTheWindow() {
+        Hold hold = engine.reserve(STATION, TEN.plusHours(2), TEN.plusHours(3), "Level 2");
+        engine.release(hold);
+        assertTrue(engine.reserve(STATION, TEN.plusHours(2), TEN.plusHours(3), "Level 2").reserved());
+
+        engine.onBookingChanged(new BookingChangedEvent(100L, STATION, TEN, TEN.plusHours(1), "Level 2",
+                BookingStatus.CANCELLED, BookingStatus.CONFIRMED));
+        assertTrue(engine.reserve(STATION, TEN, TEN.plusMinutes(30), "Level 2").reserved());
+    }
+
+    @Test
+    void timelineIsReloadedFromTheDatabaseAfterEviction() {
+        engine.slots(STATION, TEN, TEN.plusHours(1));
+        // Another instance commits a booking this engine never saw an event for
+        committed.add(new Object[] {101L, TEN.plusHours(4), TEN.plusHours(5), "Level 2"});
+        assertTrue(engine.reserve(STATION, TEN.plusHours(4), TEN.plusHours(5), "Level 2").reserved());
+
+        engine.evict(STATION);
+        List<Slot> slots = engine.slots(STATION, TEN, TEN.plusHours(6));
+
+        assertEquals(List.of(100L, 101L), slots.stream().map(Slot::bookingId).toList());
+        assertFalse(engine.reserve(STATION, TEN.plusHours(4), TEN.plusHours(5), "Level 2").reserved());
+        verify(bookingRepo, times(2)).findTimelineRows(eq(STATION), any());
+
+        // A bulk change drops every timeline
+        engine.onBookingChanged(BookingChangedEvent.bulk());
+        engine.slots(STATION, TEN, TEN.plusHours(1));
+        verify(bookingRepo, times(3)).findTimelineRows(eq(STATION), any());
+    }
+}
@@ -0,0 +1,123 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.dto.PageCursor;
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.model.ChargingStations;
+import com.ev.model.EvOwner;
+import com.ev.model.PaymentMethod;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.BookingRepositoryCustom.BookingSortKey;
+import com.ev.service.BookingListingService.BookingPage;
+
+class BookingListingServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 5, 1, 8, 0);
+
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private final List<Booking> bookings = new ArrayList<>();
+    private BookingListingService service;
+
+    @BeforeEach
+    void setUp() {
+        // 25 bookings, newest first as the repository returns them; the seek itself is
+        // covered against MySQL by BookingPageQueryTest
+        for (long id = 25; id >= 1; id--) {
+            bookings.add(booking(id, T0.plusMinutes(id / 2)));
+        }
+        when(bookingRepo.findBookingPage(any(), any(), any(), any(), anyInt()))
+                .thenAnswer(inv -> bookings.subList(0, Math.min(inv.<Integer>getArgument(4), bookings.size())));
+        when(bookingRepo.count()).thenReturn(25L);
+
+        service = new BookingListingService();
+        ReflectionTestUtils.setField(service, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(service, "countTtlMs", 60_000L);
+    }
+
+    @Test
+    void nextCursorSeeksPastTheLastRowAndCountIsCached() {
+        BookingPage first = service.list("bookedAt,desc", 10, null);
+        assertEquals(10, first.content().size());
+        assertEquals(25, first.approxTotal());
+        verify(bookingRepo).findBookingPage(eq(BookingSortKey.BOOKED_AT), eq(Sort.Direction.DESC), isNull(),
+                isNull(), eq(11));
+
+        service.list("bookedAt,desc", 10, first.nextCursor());
+        // Row 10 of the page is booking 16
+        verify(bookingRepo).findBookingPage(eq(BookingSortKey.BOOKED_AT), eq(Sort.Direction.DESC),
+                eq(T0.plusMinutes(8)), eq(16L), eq(11));
+        verify(bookingRepo, times(1)).count();
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        BookingPage page = service.list("bookedAt,desc", 25, null);
+        assertEquals(25, page.content().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void rejectsSortOutsideTheWhitelistAndBadLimitsOrCursors() {
+        assertThrows(IllegalArgumentException.class, () -> service.list("evOwner.password,asc", 10, null));
+        assertThrows(IllegalArgumentException.class, () -> service.list("bookedAt,desc", 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.list("bookedAt,desc", BookingListingService.MAX_LIMIT + 1, null));
+        assertThrows(IllegalArgumentException.class, () -> service.list("bookedAt,desc", 10, "not a cursor"));
+        // Well-formed, but its sort value is not a timestamp
+        String garbled = new PageCursor("bookedAt,desc", "yesterday", 5L).encode();
+        assertThrows(IllegalArgumentException.class, () -> service.list("bookedAt,desc", 10, garbled));
+        verify(bookingRepo, never()).findBookingPage(any(), any(), any(), any(), anyInt());
+        verify(bookingRepo, never()).count();
+    }
+
+    @Test
+    void cursorIsOnlyValidForTheSortItWasIssuedFor() {
+        String cursor = service.list("bookedAt,desc", 10, null).nextCursor();
+
+        assertThrows(IllegalArgumentException.class, () -> service.list("startTime,desc", 10, cursor));
+        assertThrows(IllegalArgumentException.class, () -> service.list("bookedAt,asc", 10, cursor));
+        verify(bookingRepo, times(1)).findBookingPage(any(), any(), any(), any(), anyInt());
+    }
+
+    private static Booking booking(long id, LocalDateTime bookedAt) {
+        EvOwner owner = new EvOwner();
+        owner.setFullname("Owner " + id);
+        ChargingStations station = new ChargingStations();
+        station.setId(100L);
+        station.setName("Station");
+        Booking b = new Booking();
+        b.setId(id);
+        b.setEvOwner(owner);
+        b.setStation(station);
+        b.setStartTime(bookedAt.plusDays(1));
+        b.setEndTime(bookedAt.plusDays(1).plusHours(1));
+        b.setBookedAt(bookedAt);
+        b.setTotalAmount(BigDecimal.TEN);
+        b.setStatus(BookingStatus.CONFIRMED);
+        b.setPaymentMethod(PaymentMethod.CARD);
+        return b;
+    }
+}
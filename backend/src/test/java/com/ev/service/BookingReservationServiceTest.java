@@ -0,0 +1,110 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ev.model.Booking;
+import com.ev.model.ChargingStations;
+import com.ev.repository.BookingRepository;
+import com.ev.service.BookingReservationService.Reservation;
+
+class BookingReservationServiceTest {
+
+    private static final int STATIONS = 3;
+    private static final int ATTEMPTS = 5000;
+
+    private BookingReservationService service;
+    private final List<Booking> saved = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        AtomicLong ids = new AtomicLong();
+        BookingRepository bookingRepo = mock(BookingRepository.class);
+        when(bookingRepo.findTimelineRows(anyLong(), any())).thenReturn(List.of());
+        when(bookingRepo.save(any(Booking.class))).thenAnswer(inv -> {
+            Booking b = inv.getArgument(0);
+            b.setId(ids.incrementAndGet());
+            saved.add(b);
+            return b;
+        });
+
+        BookingAvailabilityEngine engine = new BookingAvailabilityEngine();
+        ReflectionTestUtils.setField(engine, "bookingRepo", bookingRepo);
+
+        service = new BookingReservationService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "availabilityEngine", engine);
+        ReflectionTestUtils.setField(service, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+    }
+
+    @Test
+    void concurrentAttemptsNeverOverbookAStation() throws Exception {
+        List<ChargingStations> stations = new ArrayList<>();
+        for (long i = 1; i <= STATIONS; i++) {
+            ChargingStations s = new ChargingStations();
+            s.setId(i);
+            stations.add(s);
+        }
+        LocalDateTime day = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Reservation>> results = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < ATTEMPTS; i++) {
+            Booking b = new Booking();
+            b.setStation(stations.get(random.nextInt(STATIONS)));
+            b.setStartTime(day.plusMinutes(15L * random.nextInt(48)));
+            b.setEndTime(b.getStartTime().plusMinutes(30L + 15L * random.nextInt(8)));
+            b.setConnectorType("Level 2");
+            results.add(pool.submit(() -> {
+                go.await();
+                return service.reserve(b);
+            }));
+        }
+        go.countDown();
+
+        int reserved = 0;
+        for (Future<Reservation> f : results) {
+            if (f.get().reserved()) reserved++;
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(reserved, saved.size());
+        assertTrue(reserved > 0);
+        for (Booking a : saved) {
+            for (Booking b : saved) {
+                if (a == b || !a.getStation().getId().equals(b.getStation().getId())) continue;
+                // later booking must start no earlier than 15 minutes after the earlier one ends
+                Booking first = a.getStartTime().isBefore(b.getStartTime()) ? a : b;
+                Booking second = first == a ? b : a;
+                assertFalse(second.getStartTime().isBefore(first.getEndTime().plus(BookingAvailabilityEngine.BUFFER)),
+                        "bookings " + first.getId() + " and " + second.getId() + " less than 15 minutes apart");
+            }
+        }
+    }
+}
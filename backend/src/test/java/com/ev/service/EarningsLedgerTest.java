@@ -0,0 +1,244 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.ev.model.BookingStatus;
+import com.ev.model.EarningsLedgerState;
+import com.ev.model.PaymentMethod;
+import com.ev.model.PaymentStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.EarningsLedgerStateRepository;
+import com.ev.repository.EarningsRollupRepository;
+import com.ev.repository.PaymentRepository;
+
+class EarningsLedgerTest {
+
+    private static final LocalDateTime BOOKED_AT = LocalDateTime.of(2026, 3, 14, 9, 30);
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+    private static final BigDecimal PLATFORM_FEE = new BigDecimal("7.00");
+    private static final BigDecimal STATION_FEE = new BigDecimal("93.00");
+
+    private final EarningsRollupRepository rollupRepo = mock(EarningsRollupRepository.class);
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private final EarningsLedgerStateRepository stateRepo = mock(EarningsLedgerStateRepository.class);
+    private final PaymentRepository paymentRepo = mock(PaymentRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final EarningsLedgerState state = new EarningsLedgerState();
+    private EarningsLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> row = List.<Object[]>of(
+                new Object[] {BOOKED_AT, 5L, 10L, PaymentMethod.CARD, AMOUNT, PLATFORM_FEE, STATION_FEE, 24.5});
+        when(bookingRepo.findLedgerRow(1L)).thenReturn(row);
+        state.setGeneration(3);
+        when(stateRepo.findGeneration(EarningsLedgerState.ID)).thenAnswer(inv -> state.getGeneration());
+        when(stateRepo.lockShared(EarningsLedgerState.ID)).thenReturn(Optional.of(state));
+        when(stateRepo.lockExclusive(EarningsLedgerState.ID)).thenReturn(Optional.of(state));
+        when(jdbcTemplate.query(anyString(), any(ResultSetExtractor.class), eq(EarningsLedgerState.ID)))
+                .thenAnswer(inv -> state.getGeneration());
+
+        ledger = new EarningsLedger(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(ledger, "rollupRepo", rollupRepo);
+        ReflectionTestUtils.setField(ledger, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(ledger, "stateRepo", stateRepo);
+        ReflectionTestUtils.setField(ledger, "paymentRepo", paymentRepo);
+        ReflectionTestUtils.setField(ledger, "jdbcTemplate", jdbcTemplate);
+    }
+
+    private static BookingChangedEvent change(BookingStatus to, BookingStatus from) {
+        return new BookingChangedEvent(1L, 10L, BOOKED_AT.plusDays(1), BOOKED_AT.plusDays(1).plusHours(1),
+                "Type 2", to, from);
+    }
+
+    @Test
+    void newBookingCountsOneSessionAndNoEarnings() {
+        ledger.onBookingChanged(change(BookingStatus.IN_PROGRESS, null));
+
+        verify(rollupRepo).addDelta(eq(LocalDate.of(2026, 3, 14)), eq(5L), eq(10L), eq("CARD"), eq(1L), eq(0L),
+                eq(BigDecimal.ZERO), eq(BigDecimal.ZERO), eq(BigDecimal.ZERO), eq(0.0), any());
+    }
+
+    @Test
+    void confirmationAddsAndCancellationRemovesEarnings() {
+        // The confirmation records the successful payment in the same transaction
+        paymentSucceeded();
+        ledger.onBookingChanged(change(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS));
+        verify(rollupRepo).addDelta(eq(LocalDate.of(2026, 3, 14)), eq(5L), eq(10L), eq("CARD"), eq(0L), eq(1L),
+                eq(AMOUNT), eq(PLATFORM_FEE), eq(STATION_FEE), eq(24.5), any());
+
+        ledger.onBookingChanged(change(BookingStatus.CANCELLED, BookingStatus.CONFIRMED));
+        verify(rollupRepo).addDelta(eq(LocalDate.of(2026, 3, 14)), eq(5L), eq(10L), eq("CARD"), eq(0L), eq(-1L),
+                eq(AMOUNT.negate()), eq(PLATFORM_FEE.negate()), eq(STATION_FEE.negate()), eq(-24.5), any());
+    }
+
+    @Test
+    void transitionsBetweenPaidStatesChangeNothing() {
+        ledger.onBookingChanged(change(BookingStatus.COMPLETED, BookingStatus.CONFIRMED));
+        ledger.onBookingChanged(change(BookingStatus.NO_SHOW, BookingStatus.IN_PROGRESS));
+
+        verify(bookingRepo, never()).findLedgerRow(anyLong());
+        verify(rollupRepo, never()).addDelta(any(), anyLong(), anyLong(), anyString(), anyLong(), anyLong(),
+                any(), any(), any(), anyDouble(), any());
+    }
+
+    @Test
+    void startedSessionStaysPaidUntilCancelled() {
+        paymentSucceeded();
+        ledger.onBookingChanged(change(BookingStatus.IN_PROGRESS, BookingStatus.CONFIRMED));
+        ledger.onBookingChanged(change(BookingStatus.COMPLETED, BookingStatus.IN_PROGRESS));
+        verify(rollupRepo, never()).addDelta(any(), anyLong(), anyLong(), anyString(), anyLong(), anyLong(),
+                any(), any(), any(), anyDouble(), any());
+
+        ledger.onBookingChanged(change(BookingStatus.CANCELLED, BookingStatus.IN_PROGRESS));
+        verify(rollupRepo).addDelta(eq(LocalDate.of(2026, 3, 14)), eq(5L), eq(10L), eq("CARD"), eq(0L), eq(-1L),
+                eq(AMOUNT.negate()), eq(PLATFORM_FEE.negate()), eq(STATION_FEE.negate()), eq(-24.5), any());
+    }
+
+    @Test
+    void bulkChangeOrFailedUpdateTriggersRebuild() {
+        ledger.onBookingChanged(BookingChangedEvent.bulk());
+        assertTrue(ledger.isStale());
+        ledger.rebuildIfStale();
+        assertFalse(ledger.isStale());
+        verify(rollupRepo).deleteAllRows();
+        verify(rollupRepo).rebuildFromBookings(eq(List.of("CONFIRMED", "COMPLETED")), any());
+
+        when(bookingRepo.findLedgerRow(1L)).thenThrow(new IllegalStateException("lock wait timeout"));
+        ledger.onBookingChanged(change(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS));
+        assertTrue(ledger.isStale());
+    }
+
+    @Test
+    void rebuildBumpsTheGenerationAndDropsDeltasThatWaitedForIt() {
+        ledger.rebuild();
+        assertEquals(4, state.getGeneration());
+        verify(stateRepo).save(state);
+
+        // The delta read generation 4, then a rebuild on another instance finished while it waited for the lock
+        when(stateRepo.lockShared(EarningsLedgerState.ID)).thenAnswer(inv -> {
+            state.setGeneration(5);
+            return Optional.of(state);
+        });
+        ledger.onBookingChanged(change(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS));
+
+        verify(bookingRepo, never()).findLedgerRow(anyLong());
+        verify(rollupRepo, never()).addDelta(any(), anyLong(), anyLong(), anyString(), anyLong(), anyLong(),
+                any(), any(), any(), anyDouble(), any());
+        assertFalse(ledger.isStale());
+    }
+
+    @Test
+    void changeInABookingTransactionIsAppliedAfterItCommits() {
+        paymentSucceeded();
+        commit(change(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS), () ->
+                verify(rollupRepo, never()).addDelta(any(), anyLong(), anyLong(), anyString(), anyLong(),
+                        anyLong(), any(), any(), any(), anyDouble(), any()));
+
+        verify(rollupRepo).addDelta(eq(LocalDate.of(2026, 3, 14)), eq(5L), eq(10L), eq("CARD"), eq(0L), eq(1L),
+                eq(AMOUNT), eq(PLATFORM_FEE), eq(STATION_FEE), eq(24.5), any());
+    }
+
+    @Test
+    void rebuildBetweenTheCommitAndTheListenerIsNotCountedTwice() {
+        paymentSucceeded();
+        // The rebuild counts the committed booking before the delta runs
+        commit(change(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS), ledger::rebuild);
+
+        assertEquals(4, state.getGeneration());
+        verify(bookingRepo, never()).findLedgerRow(anyLong());
+        verify(rollupRepo, never()).addDelta(any(), anyLong(), anyLong(), anyString(), anyLong(), anyLong(),
+                any(), any(), any(), anyDouble(), any());
+        assertFalse(ledger.isStale());
+    }
+
+    @Test
+    void rebuildHoldingTheStateRowAtCommitCountsTheChange() {
+        paymentSucceeded();
+        when(jdbcTemplate.query(anyString(), any(ResultSetExtractor.class), eq(EarningsLedgerState.ID)))
+                .thenThrow(new CannotAcquireLockException("NOWAIT is set"));
+
+        commit(change(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS), () -> {});
+
+        verify(rollupRepo, never()).addDelta(any(), anyLong(), anyLong(), anyString(), anyLong(), anyLong(),
+                any(), any(), any(), anyDouble(), any());
+        assertFalse(ledger.isStale());
+    }
+
+    @Test
+    void bookingWithoutKwhEstimateCountsZeroKwh() {
+        List<Object[]> row = new ArrayList<>();
+        row.add(new Object[] {BOOKED_AT, 5L, 10L, PaymentMethod.KHALTI, AMOUNT, PLATFORM_FEE, STATION_FEE, null});
+        when(bookingRepo.findLedgerRow(1L)).thenReturn(row);
+
+        ledger.onBookingChanged(change(BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS));
+
+        verify(rollupRepo).addDelta(eq(LocalDate.of(2026, 3, 14)), eq(5L), eq(10L), eq("KHALTI"), eq(0L), eq(1L),
+                eq(AMOUNT), eq(PLATFORM_FEE), eq(STATION_FEE), eq(0.0), any());
+        assertFalse(ledger.isStale());
+    }
+
+    @Test
+    void startupRebuildsALedgerBuiltByAnOlderVersion() {
+        when(rollupRepo.sumAll()).thenReturn(List.<Object[]>of(
+                new Object[] {7L, 0L, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO}));
+        when(bookingRepo.count()).thenReturn(7L);
+        when(stateRepo.findById(EarningsLedgerState.ID)).thenReturn(Optional.of(state));
+
+        // Session counts match, but the rows predate kWh tracking
+        state.setVersion(EarningsLedgerState.CURRENT_VERSION - 1);
+        ledger.verifyOnStartup();
+        verify(rollupRepo).rebuildFromBookings(any(), any());
+        assertEquals(EarningsLedgerState.CURRENT_VERSION, state.getVersion());
+
+        ledger.verifyOnStartup();
+        verify(rollupRepo).rebuildFromBookings(any(), any());
+    }
+
+    private void paymentSucceeded() {
+        when(paymentRepo.existsByBookingIdAndStatus(1L, PaymentStatus.SUCCESS)).thenReturn(true);
+    }
+
+    // Publishes the event inside a simulated booking transaction and commits it; beforeListeners runs
+    // between the commit and the transaction's after-commit callbacks
+    private void commit(BookingChangedEvent event, Runnable beforeListeners) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            ledger.onBookingChanged(event);
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            beforeListeners.run();
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+}
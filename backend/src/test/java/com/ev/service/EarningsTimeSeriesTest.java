@@ -0,0 +1,99 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.repository.BookingRepository;
+import com.ev.service.EarningsTimeSeries.Granularity;
+import com.ev.service.EarningsTimeSeries.Point;
+
+class EarningsTimeSeriesTest {
+
+    private static final Long OPERATOR = 5L;
+
+    private final EarningsLedger ledger = mock(EarningsLedger.class);
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private EarningsTimeSeries series;
+
+    @BeforeEach
+    void setUp() {
+        series = new EarningsTimeSeries();
+        ReflectionTestUtils.setField(series, "earningsLedger", ledger);
+        ReflectionTestUtils.setField(series, "bookingRepo", bookingRepo);
+    }
+
+    private static Object[] day(String date, long sessions, double kwh, String revenue) {
+        return new Object[] {LocalDate.parse(date), sessions, kwh, new BigDecimal(revenue)};
+    }
+
+    @Test
+    void monthsOfDifferentYearsStaySeparateAndEmptyMonthsAreZero() {
+        LocalDate from = LocalDate.of(2025, 11, 15);
+        LocalDate to = LocalDate.of(2026, 2, 10);
+        when(ledger.operatorDailySeries(OPERATOR, from, to)).thenReturn(List.of(
+                day("2025-11-20", 2, 30.0, "186.00"),
+                day("2025-11-28", 1, 10.0, "93.00"),
+                day("2026-02-01", 4, 50.5, "372.00")));
+
+        List<Point> points = series.operatorSeries(OPERATOR, from, to, Granularity.MONTH);
+
+        assertEquals(List.of(
+                new Point(LocalDate.of(2025, 11, 1), 3, 40.0, new BigDecimal("279.00")),
+                new Point(LocalDate.of(2025, 12, 1), 0, 0, BigDecimal.ZERO),
+                new Point(LocalDate.of(2026, 1, 1), 0, 0, BigDecimal.ZERO),
+                new Point(LocalDate.of(2026, 2, 1), 4, 50.5, new BigDecimal("372.00"))), points);
+    }
+
+    @Test
+    void weeksStartOnMondayAcrossTheYearBoundary() {
+        // Wednesday 2025-12-31 to Sunday 2026-01-11
+        LocalDate from = LocalDate.of(2025, 12, 31);
+        LocalDate to = LocalDate.of(2026, 1, 11);
+        when(ledger.operatorDailySeries(OPERATOR, from, to)).thenReturn(List.of(
+                day("2025-12-31", 1, 5.0, "10.00"),
+                day("2026-01-02", 1, 5.0, "10.00"),
+                day("2026-01-05", 2, 8.0, "20.00")));
+
+        List<Point> points = series.operatorSeries(OPERATOR, from, to, Granularity.WEEK);
+
+        assertEquals(2, points.size());
+        assertEquals(new Point(LocalDate.of(2025, 12, 29), 2, 10.0, new BigDecimal("20.00")), points.get(0));
+        assertEquals(new Point(LocalDate.of(2026, 1, 5), 2, 8.0, new BigDecimal("20.00")), points.get(1));
+    }
+
+    @Test
+    void daysAreGapFilledAndReadFromBookingsWhileTheLedgerIsStale() {
+        LocalDate from = LocalDate.of(2026, 3, 1);
+        LocalDate to = LocalDate.of(2026, 3, 3);
+        when(ledger.isStale()).thenReturn(true);
+        when(bookingRepo.operatorDailySeries(OPERATOR, from.atStartOfDay(), LocalDate.of(2026, 3, 4).atStartOfDay()))
+                .thenReturn(List.<Object[]>of(new Object[] {LocalDate.of(2026, 3, 2), 3L, 0, 0}));
+
+        List<Point> points = series.operatorSeries(OPERATOR, from, to, Granularity.DAY);
+
+        assertEquals(List.of(0L, 3L, 0L), points.stream().map(Point::sessions).toList());
+        assertEquals(BigDecimal.ZERO, points.get(1).revenue());
+        verify(ledger, never()).operatorDailySeries(any(), any(), any());
+    }
+
+    @Test
+    void rejectsReversedRange() {
+        assertThrows(IllegalArgumentException.class, () -> series.operatorSeries(OPERATOR,
+                LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 1), Granularity.DAY));
+        verify(bookingRepo, never()).operatorDailySeries(eq(OPERATOR), any(), any());
+    }
+}
@@ -0,0 +1,278 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ev.model.EmailOutbox;
+import com.ev.model.EmailOutboxStatus;
+import com.ev.repository.EmailOutboxRepository;
+import com.ev.service.NotificationTemplates.RenderedNotification;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+
+class EmailOutboxDispatcherTest {
+
+    // Local stand-in for an SMTP server: records deliveries, rejects some recipients
+    static class FakeSmtpSink implements JavaMailSender {
+        final List<MimeMessage> delivered = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(MimeMessage... messages) {
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (MimeMessage m : messages) {
+                try {
+                    if (m.getAllRecipients()[0].toString().startsWith("bounce")) {
+                        failed.put(m, new IllegalStateException("550 mailbox unavailable"));
+                    } else {
+                        delivered.add(m);
+                    }
+                } catch (MessagingException e) {
+                    failed.put(m, e);
+                }
+            }
+            if (!failed.isEmpty()) throw new MailSendException(failed);
+        }
+
+        @Override public MimeMessage createMimeMessage() { return new MimeMessage((Session) null); }
+        @Override public MimeMessage createMimeMessage(InputStream in) { throw new UnsupportedOperationException(); }
+        @Override public void send(SimpleMailMessage... messages) { throw new UnsupportedOperationException(); }
+        @Override public void send(MimeMessagePreparator... preparators) { throw new UnsupportedOperationException(); }
+    }
+
+    private final FakeSmtpSink sink = new FakeSmtpSink();
+    private final List<EmailOutbox> queue = new ArrayList<>();
+    private final EmailOutboxRepository repo = mock(EmailOutboxRepository.class);
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        when(repo.findDue(any(), any())).thenAnswer(inv -> {
+            LocalDateTime now = inv.getArgument(0);
+            return queue.stream()
+                    .filter(e -> e.getStatus() == EmailOutboxStatus.PENDING && !e.getNextAttemptAt().isAfter(now))
+                    .toList();
+        });
+        when(repo.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", sink);
+
+        dispatcher = new EmailOutboxDispatcher(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(dispatcher, "outboxRepo", repo);
+        ReflectionTestUtils.setField(dispatcher, "emailService", emailService);
+        ReflectionTestUtils.setField(dispatcher, "workers", 2);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 2);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffSeconds", 3600L);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(dispatcher, "retentionDays", 7);
+        dispatcher.startPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stopPool();
+    }
+
+    @Test
+    void sendsRetriesWithBackoffAndDeadLetters() {
+        for (int i = 0; i < 5; i++) {
+            queue.add(outbox(i + 1L, "owner" + i + "@example.com"));
+        }
+        EmailOutbox bouncing = outbox(99L, "bounce@example.com");
+        queue.add(bouncing);
+
+        dispatcher.drain();
+
+        assertEquals(5, sink.delivered.size());
+        assertTrue(queue.stream().filter(e -> e != bouncing)
+                .allMatch(e -> e.getStatus() == EmailOutboxStatus.SENT && e.getSentAt() != null));
+        assertEquals(EmailOutboxStatus.PENDING, bouncing.getStatus());
+        assertEquals(1, bouncing.getAttempts());
+        assertTrue(bouncing.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(25)));
+        assertNotNull(bouncing.getLastError());
+
+        // Second failure reaches maxAttempts
+        bouncing.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        dispatcher.drain();
+        assertEquals(EmailOutboxStatus.DEAD, bouncing.getStatus());
+        assertEquals(5, sink.delivered.size());
+    }
+
+    @Test
+    void bodiesAreClearedOnceSentOrDead() {
+        EmailOutbox otp = outbox(1L, "owner@example.com");
+        otp.setBody("Your code is 123456");
+        otp.setHtmlBody("<p>Your code is <b>123456</b></p>");
+        EmailOutbox bouncing = outbox(2L, "bounce@example.com");
+        bouncing.setBody("Your code is 654321");
+        queue.add(otp);
+        queue.add(bouncing);
+
+        dispatcher.drain();
+        assertEquals(EmailOutboxStatus.SENT, otp.getStatus());
+        assertEquals("", otp.getBody());
+        assertNull(otp.getHtmlBody());
+        // Still needed for the retry
+        assertEquals("Your code is 654321", bouncing.getBody());
+
+        bouncing.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        dispatcher.drain();
+        assertEquals(EmailOutboxStatus.DEAD, bouncing.getStatus());
+        assertEquals("", bouncing.getBody());
+        assertEquals("bounce@example.com", bouncing.getRecipient());
+    }
+
+    @Test
+    void claimedRowsAreLeasedAndOnlyExpiredLeasesAreRequeued() {
+        sink.delivered.clear();
+        EmailOutbox e = outbox(1L, "owner@example.com");
+        queue.add(e);
+        // Capture the row as the claim saves it, before delivery updates it
+        List<LocalDateTime> leased = new ArrayList<>();
+        when(repo.saveAll(any())).thenAnswer(inv -> {
+            for (EmailOutbox row : inv.<List<EmailOutbox>>getArgument(0)) {
+                if (row.getStatus() == EmailOutboxStatus.SENDING) leased.add(row.getNextAttemptAt());
+            }
+            return inv.getArgument(0);
+        });
+
+        dispatcher.drain();
+
+        assertEquals(1, leased.size());
+        assertTrue(leased.get(0).isAfter(LocalDateTime.now().plusSeconds(290)));
+
+        dispatcher.recover();
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repo).requeueExpired(now.capture());
+        assertTrue(Duration.between(now.getValue(), LocalDateTime.now()).abs().getSeconds() < 5);
+    }
+
+    @Test
+    void purgeDeletesFinishedRowsPastRetention() {
+        dispatcher.purge();
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repo).deleteFinishedBefore(before.capture());
+        assertTrue(Duration.between(before.getValue(), LocalDateTime.now().minusDays(7)).abs().getSeconds() < 5);
+    }
+
+    @Test
+    void notificationIsWrittenInTheCallersTransactionAndFailuresReachIt() {
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "outboxRepo", repo);
+        RenderedNotification notification = new RenderedNotification("Booking Confirmed", "text", "<p>html</p>");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            emailService.queueMail("owner@example.com", notification);
+            // Inserted right away, not deferred to a synchronization that a crash after commit would skip
+            verify(repo).save(any());
+            assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+
+            // A failed insert is thrown so the booking change rolls back with it
+            when(repo.save(any())).thenThrow(new IllegalStateException("outbox table unavailable"));
+            assertThrows(IllegalStateException.class, () -> emailService.queueMail("owner@example.com", notification));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendsHtmlBodyAsMultipartAlternative() throws Exception {
+        EmailOutbox e = outbox(1L, "owner@example.com");
+        e.setHtmlBody("<p>body</p>");
+        queue.add(e);
+
+        dispatcher.drain();
+
+        assertEquals(EmailOutboxStatus.SENT, e.getStatus());
+        MimeMessage msg = sink.delivered.get(0);
+        msg.saveChanges();
+        // mixed > related > alternative(text/plain, text/html)
+        assertTrue(msg.getContentType().startsWith("multipart/mixed"));
+        MimeMultipart related = (MimeMultipart) ((MimeMultipart) msg.getContent()).getBodyPart(0).getContent();
+        assertTrue(related.getContentType().startsWith("multipart/related"));
+        MimeMultipart alternative = (MimeMultipart) related.getBodyPart(0).getContent();
+        assertTrue(alternative.getContentType().startsWith("multipart/alternative"));
+        assertEquals(2, alternative.getCount());
+        assertTrue(alternative.getBodyPart(0).isMimeType("text/plain"));
+        assertTrue(alternative.getBodyPart(1).isMimeType("text/html"));
+        assertEquals("<p>body</p>", alternative.getBodyPart(1).getContent());
+        assertEquals("Booking Cancelled - #1", msg.getSubject());
+    }
+
+    @Test
+    void sendsTextOnlyRowAsPlainText() throws Exception {
+        queue.add(outbox(1L, "owner@example.com"));
+
+        dispatcher.drain();
+
+        MimeMessage msg = sink.delivered.get(0);
+        msg.saveChanges();
+        assertTrue(msg.isMimeType("text/plain"));
+        assertEquals("body", msg.getContent());
+    }
+
+    @Test
+    void deliversOnVirtualThreads() {
+        dispatcher.stopPool();
+        ReflectionTestUtils.setField(dispatcher, "virtualThreads", true);
+        dispatcher.startPool();
+        for (int i = 0; i < 20; i++) {
+            queue.add(outbox(i + 1L, "owner" + i + "@example.com"));
+        }
+
+        dispatcher.drain();
+
+        assertEquals(20, sink.delivered.size());
+        assertTrue(queue.stream().allMatch(e -> e.getStatus() == EmailOutboxStatus.SENT));
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(30, dispatcher.backoffSeconds(1));
+        assertEquals(60, dispatcher.backoffSeconds(2));
+        assertEquals(120, dispatcher.backoffSeconds(3));
+        assertEquals(3600, dispatcher.backoffSeconds(12));
+    }
+
+    private static EmailOutbox outbox(Long id, String to) {
+        EmailOutbox e = new EmailOutbox(to, "Booking Cancelled - #" + id, "body");
+        e.setId(id);
+        e.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        return e;
+    }
+}
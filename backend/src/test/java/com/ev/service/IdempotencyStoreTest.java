@@ -0,0 +1,140 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore();
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+    }
+
+    @Test
+    void replaysTheFirstResponse() {
+        ResponseEntity<?> first = store.execute("POST /bookings a", "k1", "{stationId=1}", this::created);
+        ResponseEntity<?> replay = store.execute("POST /bookings a", "k1", "{stationId=1}", this::created);
+
+        assertEquals(1, runs.get());
+        assertEquals(first.getBody(), replay.getBody());
+        assertEquals("true", replay.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    void rejectsKeyReuseForADifferentRequest() {
+        store.execute("POST /bookings a", "k1", "{stationId=1}", this::created);
+        ResponseEntity<?> other = store.execute("POST /bookings a", "k1", "{stationId=2}", this::created);
+
+        assertEquals(422, other.getStatusCode().value());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() {
+        store.execute("POST /bookings a", "k1", "f", () -> ResponseEntity.status(500).body("boom"));
+        store.execute("POST /bookings a", "k1", "f", this::created);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void concurrentDuplicateGetsConflict() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<ResponseEntity<?>> first = pool.submit(() -> store.execute("s", "k1", "f", () -> {
+            started.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return created();
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        assertEquals(409, store.execute("s", "k1", "f", this::created).getStatusCode().value());
+
+        finish.countDown();
+        assertEquals(201, first.get(5, TimeUnit.SECONDS).getStatusCode().value());
+        pool.shutdown();
+    }
+
+    @Test
+    void rolledBackTransactionFreesTheKey() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.execute("s", "k1", "f", this::created);
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        store.execute("s", "k1", "f", this::created);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void overflowDropsCompletedEntriesClosestToExpiry() throws Exception {
+        // A request still running under the shortest ttl of all
+        ReflectionTestUtils.setField(store, "ttlMinutes", 1L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<ResponseEntity<?>> running = pool.submit(() -> store.execute("s", "running", "f", () -> {
+            started.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return created();
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 50; i++) {
+            store.execute("s", "short" + i, "f", this::created);
+        }
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        for (int i = 0; i < 99; i++) {
+            store.execute("s", "long" + i, "f", this::created);
+        }
+
+        assertEquals(100, store.size());
+        int runsBefore = runs.get();
+        assertEquals(409, store.execute("s", "running", "f", this::created).getStatusCode().value());
+        store.execute("s", "long0", "f", this::created);
+        assertEquals(runsBefore, runs.get());
+        store.execute("s", "short49", "f", this::created);
+        assertEquals(runsBefore + 1, runs.get());
+
+        finish.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+    }
+
+    private ResponseEntity<?> created() {
+        return ResponseEntity.status(201).body("booking-" + runs.incrementAndGet());
+    }
+}
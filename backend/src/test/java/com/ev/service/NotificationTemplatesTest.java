@@ -0,0 +1,51 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ev.service.NotificationTemplates.Notification;
+import com.ev.service.NotificationTemplates.RenderedNotification;
+
+class NotificationTemplatesTest {
+
+    private final NotificationTemplates templates = new NotificationTemplates();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        templates.load();
+    }
+
+    @Test
+    void rendersSubjectTextAndEscapedHtml() {
+        Map<String, Object> vars = new HashMap<>();
+        vars.put("bookingId", 42L);
+        vars.put("ownerName", "Ram <Admin>");
+        vars.put("stationName", "Thamel & Co");
+
+        RenderedNotification n = templates.render(Notification.BOOKING_CANCELLED_OPERATOR, vars);
+
+        assertEquals("Booking Cancelled - #42", n.subject());
+        assertEquals("Booking #42 at your station cancelled by EV owner Ram <Admin>.", n.text());
+        assertEquals("<p>Booking #42 at your station cancelled by EV owner Ram &lt;Admin&gt;.</p>", n.html());
+    }
+
+    @Test
+    void everyNotificationHasASubject() {
+        for (Notification n : Notification.values()) {
+            RenderedNotification r = templates.render(n, Map.of());
+            assertTrue(!r.subject().isBlank() && !r.text().isBlank() && !r.html().isBlank(), n.name());
+        }
+    }
+
+    @Test
+    void formattersAreSharedPerPattern() {
+        assertSame(NotificationTemplates.formatter("hh:mm a"), NotificationTemplates.formatter("hh:mm a"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.model.ChargingStations;
+import com.ev.model.Payment;
+import com.ev.model.PaymentMethod;
+import com.ev.model.PaymentStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.PaymentRepository;
+import com.ev.service.PaymentGateway.CheckoutSession;
+
+class PaymentCheckoutServiceTest {
+
+    // Gateway stand-in whose latency and failures the test controls
+    static class ScriptedGateway implements PaymentGateway {
+        volatile long latencyMs;
+        volatile boolean failing;
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean blockUntilReleased;
+
+        @Override public String name() { return "scripted"; }
+        @Override public boolean supports(PaymentMethod method) { return true; }
+
+        @Override
+        public CheckoutSession createCheckout(CheckoutRequest request) throws Exception {
+            calls.incrementAndGet();
+            if (blockUntilReleased) release.await(5, TimeUnit.SECONDS);
+            Thread.sleep(latencyMs);
+            if (failing) throw new IllegalStateException("gateway down");
+            return new CheckoutSession("cs_" + request.bookingId(), "https://pay.example/" + request.bookingId());
+        }
+    }
+
+    private final ScriptedGateway gateway = new ScriptedGateway();
+    private final PaymentRepository paymentRepo = mock(PaymentRepository.class);
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private PaymentCheckoutService service;
+
+    @BeforeEach
+    void setUp() {
+        when(paymentRepo.failCheckout(anyLong(), anyString(), any(), any(), any())).thenReturn(1);
+        when(bookingRepo.transitionStatus(anyLong(), any(), any())).thenReturn(1);
+
+        service = new PaymentCheckoutService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "gateways", List.of(gateway));
+        ReflectionTestUtils.setField(service, "paymentRepo", paymentRepo);
+        ReflectionTestUtils.setField(service, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(service, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(service, "timeoutMs", 300L);
+        ReflectionTestUtils.setField(service, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(service, "breakerFailureThreshold", 3);
+        ReflectionTestUtils.setField(service, "breakerOpenMs", 60_000L);
+        service.startPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gateway.release.countDown();
+        service.stopPool();
+    }
+
+    @Test
+    void storesTheCheckoutOnSuccess() throws Exception {
+        CheckoutSession session = service.start(booking(1L), payment(10L)).get(2, TimeUnit.SECONDS);
+
+        assertEquals("https://pay.example/1", session.checkoutUrl());
+        verify(paymentRepo).attachCheckout(eq(10L), eq("cs_1"), eq("https://pay.example/1"), any(),
+                eq(PaymentStatus.PENDING));
+    }
+
+    @Test
+    void timesOutAndCancelsTheBooking() {
+        gateway.latencyMs = 1000;
+
+        CompletableFuture<CheckoutSession> f = service.start(booking(2L), payment(20L));
+
+        assertThrows(ExecutionException.class, () -> f.get(2, TimeUnit.SECONDS));
+        verify(paymentRepo).failCheckout(eq(20L), eq("Payment provider timed out"), any(),
+                eq(PaymentStatus.PENDING), eq(PaymentStatus.FAILED));
+        verify(bookingRepo).transitionStatus(2L, BookingStatus.IN_PROGRESS, BookingStatus.CANCELLED);
+    }
+
+    @Test
+    void opensTheBreakerAfterConsecutiveFailures() {
+        gateway.failing = true;
+        for (long i = 1; i <= 3; i++) {
+            CompletableFuture<CheckoutSession> f = service.start(booking(i), payment(i));
+            assertThrows(ExecutionException.class, () -> f.get(2, TimeUnit.SECONDS));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, service.breakerState("scripted"));
+
+        // Rejected without calling the gateway
+        CompletableFuture<CheckoutSession> f = service.start(booking(4L), payment(4L));
+        assertTrue(f.isCompletedExceptionally());
+        assertEquals(3, gateway.calls.get());
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimit() throws Exception {
+        gateway.blockUntilReleased = true;
+        CompletableFuture<CheckoutSession> a = service.start(booking(1L), payment(1L));
+        CompletableFuture<CheckoutSession> b = service.start(booking(2L), payment(2L));
+
+        CompletableFuture<CheckoutSession> c = service.start(booking(3L), payment(3L));
+        assertTrue(c.isCompletedExceptionally());
+        verify(paymentRepo, timeout(1000)).failCheckout(eq(3L), eq("Payment provider is busy, please try again"),
+                any(), any(), any());
+
+        gateway.release.countDown();
+        a.get(2, TimeUnit.SECONDS);
+        b.get(2, TimeUnit.SECONDS);
+        verify(paymentRepo, atLeastOnce()).attachCheckout(eq(1L), any(), any(), any(), any());
+    }
+
+    private static Booking booking(Long id) {
+        ChargingStations station = new ChargingStations();
+        station.setId(100L);
+        Booking b = new Booking();
+        b.setId(id);
+        b.setStation(station);
+        b.setStartTime(LocalDateTime.now().plusHours(1));
+        b.setEndTime(LocalDateTime.now().plusHours(2));
+        b.setConnectorType("Type 2");
+        b.setStatus(BookingStatus.IN_PROGRESS);
+        return b;
+    }
+
+    private static Payment payment(Long id) {
+        Payment p = new Payment();
+        p.setId(id);
+        p.setPaymentMethod(PaymentMethod.CARD);
+        p.setAmount(BigDecimal.valueOf(500));
+        return p;
+    }
+}
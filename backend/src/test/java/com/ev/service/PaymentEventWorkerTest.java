@@ -0,0 +1,459 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ev.model.Booking;
+import com.ev.model.BookingStatus;
+import com.ev.model.ChargerOperator;
+import com.ev.model.ChargingStations;
+import com.ev.model.EvOwner;
+import com.ev.model.Payment;
+import com.ev.model.PaymentEvent;
+import com.ev.model.PaymentEventStatus;
+import com.ev.model.PaymentMethod;
+import com.ev.model.PaymentStatus;
+import com.ev.model.User;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.PaymentEventRepository;
+import com.ev.repository.PaymentRepository;
+
+class PaymentEventWorkerTest {
+
+    private static final String COMPLETED = "checkout.session.completed";
+    private static final String ASYNC_SUCCEEDED = "checkout.session.async_payment_succeeded";
+    private static final String EXPIRED = "checkout.session.expired";
+
+    // In-memory tables behind the mocked repositories
+    private final TreeMap<Long, PaymentEvent> events = new TreeMap<>();
+    private final Map<Long, Booking> bookings = new HashMap<>();
+    private final Map<Long, Payment> payments = new HashMap<>();
+    private final Map<String, Integer> mailsByRecipient = new HashMap<>();
+    private int bookingBatchLoads;
+    // Runs between reading the PENDING page and the conditional claim, to stand in for another instance
+    private Runnable beforeClaim = () -> {};
+
+    private final PaymentEventRepository eventRepo = mock(PaymentEventRepository.class);
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private final PaymentRepository paymentRepo = mock(PaymentRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private PaymentConfirmationService confirmationService;
+    private PaymentEventWorker worker;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(eventRepo.findDue(any(), any())).thenAnswer(inv -> {
+            LocalDateTime now = inv.getArgument(0);
+            int limit = inv.<Pageable>getArgument(1).getPageSize();
+            return events.values().stream()
+                    .filter(e -> e.getStatus() == PaymentEventStatus.PENDING && !e.getNextAttemptAt().isAfter(now))
+                    .filter(e -> older(e).noneMatch(o -> o.getStatus() == PaymentEventStatus.PROCESSING
+                            || o.getStatus() == PaymentEventStatus.FAILED
+                            || (o.getStatus() == PaymentEventStatus.PENDING && o.getNextAttemptAt().isAfter(now))))
+                    .limit(limit).toList();
+        });
+        when(eventRepo.claim(anyCollection(), anyString(), any())).thenAnswer(inv -> {
+            beforeClaim.run();
+            int claimed = 0;
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                PaymentEvent e = events.get(id);
+                if (e.getStatus() == PaymentEventStatus.PENDING) {
+                    e.setStatus(PaymentEventStatus.PROCESSING);
+                    e.setClaimToken(inv.getArgument(1));
+                    e.setLeaseUntil(inv.getArgument(2));
+                    claimed++;
+                }
+            }
+            return claimed;
+        });
+        when(eventRepo.findByClaimTokenOrderByIdAsc(anyString())).thenAnswer(inv -> events.values().stream()
+                .filter(e -> inv.getArgument(0).equals(e.getClaimToken())).toList());
+        when(eventRepo.findClaimedOutOfOrder(anyString())).thenAnswer(inv -> {
+            String token = inv.getArgument(0);
+            return events.values().stream()
+                    .filter(e -> token.equals(e.getClaimToken()))
+                    .filter(e -> older(e).anyMatch(o -> o.getStatus() != PaymentEventStatus.PROCESSED
+                            && !token.equals(o.getClaimToken())))
+                    .map(PaymentEvent::getId).toList();
+        });
+        when(eventRepo.release(anyCollection(), anyString())).thenAnswer(inv -> {
+            int released = 0;
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                PaymentEvent e = events.get(id);
+                if (inv.getArgument(1).equals(e.getClaimToken())) {
+                    e.setStatus(PaymentEventStatus.PENDING);
+                    e.setClaimToken(null);
+                    released++;
+                }
+            }
+            return released;
+        });
+        when(eventRepo.requeueExpired(any())).thenAnswer(inv -> {
+            LocalDateTime now = inv.getArgument(0);
+            int requeued = 0;
+            for (PaymentEvent e : events.values()) {
+                if (e.getStatus() == PaymentEventStatus.PROCESSING && !e.getLeaseUntil().isAfter(now)) {
+                    e.setStatus(PaymentEventStatus.PENDING);
+                    e.setClaimToken(null);
+                    requeued++;
+                }
+            }
+            return requeued;
+        });
+        when(eventRepo.markProcessed(anyCollection(), any(), any())).thenAnswer(inv -> setStatus(inv));
+        when(eventRepo.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        when(bookingRepo.findWithPartiesByIdIn(anyCollection())).thenAnswer(inv -> {
+            bookingBatchLoads++;
+            return inv.<Collection<Long>>getArgument(0).stream()
+                    .map(bookings::get).filter(b -> b != null).toList();
+        });
+        when(paymentRepo.findByGatewayPaymentIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<String> ids = inv.getArgument(0);
+            return payments.values().stream().filter(p -> ids.contains(p.getGatewayPaymentId())).toList();
+        });
+        when(paymentRepo.findByBookingIdIn(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return payments.values().stream().filter(p -> ids.contains(p.getBooking().getId())).toList();
+        });
+        doAnswer(inv -> {
+            mailsByRecipient.merge(inv.getArgument(0), 1, Integer::sum);
+            return null;
+        }).when(emailService).queueMail(anyString(), any(NotificationTemplates.RenderedNotification.class));
+
+        NotificationTemplates templates = new NotificationTemplates();
+        templates.load();
+        confirmationService = new PaymentConfirmationService();
+        ReflectionTestUtils.setField(confirmationService, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(confirmationService, "paymentRepo", paymentRepo);
+        ReflectionTestUtils.setField(confirmationService, "emailService", emailService);
+        ReflectionTestUtils.setField(confirmationService, "notificationTemplates", templates);
+        ReflectionTestUtils.setField(confirmationService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(confirmationService, "adminEmail", "admin@example.com");
+
+        worker = new PaymentEventWorker(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(worker, "eventRepo", eventRepo);
+        ReflectionTestUtils.setField(worker, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(worker, "paymentRepo", paymentRepo);
+        ReflectionTestUtils.setField(worker, "confirmationService", confirmationService);
+        ReflectionTestUtils.setField(worker, "batchSize", 200);
+        ReflectionTestUtils.setField(worker, "maxAttempts", 3);
+        ReflectionTestUtils.setField(worker, "leaseSeconds", 300L);
+        ReflectionTestUtils.setField(worker, "initialBackoffSeconds", 10L);
+        ReflectionTestUtils.setField(worker, "maxBackoffSeconds", 600L);
+    }
+
+    // Earlier events of the same booking
+    private Stream<PaymentEvent> older(PaymentEvent e) {
+        return events.headMap(e.getId()).values().stream()
+                .filter(o -> o.getBookingId() != null && o.getBookingId().equals(e.getBookingId()));
+    }
+
+    private Object setStatus(InvocationOnMock inv) {
+        Collection<Long> ids = inv.getArgument(0);
+        PaymentEventStatus status = inv.getArgument(1);
+        ids.forEach(id -> events.get(id).setStatus(status));
+        return ids.size();
+    }
+
+    @Test
+    void replaysThousandsOfEventsConfirmingEachBookingOnce() {
+        int bookingCount = 1000;
+        Map<Long, Deque<String>> perBooking = new TreeMap<>();
+        for (long id = 1; id <= bookingCount; id++) {
+            // Every fifth checkout has not been attached to its payment yet when the event arrives
+            addBooking(id, id % 5 == 0 ? null : "cs_" + id);
+            Deque<String> queue = new ArrayDeque<>();
+            switch ((int) (id % 4)) {
+                // Paid; Stripe redelivers the outcome under new event ids
+                case 0 -> queue.addAll(List.of(COMPLETED, COMPLETED, COMPLETED));
+                case 1 -> queue.addAll(List.of(ASYNC_SUCCEEDED, ASYNC_SUCCEEDED));
+                // Abandoned checkout
+                case 2 -> queue.addAll(List.of(EXPIRED, EXPIRED));
+                // Expiry delivered after the payment already succeeded must not cancel
+                default -> queue.addAll(List.of(COMPLETED, EXPIRED));
+            }
+            perBooking.put(id, queue);
+        }
+        // The browser callback got to some bookings first
+        for (long id = 8; id <= bookingCount; id += 8) {
+            when(paymentRepo.findFirstByBookingIdOrderByCreatedAtDescIdDesc(id)).thenReturn(Optional.of(payments.get(id)));
+            when(bookingRepo.findById(id)).thenReturn(Optional.of(bookings.get(id)));
+            assertTrue(confirmationService.confirm(id, "cs_" + id));
+        }
+
+        // Interleave bookings at random while keeping each booking's own order
+        Random random = new Random(42);
+        List<Long> open = new ArrayList<>(perBooking.keySet());
+        long eventId = 0;
+        while (!open.isEmpty()) {
+            int i = random.nextInt(open.size());
+            long bookingId = open.get(i);
+            String type = perBooking.get(bookingId).poll();
+            if (perBooking.get(bookingId).isEmpty()) {
+                open.set(i, open.get(open.size() - 1));
+                open.remove(open.size() - 1);
+            }
+            eventId++;
+            PaymentEvent e = new PaymentEvent("evt_" + eventId, type, bookingId, "cs_" + bookingId);
+            e.setId(eventId);
+            events.put(eventId, e);
+            if (random.nextInt(50) == 0) {
+                // Event for a booking this backend does not know
+                eventId++;
+                PaymentEvent stray = new PaymentEvent("evt_" + eventId, COMPLETED, 999_999L, "cs_stray");
+                stray.setId(eventId);
+                events.put(eventId, stray);
+            }
+        }
+        assertTrue(events.size() > 2000);
+
+        worker.drain();
+
+        assertTrue(events.values().stream().allMatch(e -> e.getStatus() == PaymentEventStatus.PROCESSED));
+        for (long id = 1; id <= bookingCount; id++) {
+            Booking b = bookings.get(id);
+            Payment p = payments.get(id);
+            if (id % 4 == 2) {
+                assertEquals(BookingStatus.CANCELLED, b.getStatus(), "booking " + id);
+                assertEquals(PaymentStatus.FAILED, p.getStatus(), "booking " + id);
+            } else {
+                assertEquals(BookingStatus.CONFIRMED, b.getStatus(), "booking " + id);
+                assertEquals(PaymentStatus.SUCCESS, p.getStatus(), "booking " + id);
+                assertEquals("cs_" + id, p.getGatewayPaymentId());
+            }
+            // One confirmation or one failure notice each, however many deliveries
+            assertEquals(1, mailsByRecipient.get("owner" + id + "@example.com"), "booking " + id);
+        }
+        assertEquals(2 * bookingCount, mailsByRecipient.values().stream().mapToInt(Integer::intValue).sum());
+        // Bookings are loaded once per batch, not once per event
+        assertEquals((events.size() + 199) / 200, bookingBatchLoads);
+    }
+
+    @Test
+    void failingBookingIsRetriedAloneWithBackoffThenParked() {
+        for (long id = 1; id <= 3; id++) {
+            addBooking(id, "cs_" + id);
+            addEvent(id, COMPLETED, id);
+        }
+        // A later event of the failing booking
+        addEvent(4L, EXPIRED, 2L);
+        Payment broken = payments.get(2L);
+        when(paymentRepo.save(broken)).thenAnswer(inv -> {
+            // Rollback: the next attempt reads the payment as it was
+            broken.setStatus(PaymentStatus.PENDING);
+            throw new IllegalStateException("deadlock");
+        });
+
+        worker.drain();
+
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(1L).getStatus());
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(3L).getStatus());
+        assertEquals(BookingStatus.CONFIRMED, bookings.get(3L).getStatus());
+        assertEquals(PaymentEventStatus.PENDING, events.get(2L).getStatus());
+        assertEquals(1, events.get(2L).getAttempts());
+        assertTrue(events.get(2L).getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(8)));
+
+        // Not retried before its backoff is over, and the later expiry does not overtake it
+        worker.drain();
+        assertEquals(1, events.get(2L).getAttempts());
+        assertEquals(PaymentEventStatus.PENDING, events.get(4L).getStatus());
+        assertEquals(BookingStatus.IN_PROGRESS, bookings.get(2L).getStatus());
+
+        makeDue(2L);
+        worker.drain();
+        assertEquals(2, events.get(2L).getAttempts());
+        // 10s, then 20s
+        assertTrue(events.get(2L).getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(18)));
+
+        makeDue(2L);
+        worker.drain();
+        worker.drain();
+        assertEquals(PaymentEventStatus.FAILED, events.get(2L).getStatus());
+        assertEquals(3, events.get(2L).getAttempts());
+        // Parked events hold the rest of their booking
+        assertEquals(PaymentEventStatus.PENDING, events.get(4L).getStatus());
+        assertEquals(BookingStatus.IN_PROGRESS, bookings.get(2L).getStatus());
+        assertEquals(1, mailsByRecipient.get("owner1@example.com"));
+        assertEquals(1, mailsByRecipient.get("owner3@example.com"));
+        assertNull(mailsByRecipient.get("owner2@example.com"));
+        verify(bookingRepo, atMost(8)).findWithPartiesByIdIn(anyCollection());
+    }
+
+    @Test
+    void laterEventIsHandedBackWhenAnotherInstanceClaimedAnEarlierOne() {
+        addBooking(1L, "cs_1");
+        addBooking(2L, "cs_2");
+        addEvent(1L, COMPLETED, 1L);
+        addEvent(2L, EXPIRED, 1L);
+        addEvent(3L, COMPLETED, 2L);
+        // Between our read and our claim the other instance took the booking's first event
+        beforeClaim = () -> {
+            events.get(1L).setStatus(PaymentEventStatus.PROCESSING);
+            events.get(1L).setClaimToken("other");
+            events.get(1L).setLeaseUntil(LocalDateTime.now().plusMinutes(5));
+            beforeClaim = () -> {};
+        };
+
+        worker.drain();
+
+        // The expiry was not applied ahead of the payment
+        assertEquals(PaymentEventStatus.PENDING, events.get(2L).getStatus());
+        assertNull(events.get(2L).getClaimToken());
+        assertEquals(0, events.get(2L).getAttempts());
+        assertEquals(BookingStatus.IN_PROGRESS, bookings.get(1L).getStatus());
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(3L).getStatus());
+
+        // Still held while the other instance works; applied after it is done
+        worker.drain();
+        assertEquals(PaymentEventStatus.PENDING, events.get(2L).getStatus());
+        assertTrue(confirmationService.confirm(bookings.get(1L), payments.get(1L), "cs_1"));
+        events.get(1L).setStatus(PaymentEventStatus.PROCESSED);
+        worker.drain();
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(2L).getStatus());
+        assertEquals(BookingStatus.CONFIRMED, bookings.get(1L).getStatus());
+    }
+
+    @Test
+    void rowsAnotherInstanceClaimedFirstAreLeftToIt() {
+        for (long id = 1; id <= 4; id++) {
+            addBooking(id, "cs_" + id);
+            PaymentEvent e = new PaymentEvent("evt_" + id, COMPLETED, id, "cs_" + id);
+            e.setId(id);
+            events.put(id, e);
+        }
+        // The other instance read the same page and won the UPDATE for events 2 and 3
+        beforeClaim = () -> {
+            for (long id = 2; id <= 3; id++) {
+                events.get(id).setStatus(PaymentEventStatus.PROCESSING);
+                events.get(id).setClaimToken("other");
+                events.get(id).setLeaseUntil(LocalDateTime.now().plusMinutes(5));
+            }
+            beforeClaim = () -> {};
+        };
+
+        worker.drain();
+
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(1L).getStatus());
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(4L).getStatus());
+        assertEquals(PaymentEventStatus.PROCESSING, events.get(2L).getStatus());
+        assertEquals(BookingStatus.IN_PROGRESS, bookings.get(2L).getStatus());
+        assertNull(mailsByRecipient.get("owner3@example.com"));
+
+        // Its lease is still running, so recovery leaves the rows alone
+        worker.recover();
+        assertEquals(PaymentEventStatus.PROCESSING, events.get(2L).getStatus());
+
+        // Once the lease lapses (that instance died) they are re-queued and applied here
+        events.get(2L).setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+        events.get(3L).setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+        worker.recover();
+        worker.drain();
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(2L).getStatus());
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(3L).getStatus());
+        assertEquals(BookingStatus.CONFIRMED, bookings.get(3L).getStatus());
+    }
+
+    @Test
+    void successAfterExpiryIsRecordedWithoutReopeningTheCancelledBooking() {
+        addBooking(1L, "cs_1");
+        addEvent(1L, EXPIRED, 1L);
+        addEvent(2L, COMPLETED, 1L);
+
+        worker.drain();
+
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(2L).getStatus());
+        // The slot was already released; the money is kept on the payment for a refund
+        assertEquals(BookingStatus.CANCELLED, bookings.get(1L).getStatus());
+        assertEquals(PaymentStatus.SUCCESS, payments.get(1L).getStatus());
+        // Only the failure notice, no confirmation
+        assertEquals(1, mailsByRecipient.get("owner1@example.com"));
+    }
+
+    @Test
+    void duplicateSuccessForAStartedBookingChangesNothing() {
+        addBooking(1L, "cs_1");
+        // Confirmed earlier, then moved to IN_PROGRESS at its start time
+        payments.get(1L).setStatus(PaymentStatus.SUCCESS);
+        addEvent(1L, COMPLETED, 1L);
+
+        worker.drain();
+
+        assertEquals(PaymentEventStatus.PROCESSED, events.get(1L).getStatus());
+        assertEquals(BookingStatus.IN_PROGRESS, bookings.get(1L).getStatus());
+        assertTrue(mailsByRecipient.isEmpty());
+    }
+
+    private void makeDue(long eventId) {
+        events.get(eventId).setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+    }
+
+    private void addEvent(long id, String type, long bookingId) {
+        PaymentEvent e = new PaymentEvent("evt_" + id, type, bookingId, "cs_" + bookingId);
+        e.setId(id);
+        events.put(id, e);
+    }
+
+    private void addBooking(long id, String gatewayPaymentId) {
+        User owner = new EvOwner();
+        owner.setUser_id(id);
+        owner.setFullname("Owner " + id);
+        owner.setEmail("owner" + id + "@example.com");
+        User operator = new ChargerOperator();
+        operator.setEmail("operator@example.com");
+        ChargingStations station = new ChargingStations();
+        station.setId(100L);
+        station.setName("Station");
+        station.setOperator(operator);
+
+        Booking b = new Booking();
+        b.setId(id);
+        b.setEvOwner(owner);
+        b.setStation(station);
+        b.setStartTime(LocalDateTime.now().plusHours(1));
+        b.setEndTime(LocalDateTime.now().plusHours(2));
+        b.setConnectorType("Type 2");
+        b.setTotalAmount(BigDecimal.TEN);
+        b.setStatus(BookingStatus.IN_PROGRESS);
+        bookings.put(id, b);
+
+        Payment p = new Payment();
+        p.setId(id);
+        p.setBooking(b);
+        p.setPaymentMethod(PaymentMethod.CARD);
+        p.setAmount(BigDecimal.TEN);
+        p.setGatewayPaymentId(gatewayPaymentId);
+        payments.put(id, p);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.model.PaymentEvent;
+import com.ev.repository.PaymentEventRepository;
+import com.ev.service.PaymentWebhookService.Outcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+
+class PaymentWebhookServiceTest {
+
+    private static final String SECRET = "whsec_test";
+
+    private final PaymentEventRepository eventRepo = mock(PaymentEventRepository.class);
+    private PaymentWebhookService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PaymentWebhookService();
+        ReflectionTestUtils.setField(service, "eventRepo", eventRepo);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "webhookSecret", SECRET);
+        ReflectionTestUtils.setField(service, "toleranceSeconds", 300L);
+    }
+
+    private static String event(String id, String type, String paymentStatus) {
+        return "{\"id\":\"" + id + "\",\"type\":\"" + type + "\",\"data\":{\"object\":{\"id\":\"cs_1\","
+                + "\"payment_status\":\"" + paymentStatus + "\",\"metadata\":{\"bookingId\":\"42\"}}}}";
+    }
+
+    private static String sign(String payload, String secret) throws Exception {
+        long ts = Webhook.Util.getTimeNow();
+        return "t=" + ts + ",v1=" + Webhook.Util.computeHmacSha256(secret, ts + "." + payload);
+    }
+
+    @Test
+    void storesVerifiedPaymentEvent() throws Exception {
+        String payload = event("evt_1", "checkout.session.completed", "paid");
+
+        assertEquals(Outcome.STORED, service.ingest(payload, sign(payload, SECRET)));
+
+        ArgumentCaptor<PaymentEvent> saved = ArgumentCaptor.forClass(PaymentEvent.class);
+        verify(eventRepo).save(saved.capture());
+        assertEquals("evt_1", saved.getValue().getProviderEventId());
+        assertEquals(42L, saved.getValue().getBookingId());
+        assertEquals("cs_1", saved.getValue().getGatewayPaymentId());
+    }
+
+    @Test
+    void rejectsBadSignature() throws Exception {
+        String payload = event("evt_1", "checkout.session.completed", "paid");
+        String header = sign(payload, "whsec_other");
+
+        assertThrows(SignatureVerificationException.class, () -> service.ingest(payload, header));
+        verify(eventRepo, never()).save(any());
+    }
+
+    @Test
+    void redeliveryIsDuplicate() throws Exception {
+        String payload = event("evt_1", "checkout.session.expired", "unpaid");
+        when(eventRepo.save(any())).thenThrow(new DataIntegrityViolationException("uk_payment_events_provider_event"));
+
+        assertEquals(Outcome.DUPLICATE, service.ingest(payload, sign(payload, SECRET)));
+    }
+
+    @Test
+    void ignoresUnrelatedAndUnpaidEvents() throws Exception {
+        String other = event("evt_2", "customer.created", "paid");
+        String unpaid = event("evt_3", "checkout.session.completed", "unpaid");
+
+        assertEquals(Outcome.IGNORED, service.ingest(other, sign(other, SECRET)));
+        assertEquals(Outcome.IGNORED, service.ingest(unpaid, sign(unpaid, SECRET)));
+        verify(eventRepo, never()).save(any());
+    }
+}
@@ -0,0 +1,232 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.dto.NearbyStationDTO;
+import com.ev.model.ChargingStations;
+import com.ev.model.ConnectorType;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.repository.ChargingStationRepository.StationDistance;
+import com.ev.service.StationSearchService.NearbyQuery;
+import com.ev.service.StationSpatialIndex.StationPoint;
+
+class StationSearchServiceTest {
+
+    private static final double LAT = 27.7172;
+    private static final double LNG = 85.3240;
+
+    private final ChargingStationRepository stationRepo = mock(ChargingStationRepository.class);
+    private final StationSpatialIndex stationIndex = mock(StationSpatialIndex.class);
+    private final ActiveBookingCounts activeBookingCounts = mock(ActiveBookingCounts.class);
+    private StationSearchService service;
+
+    private record Row(Long getId, Double getDistanceKm, Integer getTotalSlots) implements StationDistance {}
+
+    @BeforeEach
+    void setUp() {
+        // Hydration returns whichever ids are asked for
+        when(stationRepo.findAllWithOperatorByIdIn(anyList())).thenAnswer(inv -> inv.<Collection<Long>>getArgument(0)
+                .stream().map(StationSearchServiceTest::station).toList());
+
+        service = new StationSearchService();
+        ReflectionTestUtils.setField(service, "stationRepo", stationRepo);
+        ReflectionTestUtils.setField(service, "stationIndex", stationIndex);
+        ReflectionTestUtils.setField(service, "activeBookingCounts", activeBookingCounts);
+        ReflectionTestUtils.setField(service, "spatialIndexEnabled", false);
+    }
+
+    @Test
+    void databasePathPassesALatLongPointAndABoxAroundTheCircle() {
+        when(stationRepo.findNearby(anyString(), anyString(), anyDouble(), isNull(), anyBoolean()))
+                .thenReturn(List.of());
+
+        service.findNearby(new NearbyQuery(LAT, LNG, 10, null, null, false, 0));
+
+        ArgumentCaptor<String> point = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> box = ArgumentCaptor.forClass(String.class);
+        verify(stationRepo).findNearby(point.capture(), box.capture(), eq(10.0), isNull(), eq(false));
+        assertEquals("POINT(" + LAT + " " + LNG + ")", point.getValue());
+
+        double[][] corners = corners(box.getValue());
+        assertEquals(5, corners.length);
+        assertEquals(corners[0][0], corners[4][0]);
+        assertEquals(corners[0][1], corners[4][1]);
+        double minLat = Arrays.stream(corners).mapToDouble(c -> c[0]).min().orElseThrow();
+        double maxLat = Arrays.stream(corners).mapToDouble(c -> c[0]).max().orElseThrow();
+        double minLng = Arrays.stream(corners).mapToDouble(c -> c[1]).min().orElseThrow();
+        double maxLng = Arrays.stream(corners).mapToDouble(c -> c[1]).max().orElseThrow();
+        // Points exactly 10 km north, south, east and west fall inside the box
+        assertTrue(minLat < LAT - 10 / 111.32 && maxLat > LAT + 10 / 111.32);
+        double lngSpan = 10 / (111.32 * Math.cos(Math.toRadians(LAT)));
+        assertTrue(minLng < LNG - lngSpan && maxLng > LNG + lngSpan);
+        // ...but the box stays tight: 1% padding, not a whole-world scan
+        assertTrue(maxLat - minLat < 2 * 10 * 1.02 / 111.32);
+    }
+
+    @Test
+    void boxIsClampedToValidCoordinatesNearThePole() {
+        when(stationRepo.findNearby(anyString(), anyString(), anyDouble(), isNull(), anyBoolean()))
+                .thenReturn(List.of());
+
+        service.findNearby(new NearbyQuery(89.9, 179.9, 50, null, null, false, 0));
+
+        ArgumentCaptor<String> box = ArgumentCaptor.forClass(String.class);
+        verify(stationRepo).findNearby(anyString(), box.capture(), eq(50.0), isNull(), eq(false));
+        for (double[] corner : corners(box.getValue())) {
+            assertTrue(corner[0] >= -90 && corner[0] <= 90, box.getValue());
+            assertTrue(corner[1] >= -180 && corner[1] <= 180, box.getValue());
+        }
+    }
+
+    @Test
+    void databaseResultsAreHydratedInDistanceOrder() {
+        when(stationRepo.findNearby(anyString(), anyString(), anyDouble(), isNull(), anyBoolean()))
+                .thenReturn(List.of(new Row(3L, 0.456, 4), new Row(1L, 2.0, 4), new Row(2L, 7.891, 4)));
+
+        List<NearbyStationDTO> found = service.findNearby(new NearbyQuery(LAT, LNG, 10, null, null, false, 0));
+
+        assertEquals(List.of(3L, 1L, 2L), found.stream().map(NearbyStationDTO::getId).toList());
+        assertEquals(0.46, found.get(0).getDistanceKm());
+        assertEquals(7.89, found.get(2).getDistanceKm());
+    }
+
+    @Test
+    void geoPointFollowsLatitudeAndLongitudeInLatLongOrder() {
+        ChargingStations station = new ChargingStations();
+        station.setLatitude(LAT);
+        station.setLongitude(LNG);
+        ReflectionTestUtils.invokeMethod(station, "onCreate");
+        assertEquals("POINT(" + LAT + " " + LNG + ")", ReflectionTestUtils.getField(station, "geoPoint"));
+
+        station.setLatitude(28.0);
+        ReflectionTestUtils.invokeMethod(station, "onUpdate");
+        assertEquals("POINT(28.0 " + LNG + ")", ReflectionTestUtils.getField(station, "geoPoint"));
+
+        // The column is NOT NULL: stations without coordinates get POINT(0 0)
+        station.setLatitude(null);
+        station.setLongitude(null);
+        ReflectionTestUtils.invokeMethod(station, "onUpdate");
+        assertEquals("POINT(0.0 0.0)", ReflectionTestUtils.getField(station, "geoPoint"));
+    }
+
+    @Test
+    void knnReturnsTheClosestStationsMatchingConnectorAndStatus() {
+        useIndex();
+
+        List<NearbyStationDTO> found = service.findNearby(
+                new NearbyQuery(LAT, LNG, 100, 3, ConnectorType.DC_FAST, true, 0));
+
+        // Stations 1..20 lie 1 km apart northwards; odd ids have DC fast, every fourth is closed
+        assertEquals(List.of(1L, 3L, 5L), found.stream().map(NearbyStationDTO::getId).toList());
+    }
+
+    @Test
+    void knnWithMinFreeSlotsWidensPastFullStations() {
+        useIndex();
+        // The six closest stations are fully booked
+        when(activeBookingCounts.countActive(anyCollection())).thenAnswer(inv -> {
+            Map<Long, Long> counts = new HashMap<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                counts.put(id, id <= 6 ? 4L : 0L);
+            }
+            return counts;
+        });
+
+        List<NearbyStationDTO> found = service.findNearby(new NearbyQuery(LAT, LNG, 100, 2, null, false, 1));
+
+        assertEquals(List.of(7L, 8L), found.stream().map(NearbyStationDTO::getId).toList());
+    }
+
+    @Test
+    void radiusSearchAppliesTheFiltersInsideTheCircle() {
+        useIndex();
+        when(activeBookingCounts.countActive(anyCollection())).thenAnswer(inv -> {
+            Map<Long, Long> counts = new HashMap<>();
+            inv.<Collection<Long>>getArgument(0).forEach(id -> counts.put(id, id == 2L ? 4L : 3L));
+            return counts;
+        });
+
+        // 5 km reaches stations 1..5; 2 is full, 4 is closed
+        List<NearbyStationDTO> found = service.findNearby(new NearbyQuery(LAT, LNG, 5, null, null, true, 1));
+
+        assertEquals(List.of(1L, 3L, 5L), found.stream().map(NearbyStationDTO::getId).toList());
+    }
+
+    @Test
+    void databasePathPushesFiltersIntoSqlAndTrimsToK() {
+        when(stationRepo.findNearby(anyString(), anyString(), anyDouble(), eq("DC_COMBO"), eq(true)))
+                .thenReturn(List.of(new Row(1L, 1.0, 4), new Row(2L, 2.0, 2), new Row(3L, 3.0, 4), new Row(4L, 4.0, 4)));
+        when(activeBookingCounts.countActive(anyCollection())).thenReturn(Map.of(1L, 4L, 2L, 1L));
+
+        List<NearbyStationDTO> found = service.findNearby(
+                new NearbyQuery(LAT, LNG, 100, 2, ConnectorType.DC_COMBO, true, 1));
+
+        assertEquals(List.of(2L, 3L), found.stream().map(NearbyStationDTO::getId).toList());
+    }
+
+    @Test
+    void connectorTypeAcceptsUiLabels() {
+        assertEquals(ConnectorType.LEVEL2, ConnectorType.from("Level 2"));
+        assertEquals(ConnectorType.DC_FAST, ConnectorType.from("dc-fast"));
+        assertEquals(ConnectorType.DC_COMBO, ConnectorType.from("DC_COMBO"));
+        assertNull(ConnectorType.from(" "));
+        assertThrows(IllegalArgumentException.class, () -> ConnectorType.from("CHAdeMO"));
+    }
+
+    // Stations 1..20 on a line 1 km apart going north from the query point
+    private void useIndex() {
+        StationSpatialIndex index = new StationSpatialIndex();
+        for (long id = 1; id <= 20; id++) {
+            index.put(new StationPoint(id, LAT + (id - 0.5) / 111.2, LNG, id % 4 != 0,
+                    2, (int) (id % 2), 0, 0, 4));
+        }
+        ReflectionTestUtils.setField(index, "ready", true);
+        ReflectionTestUtils.setField(service, "stationIndex", index);
+        ReflectionTestUtils.setField(service, "spatialIndexEnabled", true);
+    }
+
+    // [lat, lng] pairs of a WKT POLYGON((lat lng, ...))
+    private static double[][] corners(String polygon) {
+        String inner = polygon.substring(polygon.indexOf("((") + 2, polygon.indexOf("))"));
+        return Arrays.stream(inner.split(","))
+                .map(pair -> Arrays.stream(pair.trim().split(" ")).mapToDouble(Double::parseDouble).toArray())
+                .toArray(double[][]::new);
+    }
+
+    static ChargingStations station(Long id) {
+        ChargingStations s = new ChargingStations();
+        s.setId(id);
+        s.setName("Station " + id);
+        s.setLevel2Chargers(2);
+        s.setDcFastChargers(1);
+        s.setStatus("operational");
+        s.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        s.setUpdatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return s;
+    }
+}
@@ -0,0 +1,121 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.dto.SlotGridDTO;
+import com.ev.model.BookingStatus;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.service.StationSpatialIndex.StationPoint;
+
+class StationSlotGridServiceTest {
+
+    private static final Long STATION = 1L;
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private final StationSpatialIndex stationIndex = mock(StationSpatialIndex.class);
+    private final List<Object[]> committed = new ArrayList<>();
+    private BookingAvailabilityEngine engine;
+    private StationSlotGridService service;
+
+    @BeforeEach
+    void setUp() {
+        when(bookingRepo.findTimelineRows(eq(STATION), any())).thenAnswer(inv -> List.copyOf(committed));
+        // Four Level 2 ports and two DC fast ports
+        when(stationIndex.get(STATION)).thenReturn(new StationPoint(STATION, 27.7, 85.3, true, 4, 2, 0, 0, 6));
+
+        engine = new BookingAvailabilityEngine();
+        ReflectionTestUtils.setField(engine, "bookingRepo", bookingRepo);
+
+        service = new StationSlotGridService();
+        ReflectionTestUtils.setField(service, "availabilityEngine", engine);
+        ReflectionTestUtils.setField(service, "stationIndex", stationIndex);
+        ReflectionTestUtils.setField(service, "stationRepo", mock(ChargingStationRepository.class));
+        ReflectionTestUtils.setField(service, "bookingRepo", bookingRepo);
+    }
+
+    @Test
+    void oneBookingBlocksTheWholeStationPlusTheBuffer() {
+        committed.add(new Object[] {100L, at(10, 0), at(11, 0), "Level 2"});
+
+        SlotGridDTO grid = service.grid(STATION, DAY);
+
+        // 9:45 to 11:15 is blocked even though five other ports are idle
+        assertTrue(grid.getFree()[bucket(9, 30)]);
+        for (int b = bucket(9, 45); b < bucket(11, 15); b++) {
+            assertFalse(grid.getFree()[b], "bucket " + b);
+        }
+        assertTrue(grid.getFree()[bucket(11, 15)]);
+        assertEquals(4, grid.getTotalPorts().get("LEVEL2"));
+        assertEquals(2, grid.getTotalPorts().get("DC_FAST"));
+    }
+
+    @Test
+    void gridAgreesWithTheEngineForEveryBucketAlignedBooking() {
+        committed.add(new Object[] {100L, at(8, 0), at(9, 30), "Level 2"});
+        committed.add(new Object[] {101L, at(12, 15), at(13, 0), "DC Fast"});
+        committed.add(new Object[] {102L, at(23, 30), at(23, 59), "Level 2"});
+
+        boolean[] free = service.grid(STATION, DAY).getFree();
+
+        for (int first = 0; first < free.length; first++) {
+            for (int length = 1; length <= 8 && first + length <= free.length; length++) {
+                boolean allFree = true;
+                for (int b = first; b < first + length; b++) {
+                    allFree &= free[b];
+                }
+                LocalDateTime start = DAY.atStartOfDay().plusMinutes(15L * first);
+                BookingAvailabilityEngine.Hold hold = engine.reserve(STATION, start,
+                        start.plusMinutes(15L * length), "Level 2");
+                engine.release(hold);
+                assertEquals(hold.reserved(), allFree, "start " + start + " length " + length);
+            }
+        }
+    }
+
+    @Test
+    void bookingNearMidnightEvictsBothDaysTheBufferTouches() {
+        SlotGridDTO today = service.grid(STATION, DAY);
+        SlotGridDTO tomorrow = service.grid(STATION, DAY.plusDays(1));
+        assertTrue(tomorrow.getFree()[0]);
+
+        // Ends at 23:50; its buffer runs into the next day's first bucket
+        committed.add(new Object[] {100L, at(23, 0), at(23, 50), "Level 2"});
+        engine.onBookingChanged(new BookingChangedEvent(100L, STATION, at(23, 0), at(23, 50), "Level 2",
+                BookingStatus.CONFIRMED, null));
+        service.onBookingChanged(new BookingChangedEvent(100L, STATION, at(23, 0), at(23, 50), "Level 2",
+                BookingStatus.CONFIRMED, null));
+
+        assertFalse(service.grid(STATION, DAY).getFree()[bucket(23, 0)]);
+        assertFalse(service.grid(STATION, DAY.plusDays(1)).getFree()[0]);
+        assertTrue(service.grid(STATION, DAY.plusDays(1)).getFree()[1]);
+        assertSame(service.grid(STATION, DAY), service.grid(STATION, DAY));
+        assertNotSame(today, service.grid(STATION, DAY));
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.atTime(hour, minute);
+    }
+
+    private static int bucket(int hour, int minute) {
+        return (hour * 60 + minute) / StationSlotGridService.BUCKET_MINUTES;
+    }
+}
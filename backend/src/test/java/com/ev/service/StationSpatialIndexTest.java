@@ -0,0 +1,124 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.model.ChargingStations;
+import com.ev.repository.ChargingStationRepository;
+import com.ev.service.StationSpatialIndex.Neighbour;
+import com.ev.service.StationSpatialIndex.StationPoint;
+
+class StationSpatialIndexTest {
+
+    // Around Kathmandu
+    private static final double LAT = 27.7172;
+    private static final double LNG = 85.3240;
+
+    private final ChargingStationRepository stationRepo = mock(ChargingStationRepository.class);
+    private final List<StationPoint> stations = new ArrayList<>();
+    private StationSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            // Within about 80 km of the centre
+            double lat = LAT + (random.nextDouble() - 0.5) * 1.4;
+            double lng = LNG + (random.nextDouble() - 0.5) * 1.6;
+            String status = id % 5 == 0 ? "maintenance" : "operational";
+            int dcFast = (int) (id % 3);
+            stations.add(new StationPoint(id, lat, lng, id % 5 != 0, 2, dcFast, 0, 0, 2 + dcFast));
+            rows.add(new Object[] {id, lat, lng, status, 2, dcFast, 0, 0, 2 + dcFast});
+        }
+        when(stationRepo.findAllForSpatialIndex()).thenReturn(rows);
+
+        index = new StationSpatialIndex();
+        ReflectionTestUtils.setField(index, "stationRepo", stationRepo);
+        index.load();
+    }
+
+    @Test
+    void radiusSearchMatchesABruteForceScan() {
+        for (double radius : new double[] {0.5, 5, 12.3, 60, 500}) {
+            List<Neighbour> found = index.withinRadius(LAT, LNG, radius, p -> p.operational());
+
+            List<Long> expected = stations.stream()
+                    .filter(StationPoint::operational)
+                    .filter(p -> distance(p) <= radius)
+                    .sorted(Comparator.comparingDouble(StationSpatialIndexTest::distance))
+                    .map(StationPoint::id)
+                    .toList();
+            assertEquals(expected, found.stream().map(Neighbour::stationId).toList(), "radius " + radius);
+        }
+    }
+
+    @Test
+    void nearestMatchesABruteForceRanking() {
+        for (int k : new int[] {1, 5, 50}) {
+            List<Neighbour> found = index.nearest(LAT + 0.2, LNG - 0.1, k, 100, p -> p.dcFastChargers() > 0);
+
+            List<Long> expected = stations.stream()
+                    .filter(p -> p.dcFastChargers() > 0)
+                    .sorted(Comparator.comparingDouble(p -> StationSpatialIndex.distanceKm(
+                            LAT + 0.2, LNG - 0.1, p.latitude(), p.longitude())))
+                    .limit(k)
+                    .map(StationPoint::id)
+                    .toList();
+            assertEquals(expected, found.stream().map(Neighbour::stationId).toList(), "k " + k);
+        }
+    }
+
+    @Test
+    void nearestStopsAtTheMaximumRadius() {
+        List<Neighbour> found = index.nearest(LAT, LNG, 10_000, 3, p -> true);
+
+        long inside = stations.stream().filter(p -> distance(p) <= 3).count();
+        assertEquals(inside, found.size());
+        assertTrue(found.stream().allMatch(n -> n.distanceKm() <= 3));
+    }
+
+    @Test
+    void stationChangesMoveAndRemoveEntries() {
+        // A station far from everything else
+        ChargingStations station = new ChargingStations();
+        station.setId(9001L);
+        station.setLatitude(28.2096);
+        station.setLongitude(83.9856);
+        station.setStatus("operational");
+        station.setTotalSlots(4);
+        index.onStationChanged(StationChangedEvent.saved(station));
+        assertEquals(List.of(9001L), ids(index.withinRadius(28.2096, 83.9856, 1, p -> true)));
+
+        // Moved next to the query point: gone from the old cell, found in the new one
+        station.setLatitude(LAT);
+        station.setLongitude(LNG);
+        index.onStationChanged(StationChangedEvent.saved(station));
+        assertEquals(List.of(), ids(index.withinRadius(28.2096, 83.9856, 1, p -> true)));
+        assertEquals(9001L, index.nearest(LAT, LNG, 1, 10, p -> true).get(0).stationId());
+
+        index.onStationChanged(StationChangedEvent.deleted(9001L));
+        assertNull(index.get(9001L));
+        assertEquals(stations.size(), index.size());
+    }
+
+    private static double distance(StationPoint p) {
+        return StationSpatialIndex.distanceKm(LAT, LNG, p.latitude(), p.longitude());
+    }
+
+    private static List<Long> ids(List<Neighbour> neighbours) {
+        return neighbours.stream().map(Neighbour::stationId).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ev.dto.StationClusterDTO;
+import com.ev.model.BookingStatus;
+import com.ev.model.ChargingStations;
+import com.ev.repository.BookingRepository;
+import com.ev.repository.ChargingStationRepository;
+
+class StationTileGridTest {
+
+    private final ChargingStationRepository stationRepo = mock(ChargingStationRepository.class);
+    private final BookingRepository bookingRepo = mock(BookingRepository.class);
+    private final List<Object[]> active = new ArrayList<>();
+    private StationTileGrid grid;
+
+    @BeforeEach
+    void setUp() {
+        // Two stations a few hundred metres apart in Kathmandu, one in Pokhara
+        when(stationRepo.findAllForTileGrid()).thenReturn(List.of(
+                new Object[] {1L, 27.7172, 85.3240, 15.0, 30.0, 4},
+                new Object[] {2L, 27.7200, 85.3260, 12.0, null, 2},
+                new Object[] {3L, 28.2096, 83.9856, null, 25.0, 6}));
+        when(bookingRepo.countActiveBookingsPerStation(any())).thenAnswer(inv -> List.copyOf(active));
+
+        grid = new StationTileGrid();
+        ReflectionTestUtils.setField(grid, "stationRepo", stationRepo);
+        ReflectionTestUtils.setField(grid, "bookingRepo", bookingRepo);
+        ReflectionTestUtils.setField(grid, "busyTtlMs", 60_000L);
+        grid.load();
+    }
+
+    @Test
+    void zoomedOutTileAggregatesEveryStation() {
+        List<StationClusterDTO> world = grid.clusters(0, 0, 0);
+
+        assertEquals(3, world.stream().mapToInt(StationClusterDTO::getCount).sum());
+        assertEquals(12, world.stream().mapToLong(StationClusterDTO::getFreeSlots).sum());
+        StationClusterDTO nepal = world.get(0);
+        assertEquals(1, world.size());
+        assertEquals(12.0, nepal.getMinPrice());
+        assertEquals((27.7172 + 27.7200 + 28.2096) / 3, nepal.getLatitude(), 1e-9);
+        assertNull(nepal.getStationId());
+    }
+
+    @Test
+    void closeStationsClusterUntilZoomedInFarEnough() {
+        StationClusterDTO kathmandu = single(tileOf(27.7172, 85.3240, 10));
+        assertEquals(2, kathmandu.getCount());
+        assertEquals(6, kathmandu.getFreeSlots());
+
+        List<StationClusterDTO> street = tileOf(27.7172, 85.3240, 18);
+        assertEquals(1, street.size());
+        assertEquals(1L, street.get(0).getStationId());
+        assertEquals(27.7172, street.get(0).getLatitude());
+    }
+
+    @Test
+    void loneStationLeftInACellIsTheOneThatStayed() {
+        // Station 2 was added after station 1; moving it away must leave station 1 as the marker
+        grid.onStationChanged(StationChangedEvent.saved(station(2L, 28.2100, 83.9860, 2)));
+
+        StationClusterDTO kathmandu = single(tileOf(27.7172, 85.3240, 10));
+        assertEquals(1, kathmandu.getCount());
+        assertEquals(1L, kathmandu.getStationId());
+        assertEquals(27.7172, kathmandu.getLatitude());
+        assertEquals(85.3240, kathmandu.getLongitude());
+
+        StationClusterDTO pokhara = single(tileOf(28.2096, 83.9856, 10));
+        assertEquals(2, pokhara.getCount());
+
+        grid.onStationChanged(StationChangedEvent.deleted(3L));
+        assertEquals(2L, single(tileOf(28.2096, 83.9856, 10)).getStationId());
+    }
+
+    @Test
+    void freeSlotsSubtractRunningBookingsAndRefreshOnBookingChanges() {
+        assertEquals(6, single(tileOf(27.7172, 85.3240, 10)).getFreeSlots());
+
+        active.add(new Object[] {1L, 3L});
+        // Still the cached count until a booking changes
+        assertEquals(6, single(tileOf(27.7172, 85.3240, 10)).getFreeSlots());
+
+        grid.onBookingChanged(new BookingChangedEvent(9L, 1L, null, null, "Level 2",
+                BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS));
+        assertEquals(3, single(tileOf(27.7172, 85.3240, 10)).getFreeSlots());
+        assertEquals(9, grid.clusters(0, 0, 0).get(0).getFreeSlots());
+
+        // Overbooked station 2 is full, not negative
+        active.add(new Object[] {2L, 5L});
+        grid.onBookingChanged(new BookingChangedEvent(10L, 2L, null, null, "Level 2",
+                BookingStatus.CONFIRMED, BookingStatus.IN_PROGRESS));
+        assertEquals(1, single(tileOf(27.7172, 85.3240, 10)).getFreeSlots());
+        verify(bookingRepo, times(3)).countActiveBookingsPerStation(any());
+    }
+
+    private List<StationClusterDTO> tileOf(double lat, double lng, int z) {
+        int n = 1 << z;
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * n);
+        double rad = Math.toRadians(lat);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * n);
+        return grid.clusters(z, x, y);
+    }
+
+    private static StationClusterDTO single(List<StationClusterDTO> clusters) {
+        assertEquals(1, clusters.size());
+        return clusters.get(0);
+    }
+
+    private static ChargingStations station(Long id, double lat, double lng, int totalSlots) {
+        ChargingStations s = new ChargingStations();
+        s.setId(id);
+        s.setLatitude(lat);
+        s.setLongitude(lng);
+        s.setLevel2Rate(12.0);
+        s.setTotalSlots(totalSlots);
+        return s;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ev.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.ev.service.TimingWheelScheduler.Timeout;
+
+class TimingWheelSchedulerTest {
+
+    @Test
+    void firesTasksAcrossWheelLevelsAndSkipsCancelled() throws Exception {
+        // 10 ms ticks, 8 buckets: anything past 80 ms cascades down from overflow wheels
+        try (TimingWheelScheduler wheel = new TimingWheelScheduler("test-wheel", 10, 8, Runnable::run)) {
+            int tasks = 40;
+            CountDownLatch done = new CountDownLatch(tasks - 1);
+            Map<Integer, Long> firedLateBy = new ConcurrentHashMap<>();
+            List<Integer> cancelledRan = new CopyOnWriteArrayList<>();
+
+            long now = System.currentTimeMillis();
+            Timeout cancelled = null;
+            for (int i = 0; i < tasks; i++) {
+                int n = i;
+                long due = now + 20L + 30L * i; // up to ~1.2 s out
+                Timeout t = wheel.schedule(due, () -> {
+                    if (n == 7) {
+                        cancelledRan.add(n);
+                    } else {
+                        firedLateBy.put(n, System.currentTimeMillis() - due);
+                        done.countDown();
+                    }
+                });
+                if (i == 7) cancelled = t;
+            }
+            cancelled.cancel();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(tasks - 1, firedLateBy.size());
+            assertTrue(cancelledRan.isEmpty());
+            // never earlier than one tick before the due time
+            firedLateBy.values().forEach(late -> assertTrue(late >= -10, "fired " + -late + " ms early"));
+            assertEquals(0, wheel.size());
+        }
+    }
+
+    @Test
+    void runsOverdueTasksImmediately() throws Exception {
+        try (TimingWheelScheduler wheel = new TimingWheelScheduler("test-wheel", 1000, 60, Runnable::run)) {
+            CountDownLatch ran = new CountDownLatch(1);
+            wheel.schedule(System.currentTimeMillis() - 60_000, ran::countDown);
+            assertTrue(ran.await(1, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -19,6 +19,15 @@ const setToken = (token, role) => {
   localStorage.setItem('activeRole', role);
 };
 
+// Key for the backend's Idempotency-Key header: a retried request with the same key
+// gets the first response replayed instead of running twice
+export const newIdempotencyKey = () =>
+  window.crypto?.randomUUID
+    ? window.crypto.randomUUID()
+    : `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
+
+const idempotencyHeaders = (key) => (key ? { 'Idempotency-Key': key } : {});
+
 
 // Add request interceptor to add token to headers
 api.interceptors.request.use(
@@ -476,9 +485,10 @@ export const bookingService = {
   try {
     const response = await api.get("/admin/bookings", {
       params: {
-        page: filters.page ?? 0,
         size: filters.limit ?? 10,
         sort: filters.sort ?? "bookedAt,desc",
+        // nextCursor of the previous page; omitted for the first page
+        cursor: filters.cursor,
       },
     });
     return response.data;
@@ -529,9 +539,12 @@ getActiveBookingsCount: async (stationIds) => {
     }
   },
 
-  createBooking: async (bookingData) => {
+  // Pass the same idempotencyKey when retrying the same booking so it is created only once
+  createBooking: async (bookingData, idempotencyKey = newIdempotencyKey()) => {
   try {
-    const response = await api.post("/bookings", bookingData);
+    const response = await api.post("/bookings", bookingData, {
+      headers: idempotencyHeaders(idempotencyKey),
+    });
     // backend returns: { bookingId, paymentUrl, amount, paymentMethod }
     return response.data;
   } catch (error) {
@@ -555,6 +568,20 @@ getActiveBookingsCount: async (stationIds) => {
   return res.data;
 },
 
+  // Checkout state of a booking's latest payment: { paymentStatus, paymentUrl, failureReason }
+  getPaymentStatus: async (bookingId) => {
+    const res = await api.get(`/bookings/${bookingId}/payment`);
+    return res.data;
+  },
+
+  // Gives up on a booking whose payment never started; the server cancels it and frees the slot
+  abandonPayment: async (bookingId) => {
+    const res = await api.post(`/bookings/${bookingId}/payment-failed`, null, {
+      headers: idempotencyHeaders(`payment-failed:${bookingId}`),
+    });
+    return res.data;
+  },
+
   cancelBooking: async (bookingId) => {
     try {
       const response = await api.delete(`/bookings/${bookingId}`);
@@ -584,8 +611,10 @@ markPaymentSuccess: async (bookingId, gatewayPaymentId) => {
   console.log("URL =", url);
   console.log("gatewayPaymentId param =", gatewayPaymentId);
   console.log("================================");
+  // Derived from the callback itself, so a reloaded success page replays instead of confirming again
   const res = await api.post(url, null, {
     params: gatewayPaymentId ? { gatewayPaymentId } : {},
+    headers: idempotencyHeaders(`payment-success:${bookingId}:${gatewayPaymentId || ''}`),
   });
   return res.data;
 },
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import {
   MapPin,
@@ -12,7 +12,29 @@ import {
   CreditCard,
 } from 'lucide-react';
 import { toast } from 'react-toastify';
-import { stationService, bookingService } from '../../Services/api';
+import { stationService, bookingService, newIdempotencyKey } from '../../Services/api';
+
+// How often and how long to wait for a checkout the server is still creating (202 from createBooking)
+const PAYMENT_POLL_INTERVAL_MS = 1000;
+const PAYMENT_POLL_TIMEOUT_MS = 30000;
+
+// Polls the booking's payment until it has a checkout URL or has failed; null url on timeout
+const waitForPaymentUrl = async (bookingId) => {
+  const deadline = Date.now() + PAYMENT_POLL_TIMEOUT_MS;
+  while (Date.now() < deadline) {
+    await new Promise((resolve) => setTimeout(resolve, PAYMENT_POLL_INTERVAL_MS));
+    try {
+      const status = await bookingService.getPaymentStatus(bookingId);
+      if (status.paymentUrl) return { url: status.paymentUrl };
+      if (status.paymentStatus === "FAILED") {
+        return { url: null, failed: true, reason: status.failureReason };
+      }
+    } catch (err) {
+      console.warn("Payment status check failed, retrying", err);
+    }
+  }
+  return { url: null, failed: false };
+};
 
 export default function BookingPage() {
   const { stationId } = useParams();
@@ -23,6 +45,8 @@ console.log('booking stationId', stationId);
   const [loading, setLoading] = useState(true);
   const [submitting, setSubmitting] = useState(false);
   const [bookedSlots, setBookedSlots] = useState([]);
+  // Idempotency key of the last submitted payload; resubmitting the same payload reuses it
+  const lastAttempt = useRef({ payload: null, key: null });
   
 
   const [formData, setFormData] = useState({
@@ -171,8 +195,13 @@ useEffect(() => {
     paymentMethod: formData.paymentMethod,
   };
 
+  const payloadJson = JSON.stringify(payload);
+  if (lastAttempt.current.payload !== payloadJson) {
+    lastAttempt.current = { payload: payloadJson, key: newIdempotencyKey() };
+  }
+
   try {
-    const result = await bookingService.createBooking(payload);
+    const result = await bookingService.createBooking(payload, lastAttempt.current.key);
     
     const bookingId = result.bookingId;
     const paymentUrl = result.paymentUrl;
@@ -185,14 +214,30 @@ useEffect(() => {
 
     // CARD: Stripe
     if (formData.paymentMethod === "CARD") {
-      if (!paymentUrl) {
-        toast.error("Unable to start payment. Please try again.");
-        setSubmitting(false);
-        return;
+      let cardUrl = paymentUrl;
+      if (!cardUrl) {
+        // 202: the checkout is still being created on the server
+        let outcome = { url: null, failed: false };
+        if (result.paymentStatusUrl) {
+          toast.info("Preparing secure card payment…", { autoClose: 1500 });
+          outcome = await waitForPaymentUrl(bookingId);
+        }
+        cardUrl = outcome.url;
+        if (!cardUrl) {
+          // A failed checkout has already cancelled the booking; otherwise release the slot ourselves
+          if (!outcome.failed) {
+            await bookingService.abandonPayment(bookingId).catch((e) =>
+              console.error("Could not cancel booking", bookingId, e));
+          }
+          lastAttempt.current = { payload: null, key: null };
+          toast.error(outcome.reason || "Unable to start payment. Please try again.");
+          setSubmitting(false);
+          return;
+        }
       }
       toast.info("Redirecting to secure card payment…", { autoClose: 1200 });
       setTimeout(() => {
-        window.location.href = paymentUrl;
+        window.location.href = cardUrl;
       }, 1000);
       return;
     }
@@ -279,8 +324,13 @@ useEffect(() => {
 
     toast.error("Unknown payment method");
   } catch (err) {
+    // 502 carries { paymentStatus: FAILED, message }; the booking is already cancelled
+    const data = err.response?.data;
+    if (err.response?.status === 502) {
+      lastAttempt.current = { payload: null, key: null };
+    }
     const msg =
-      err.response?.data ||
+      (typeof data === "string" ? data : data?.message) ||
       "Slot no longer available or payment could not be initialized.";
     toast.error(msg);
   } finally {